@@ -2,8 +2,10 @@ package com.caixafacil.pdv;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class CaixaFacilApplication {
     public static void main(String[] args) {
         SpringApplication.run(CaixaFacilApplication.class, args);
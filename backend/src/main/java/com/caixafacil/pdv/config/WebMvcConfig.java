@@ -1,14 +1,23 @@
 package com.caixafacil.pdv.config;
 
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.CacheControl;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+import java.util.concurrent.TimeUnit;
+
 @Configuration
 public class WebMvcConfig implements WebMvcConfigurer {
     
     @Override
     public void addResourceHandlers(ResourceHandlerRegistry registry) {
+        // Fotos de produto: o nome muda junto com o conteúdo, cache imutável
+        // (Range é atendido pelo próprio ResourceHttpRequestHandler)
+        registry.addResourceHandler("/uploads/produtos/**")
+                .addResourceLocations("file:uploads/produtos/")
+                .setCacheControl(CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable());
+
         // Servir arquivos de upload
         registry.addResourceHandler("/uploads/**")
                 .addResourceLocations("file:uploads/");
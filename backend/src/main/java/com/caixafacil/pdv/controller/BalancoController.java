@@ -0,0 +1,93 @@
+package com.caixafacil.pdv.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import com.caixafacil.pdv.model.Balanco;
+import com.caixafacil.pdv.model.BalancoItem;
+import com.caixafacil.pdv.repository.BalancoItemRepository;
+import com.caixafacil.pdv.repository.BalancoRepository;
+import com.caixafacil.pdv.service.BalancoService;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+@RestController
+@RequestMapping("/api/balancos")
+@RequiredArgsConstructor
+public class BalancoController {
+
+    private final BalancoService balancoService;
+    private final BalancoRepository balancoRepository;
+    private final BalancoItemRepository balancoItemRepository;
+
+    @GetMapping
+    public List<Balanco> listar() {
+        return balancoRepository.findAll();
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<Balanco> buscarPorId(@PathVariable Long id) {
+        return balancoRepository.findById(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @PostMapping
+    public Balanco abrir(@RequestBody(required = false) Balanco balanco) {
+        return balancoService.abrir(balanco != null ? balanco.getDescricao() : null);
+    }
+
+    // Leituras dos coletores no corpo da requisição, uma por linha:
+    // "codigo" (1 unidade) ou "codigo;quantidade". Lidas em fluxo, sem
+    // carregar o corpo inteiro.
+    @PostMapping("/{id}/leituras")
+    public ResponseEntity<?> registrarLeituras(@PathVariable Long id, HttpServletRequest request) {
+        try {
+            return ResponseEntity.ok(balancoService.registrarLeituras(id, request.getInputStream()));
+        } catch (IOException | RuntimeException e) {
+            return erro(e);
+        }
+    }
+
+    // Total contado até agora de cada produto
+    @GetMapping("/{id}/contagens")
+    public ResponseEntity<?> contagens(@PathVariable Long id) {
+        return executar(() -> balancoService.contagens(id));
+    }
+
+    @PostMapping("/{id}/fechar")
+    public ResponseEntity<?> fechar(@PathVariable Long id) {
+        return executar(() -> balancoService.fechar(id));
+    }
+
+    @PostMapping("/{id}/cancelar")
+    public ResponseEntity<?> cancelar(@PathVariable Long id) {
+        return executar(() -> balancoService.cancelar(id));
+    }
+
+    // Resultado completo de um balanço fechado
+    @GetMapping("/{id}/itens")
+    public List<BalancoItem> itens(@PathVariable Long id) {
+        return balancoItemRepository.findByBalancoIdOrderByProdutoId(id);
+    }
+
+    private static ResponseEntity<?> executar(Supplier<?> acao) {
+        try {
+            return ResponseEntity.ok(acao.get());
+        } catch (RuntimeException e) {
+            return erro(e);
+        }
+    }
+
+    private static ResponseEntity<?> erro(Exception e) {
+        Map<String, String> error = new HashMap<>();
+        error.put("error", e.getMessage());
+        return ResponseEntity.badRequest().body(error);
+    }
+}
@@ -1,8 +1,10 @@
 package com.caixafacil.pdv.controller;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import com.caixafacil.pdv.model.Categoria;
 import com.caixafacil.pdv.model.FormaPagamento;
@@ -10,6 +12,7 @@ import com.caixafacil.pdv.model.Usuario;
 import com.caixafacil.pdv.repository.CategoriaRepository;
 import com.caixafacil.pdv.repository.FormaPagamentoRepository;
 import com.caixafacil.pdv.repository.UsuarioRepository;
+import com.caixafacil.pdv.service.EtagService;
 
 import java.util.stream.Collectors;
 import java.util.List;
@@ -22,11 +25,19 @@ public class CadastrosController {
     private final CategoriaRepository categoriaRepository;
     private final FormaPagamentoRepository formaPagamentoRepository;
     private final UsuarioRepository usuarioRepository;
+    private final EtagService etagService;
 
     // Categorias
     @GetMapping("/categorias")
-    public List<Categoria> listarCategorias() {
-        return categoriaRepository.findAll();
+    public ResponseEntity<List<Categoria>> listarCategorias(WebRequest request) {
+        String etag = etagService.catalogo();
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .eTag(etag)
+                .body(categoriaRepository.findAll());
     }
 
     @PostMapping("/categorias")
@@ -36,8 +47,15 @@ public class CadastrosController {
 
     // Formas de Pagamento
     @GetMapping("/formas-pagamento")
-    public List<FormaPagamento> listarFormasPagamento() {
-        return formaPagamentoRepository.findAll();
+    public ResponseEntity<List<FormaPagamento>> listarFormasPagamento(WebRequest request) {
+        String etag = etagService.catalogo();
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .eTag(etag)
+                .body(formaPagamentoRepository.findAll());
     }
 
     @PostMapping("/formas-pagamento")
@@ -1,6 +1,7 @@
 package com.caixafacil.pdv.controller;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -12,6 +13,7 @@ import com.caixafacil.pdv.repository.CaixaRepository;
 import com.caixafacil.pdv.repository.FormaPagamentoRepository;
 import com.caixafacil.pdv.repository.MovimentacaoCaixaRepository;
 import com.caixafacil.pdv.repository.UsuarioRepository;
+import com.caixafacil.pdv.service.CaixaMovimentadoEvent;
 
 import java.time.LocalDateTime;
 import java.util.*;
@@ -33,6 +35,9 @@ public class CaixaController {
     @Autowired
     private FormaPagamentoRepository formaPagamentoRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     @GetMapping("/status")
     public ResponseEntity<Map<String, Object>> verificarStatus() {
         Optional<Caixa> caixaOpt = caixaRepository.findCaixaAberto();
@@ -114,6 +119,7 @@ public class CaixaController {
             mov.setDataHora(LocalDateTime.now());
             mov.setFormaPagamento(formaPagamento);
             movimentacaoCaixaRepository.save(mov);
+            eventPublisher.publishEvent(new CaixaMovimentadoEvent(mov.getTipo(), caixa.getId(), mov.getValor()));
 
             return ResponseEntity.ok("Caixa aberto com sucesso");
         } catch (Exception e) {
@@ -153,6 +159,7 @@ public class CaixaController {
             mov.setDescricao("Fechamento de caixa" + (observacoes.isEmpty() ? "" : " - " + observacoes));
             mov.setDataHora(LocalDateTime.now());
             movimentacaoCaixaRepository.save(mov);
+            eventPublisher.publishEvent(new CaixaMovimentadoEvent(mov.getTipo(), caixa.getId(), mov.getValor()));
 
             return ResponseEntity.ok("Caixa fechado com sucesso");
         } catch (Exception e) {
@@ -191,6 +198,7 @@ public class CaixaController {
             mov.setDataHora(LocalDateTime.now());
             mov.setFormaPagamento(formaPagamento);
             movimentacaoCaixaRepository.save(mov);
+            eventPublisher.publishEvent(new CaixaMovimentadoEvent(mov.getTipo(), caixa.getId(), mov.getValor()));
 
             return ResponseEntity.ok("Suprimento registrado");
         } catch (Exception e) {
@@ -229,6 +237,7 @@ public class CaixaController {
             mov.setDataHora(LocalDateTime.now());
             mov.setFormaPagamento(formaPagamento);
             movimentacaoCaixaRepository.save(mov);
+            eventPublisher.publishEvent(new CaixaMovimentadoEvent(mov.getTipo(), caixa.getId(), mov.getValor()));
 
             return ResponseEntity.ok("Sangria registrada");
         } catch (Exception e) {
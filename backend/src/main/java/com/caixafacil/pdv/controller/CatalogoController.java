@@ -0,0 +1,30 @@
+package com.caixafacil.pdv.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import com.caixafacil.pdv.service.SincronizacaoCatalogoService;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/catalogo")
+@RequiredArgsConstructor
+public class CatalogoController {
+
+    private final SincronizacaoCatalogoService sincronizacaoCatalogoService;
+
+    // Cópia local dos terminais: sem "desde" vem o catálogo inteiro
+    @GetMapping("/alteracoes")
+    public ResponseEntity<?> alteracoes(@RequestParam(required = false) Long desde) {
+        try {
+            return ResponseEntity.ok(sincronizacaoCatalogoService.alteracoes(desde));
+        } catch (RuntimeException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
+}
@@ -1,10 +1,12 @@
 package com.caixafacil.pdv.controller;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import com.caixafacil.pdv.model.Cliente;
 import com.caixafacil.pdv.repository.ClienteRepository;
+import com.caixafacil.pdv.service.ClienteAlteradoEvent;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -14,9 +16,11 @@ import java.util.List;
 public class ClienteController {
 
     private final ClienteRepository clienteRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public ClienteController(ClienteRepository clienteRepository) {
+    public ClienteController(ClienteRepository clienteRepository, ApplicationEventPublisher eventPublisher) {
         this.clienteRepository = clienteRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     @GetMapping
@@ -69,6 +73,7 @@ public class ClienteController {
         
         cliente.setDataCadastro(LocalDateTime.now());
         Cliente saved = clienteRepository.save(cliente);
+        eventPublisher.publishEvent(new ClienteAlteradoEvent(saved.getId(), false));
         return ResponseEntity.ok(saved);
     }
 
@@ -90,6 +95,7 @@ public class ClienteController {
         
         cliente.setId(id);
         Cliente updated = clienteRepository.save(cliente);
+        eventPublisher.publishEvent(new ClienteAlteradoEvent(id, false));
         return ResponseEntity.ok(updated);
     }
 
@@ -99,6 +105,7 @@ public class ClienteController {
             return ResponseEntity.notFound().build();
         }
         clienteRepository.deleteById(id);
+        eventPublisher.publishEvent(new ClienteAlteradoEvent(id, true));
         return ResponseEntity.noContent().build();
     }
 }
@@ -1,14 +1,17 @@
 package com.caixafacil.pdv.controller;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 import com.caixafacil.pdv.model.Cliente;
 import com.caixafacil.pdv.model.Configuracao;
 import com.caixafacil.pdv.repository.ClienteRepository;
 import com.caixafacil.pdv.repository.ConfiguracaoRepository;
+import com.caixafacil.pdv.service.EtagService;
 
 import java.io.IOException;
 import java.nio.file.Files;
@@ -24,11 +27,17 @@ public class ConfiguracaoController {
 
     private final ConfiguracaoRepository configuracaoRepository;
     private final ClienteRepository clienteRepository;
+    private final EtagService etagService;
 
     private static final String UPLOAD_DIR = "uploads/logos/";
 
     @GetMapping
-    public ResponseEntity<?> buscar() {
+    public ResponseEntity<?> buscar(WebRequest request) {
+        String etag = etagService.configuracao();
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+
         Configuracao config = configuracaoRepository.findAll().stream()
                 .findFirst()
                 .orElse(new Configuracao());
@@ -57,7 +66,10 @@ public class ConfiguracaoController {
             resp.put("clientePadrao", config.getClientePadrao());
         }
 
-        return ResponseEntity.ok(resp);
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .eTag(etag)
+                .body(resp);
     }
 
     @PostMapping
@@ -94,6 +106,7 @@ public class ConfiguracaoController {
         }
 
         configuracaoRepository.save(config);
+        etagService.configuracaoAlterada();
         return ResponseEntity.ok(config);
     }
 
@@ -120,6 +133,7 @@ public class ConfiguracaoController {
             config.setId(1L);
             config.setLogoPath(fileName);
             configuracaoRepository.save(config);
+            etagService.configuracaoAlterada();
 
             return ResponseEntity.ok(Map.of("logoPath", fileName));
 
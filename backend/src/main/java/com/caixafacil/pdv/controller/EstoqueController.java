@@ -1,15 +1,28 @@
 package com.caixafacil.pdv.controller;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import com.caixafacil.pdv.model.MovimentacaoEstoque;
+import com.caixafacil.pdv.dto.FiltroHistoricoEstoqueDTO;
+import com.caixafacil.pdv.dto.MovimentacaoEstoqueDTO;
+import com.caixafacil.pdv.dto.NotaEntradaDTO;
+import com.caixafacil.pdv.dto.PosicaoEstoqueDTO;
 import com.caixafacil.pdv.model.Produto;
 import com.caixafacil.pdv.repository.MovimentacaoEstoqueRepository;
+import com.caixafacil.pdv.service.ConferenciaEstoqueService;
 import com.caixafacil.pdv.service.EstoqueService;
+import com.caixafacil.pdv.service.PosicaoEstoqueService;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/estoque")
@@ -18,6 +31,10 @@ public class EstoqueController {
 
     private final EstoqueService estoqueService;
     private final MovimentacaoEstoqueRepository movimentacaoEstoqueRepository;
+    private final PosicaoEstoqueService posicaoEstoqueService;
+    private final ConferenciaEstoqueService conferenciaEstoqueService;
+
+    private static final int LIMITE_MAXIMO_HISTORICO = 500;
 
     @PostMapping("/entrada")
     public Produto entrada(
@@ -28,6 +45,18 @@ public class EstoqueController {
         return estoqueService.entrada(produtoId, quantidade, observacao);
     }
 
+    // Nota de entrada com várias linhas, aplicada numa transação só
+    @PostMapping("/entrada-nota")
+    public ResponseEntity<?> entradaNota(@RequestBody NotaEntradaDTO nota) {
+        try {
+            return ResponseEntity.ok(estoqueService.entradaNota(nota));
+        } catch (RuntimeException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
+
     @PostMapping("/ajuste")
     public Produto ajuste(
             @RequestParam Long produtoId,
@@ -42,8 +71,79 @@ public class EstoqueController {
         return estoqueService.consultar(produtoId);
     }
 
+    // Histórico do produto, da movimentação mais recente para a mais antiga.
+    // Continua sendo um array; havendo mais páginas, o cursor da próxima vem
+    // no header X-Proximo-Cursor.
     @GetMapping("/historico")
-    public List<MovimentacaoEstoque> historico(@RequestParam Long produtoId) {
-        return movimentacaoEstoqueRepository.findByProdutoIdOrderByDataHoraDesc(produtoId);
+    public ResponseEntity<?> historico(
+            @RequestParam Long produtoId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime inicio,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime fim,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int limite
+    ) {
+        FiltroHistoricoEstoqueDTO filtro = new FiltroHistoricoEstoqueDTO();
+        filtro.setProdutoId(produtoId);
+        filtro.setInicio(inicio);
+        filtro.setFim(fim);
+
+        if (cursor != null && !cursor.isBlank()) {
+            try {
+                String[] partes = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+                filtro.setAposDataHora(LocalDateTime.parse(partes[0]));
+                filtro.setAposId(Long.parseLong(partes[1]));
+            } catch (RuntimeException e) {
+                Map<String, String> error = new HashMap<>();
+                error.put("error", "Cursor inválido");
+                return ResponseEntity.badRequest().body(error);
+            }
+        }
+
+        int tamanho = Math.max(1, Math.min(limite, LIMITE_MAXIMO_HISTORICO));
+        List<MovimentacaoEstoqueDTO> movimentacoes = movimentacaoEstoqueRepository.historico(filtro, tamanho);
+
+        ResponseEntity.BodyBuilder resposta = ResponseEntity.ok();
+        if (movimentacoes.size() == tamanho) {
+            MovimentacaoEstoqueDTO ultima = movimentacoes.get(movimentacoes.size() - 1);
+            String chave = ultima.dataHora() + "|" + ultima.id();
+            resposta.header("X-Proximo-Cursor", Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString(chave.getBytes(StandardCharsets.UTF_8)));
+        }
+        return resposta.body(movimentacoes);
+    }
+
+    // Estoque do produto numa data/hora passada
+    @GetMapping("/posicao")
+    public PosicaoEstoqueDTO posicao(
+            @RequestParam Long produtoId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime em
+    ) {
+        return posicaoEstoqueService.estoqueEm(produtoId, em);
+    }
+
+    // Estoque de todos os produtos numa data/hora passada (inventário retroativo)
+    @GetMapping("/posicao-geral")
+    public List<PosicaoEstoqueDTO> posicaoGeral(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime em
+    ) {
+        return posicaoEstoqueService.posicaoEm(em);
+    }
+
+    @PostMapping("/snapshots")
+    public Map<String, Integer> gerarSnapshot() {
+        return Map.of("produtos", posicaoEstoqueService.gerarSnapshot());
+    }
+
+    // Confere o estoque de todos os produtos com o livro; corrigir=true
+    // ajusta o estoque para o valor do livro
+    @PostMapping("/conferencia")
+    public ResponseEntity<?> conferir(@RequestParam(defaultValue = "false") boolean corrigir) {
+        try {
+            return ResponseEntity.ok(conferenciaEstoqueService.conferir(corrigir));
+        } catch (RuntimeException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+        }
     }
 }
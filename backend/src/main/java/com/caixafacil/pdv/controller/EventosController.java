@@ -0,0 +1,52 @@
+package com.caixafacil.pdv.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.caixafacil.pdv.service.NotificacaoService;
+
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+
+@RestController
+@RequestMapping("/api/eventos")
+@RequiredArgsConstructor
+public class EventosController {
+
+    private final NotificacaoService notificacaoService;
+
+    // EventSource: /api/eventos?topicos=estoque,caixa,venda (vazio = todos)
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> inscrever(
+            @RequestParam(required = false) String topicos,
+            @RequestHeader(value = "Last-Event-ID", required = false) Long ultimoId) {
+        Set<String> selecionados = new LinkedHashSet<>();
+        if (topicos != null) {
+            for (String topico : topicos.split(",")) {
+                if (!topico.isBlank()) {
+                    selecionados.add(topico.trim().toLowerCase(Locale.ROOT));
+                }
+            }
+        }
+        if (!NotificacaoService.TOPICOS.containsAll(selecionados)) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        try {
+            return ResponseEntity.ok()
+                    .cacheControl(CacheControl.noCache())
+                    // nginx: não segurar o stream em buffer
+                    .header("X-Accel-Buffering", "no")
+                    .body(notificacaoService.inscrever(selecionados, ultimoId));
+        } catch (RuntimeException e) {
+            System.err.println("Inscrição de eventos recusada: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+}
@@ -1,19 +1,28 @@
 package com.caixafacil.pdv.controller;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
+import com.caixafacil.pdv.dto.AtualizacaoMassaDTO;
+import com.caixafacil.pdv.dto.ImportacaoResultadoDTO;
+import com.caixafacil.pdv.dto.ProdutoResumoDTO;
 import com.caixafacil.pdv.model.Produto;
 import com.caixafacil.pdv.repository.ProdutoRepository;
+import com.caixafacil.pdv.service.AtualizacaoMassaService;
+import com.caixafacil.pdv.service.BuscaProdutoService;
+import com.caixafacil.pdv.service.EtagService;
+import com.caixafacil.pdv.service.FotoProdutoService;
+import com.caixafacil.pdv.service.ImportacaoProdutoService;
+import com.caixafacil.pdv.service.IndiceCodigoBarrasService;
+import com.caixafacil.pdv.service.ProdutoAlteradoEvent;
 import com.caixafacil.pdv.service.ProdutoService;
 
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
 import java.util.*;
 
 @RestController
@@ -24,14 +33,36 @@ public class ProdutoController {
     private ProdutoRepository produtoRepository;
     @Autowired
     private ProdutoService produtoService;
+    @Autowired
+    private IndiceCodigoBarrasService indiceCodigoBarrasService;
+    @Autowired
+    private BuscaProdutoService buscaProdutoService;
+    @Autowired
+    private ImportacaoProdutoService importacaoProdutoService;
+    @Autowired
+    private AtualizacaoMassaService atualizacaoMassaService;
+    @Autowired
+    private EtagService etagService;
+    @Autowired
+    private FotoProdutoService fotoProdutoService;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
 
     // ============================================================
     // LISTAR / BUSCAR
     // ============================================================
 
+    // ETag pela versão do catálogo e do estoque: 304 sem consultar o banco
     @GetMapping
-    public List<Produto> listar() {
-        return produtoRepository.findAll();
+    public ResponseEntity<List<Produto>> listar(WebRequest request) {
+        String etag = etagService.produtos();
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .eTag(etag)
+                .body(produtoRepository.listarCatalogo());
     }
 
     @GetMapping("/{id}")
@@ -41,25 +72,27 @@ public class ProdutoController {
                 .orElse(ResponseEntity.notFound().build());
     }
 
-    // Buscar por código EXATO — DEPENDÊNCIA DO FRONT
+    // Buscar por código EXATO (principal ou alternativo) — leitura do scanner,
+    // respondida pelo índice em memória, sem ir ao banco
     @GetMapping("/codigo/{codigo}")
-    public ResponseEntity<Produto> buscarPorCodigo(@PathVariable String codigo) {
-        Produto produto = produtoRepository.findByCodigo(codigo);
-        if (produto == null)
-            return ResponseEntity.notFound().build();
-        return ResponseEntity.ok(produto);
+    public ResponseEntity<ProdutoResumoDTO> buscarPorCodigo(@PathVariable String codigo) {
+        return indiceCodigoBarrasService.buscar(codigo)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
     }
 
     // Buscar parcial — DEPENDÊNCIA PRINCIPAL DO PDV
+    // (código exato vem primeiro: o PDV adiciona o primeiro resultado)
     @GetMapping("/buscar-parcial/{texto}")
     public List<Produto> buscarParcial(@PathVariable String texto) {
-        return produtoRepository.buscarParcial(texto);
+        return buscaProdutoService.buscar(texto, BuscaProdutoService.LIMITE_PADRAO);
     }
 
     // Buscar por query param — usado em telas de pesquisa
     @GetMapping("/buscar")
-    public List<Produto> buscar(@RequestParam String q) {
-        return produtoRepository.buscarParcial(q);
+    public List<Produto> buscar(@RequestParam String q,
+                                @RequestParam(defaultValue = "50") int limite) {
+        return buscaProdutoService.buscar(q, Math.max(1, Math.min(limite, 200)));
     }
 
     // ============================================================
@@ -68,25 +101,18 @@ public class ProdutoController {
 
     @PostMapping
     public Produto criar(@RequestBody Produto produto) {
-        return produtoRepository.save(produto);
+        Produto salvo = produtoService.criar(produto);
+        eventPublisher.publishEvent(ProdutoAlteradoEvent.salvo(salvo.getId()));
+        return salvo;
     }
 
+    // Estoque diferente do atual vira ajuste no livro (ver ProdutoService)
     @PutMapping("/{id}")
     public ResponseEntity<Produto> atualizar(@PathVariable Long id, @RequestBody Produto produto) {
-        return produtoRepository.findById(id)
-                .map(p -> {
-                    p.setCodigo(produto.getCodigo());
-                    p.setDescricao(produto.getDescricao());
-                    p.setUnidade(produto.getUnidade());
-                    p.setCategoria(produto.getCategoria());
-                    p.setPrecoVenda(produto.getPrecoVenda());
-                    p.setPrecoCusto(produto.getPrecoCusto());
-                    p.setEstoque(produto.getEstoque());
-                    p.setEstoqueMinimo(produto.getEstoqueMinimo());
-                    p.setControlarEstoque(produto.getControlarEstoque());
-                    p.setAtivo(produto.getAtivo());
-                    p.setObservacoes(produto.getObservacoes());
-                    return ResponseEntity.ok(produtoRepository.save(p));
+        return produtoService.atualizar(id, produto)
+                .map(salvo -> {
+                    eventPublisher.publishEvent(ProdutoAlteradoEvent.salvo(id));
+                    return ResponseEntity.ok(salvo);
                 })
                 .orElse(ResponseEntity.notFound().build());
     }
@@ -96,15 +122,59 @@ public class ProdutoController {
         return produtoRepository.findById(id)
                 .map(p -> {
                     produtoRepository.delete(p);
+                    eventPublisher.publishEvent(ProdutoAlteradoEvent.removido(id));
                     return ResponseEntity.ok().build();
                 })
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    // ============================================================
+    // IMPORTAÇÃO EM MASSA (CSV)
+    // ============================================================
+
+    @PostMapping("/importar")
+    public ResponseEntity<?> importar(@RequestParam("file") MultipartFile file) {
+        try {
+            ImportacaoResultadoDTO resultado = importacaoProdutoService.importar(file.getInputStream());
+            return ResponseEntity.ok(resultado);
+        } catch (IOException | RuntimeException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Erro ao importar produtos: " + e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
+
+    // ============================================================
+    // ATUALIZAÇÃO EM MASSA (reajuste por categoria, códigos ou planilha)
+    // ============================================================
+
+    @PostMapping("/atualizacao-massa")
+    public ResponseEntity<?> atualizarEmMassa(@RequestBody AtualizacaoMassaDTO alteracao) {
+        try {
+            return ResponseEntity.ok(atualizacaoMassaService.aplicar(alteracao));
+        } catch (RuntimeException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
+
+    @PostMapping("/atualizacao-massa/arquivo")
+    public ResponseEntity<?> atualizarEmMassaPorArquivo(@RequestParam("file") MultipartFile file) {
+        try {
+            return ResponseEntity.ok(atualizacaoMassaService.aplicarArquivo(file.getInputStream()));
+        } catch (IOException | RuntimeException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Erro na atualização em massa: " + e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
+
     // ============================================================
     // UPLOAD DE FOTO
     // ============================================================
 
+    // Original com hash do conteúdo no nome; miniaturas geradas em segundo plano
     @PostMapping("/{id}/foto")
     public ResponseEntity<Map<String, String>> uploadFoto(
             @PathVariable Long id,
@@ -114,37 +184,8 @@ public class ProdutoController {
             if (produtoOpt.isEmpty())
                 return ResponseEntity.notFound().build();
 
-            Produto produto = produtoOpt.get();
-
-            String uploadDir = "uploads/produtos/";
-            Path uploadPath = Paths.get(uploadDir);
-
-            if (!Files.exists(uploadPath)) {
-                Files.createDirectories(uploadPath);
-            }
-
-            String originalFilename = file.getOriginalFilename();
-            String extension = originalFilename != null && originalFilename.contains(".")
-                    ? originalFilename.substring(originalFilename.lastIndexOf("."))
-                    : "";
-
-            String filename = "produto_" + id + "_" + System.currentTimeMillis() + extension;
-
-            // Remove foto antiga
-            if (produto.getFotoPath() != null && !produto.getFotoPath().isEmpty()) {
-                try {
-                    Path oldFile = uploadPath.resolve(produto.getFotoPath());
-                    Files.deleteIfExists(oldFile);
-                } catch (Exception ignored) {
-                }
-            }
-
-            // Salva nova foto
-            Path filePath = uploadPath.resolve(filename);
-            Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
-
-            produto.setFotoPath(filename);
-            produtoRepository.save(produto);
+            String filename = fotoProdutoService.salvar(produtoOpt.get(), file);
+            eventPublisher.publishEvent(ProdutoAlteradoEvent.salvo(id));
 
             Map<String, String> response = new HashMap<>();
             response.put("fotoPath", filename);
@@ -161,27 +202,17 @@ public class ProdutoController {
 
     @DeleteMapping("/{id}/foto")
     public ResponseEntity<?> deletarFoto(@PathVariable Long id) {
-        try {
-            Optional<Produto> produtoOpt = produtoRepository.findById(id);
-            if (produtoOpt.isEmpty())
-                return ResponseEntity.notFound().build();
-
-            Produto produto = produtoOpt.get();
-
-            if (produto.getFotoPath() != null && !produto.getFotoPath().isEmpty()) {
-                String uploadDir = "uploads/produtos/";
-                Path filePath = Paths.get(uploadDir).resolve(produto.getFotoPath());
-                Files.deleteIfExists(filePath);
-
-                produto.setFotoPath(null);
-                produtoRepository.save(produto);
-            }
-
-            return ResponseEntity.ok().build();
+        Optional<Produto> produtoOpt = produtoRepository.findById(id);
+        if (produtoOpt.isEmpty())
+            return ResponseEntity.notFound().build();
 
-        } catch (IOException e) {
-            return ResponseEntity.internalServerError().body("Erro ao deletar foto");
+        Produto produto = produtoOpt.get();
+        if (produto.getFotoPath() != null && !produto.getFotoPath().isEmpty()) {
+            fotoProdutoService.remover(produto);
+            eventPublisher.publishEvent(ProdutoAlteradoEvent.salvo(id));
         }
+
+        return ResponseEntity.ok().build();
     }
 
     // ============= ESTOQUE BAIXO =============
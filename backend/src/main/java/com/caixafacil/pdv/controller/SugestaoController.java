@@ -0,0 +1,26 @@
+package com.caixafacil.pdv.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.*;
+
+import com.caixafacil.pdv.dto.SugestaoDTO;
+import com.caixafacil.pdv.service.SugestaoService;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/sugestoes")
+@RequiredArgsConstructor
+public class SugestaoController {
+    
+    private final SugestaoService sugestaoService;
+    
+    // Autocompletar a cada tecla: tipo = produto, cliente ou vazio para os dois
+    @GetMapping
+    public List<SugestaoDTO> sugerir(
+            @RequestParam String q,
+            @RequestParam(required = false) String tipo,
+            @RequestParam(defaultValue = "10") int limite) {
+        return sugestaoService.sugerir(q, tipo != null ? tipo.toUpperCase() : null, limite);
+    }
+}
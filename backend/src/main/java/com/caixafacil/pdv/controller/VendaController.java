@@ -1,23 +1,36 @@
 package com.caixafacil.pdv.controller;
 
 import lombok.RequiredArgsConstructor;
-import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.caixafacil.pdv.dto.FiltroVendasDTO;
+import com.caixafacil.pdv.dto.PaginaVendasDTO;
 import com.caixafacil.pdv.dto.VendaDTO;
-import com.caixafacil.pdv.model.Caixa;
-import com.caixafacil.pdv.model.Configuracao;
-import com.caixafacil.pdv.model.MovimentacaoCaixa;
+import com.caixafacil.pdv.dto.VendaResumoDTO;
+import com.caixafacil.pdv.model.ResumoVendaDia;
 import com.caixafacil.pdv.model.Venda;
-import com.caixafacil.pdv.repository.CaixaRepository;
-import com.caixafacil.pdv.repository.ConfiguracaoRepository;
-import com.caixafacil.pdv.repository.MovimentacaoCaixaRepository;
+import com.caixafacil.pdv.repository.ResumoVendaDiaRepository;
 import com.caixafacil.pdv.repository.VendaRepository;
-import com.caixafacil.pdv.service.VendaService;
+import com.caixafacil.pdv.service.CaixaFechadoException;
+import com.caixafacil.pdv.service.CheckoutMetricas;
+import com.caixafacil.pdv.service.CheckoutService;
+import com.caixafacil.pdv.service.CronometroCheckout;
+import com.caixafacil.pdv.service.ExportacaoVendasService;
+import com.caixafacil.pdv.service.VendaIdempotenciaService;
+import com.caixafacil.pdv.service.VendaLoteService;
 
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Base64;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -29,22 +42,67 @@ import java.util.Optional;
 public class VendaController {
     
     private final VendaRepository vendaRepository;
-    private final VendaService vendaService;
+    private final ResumoVendaDiaRepository resumoVendaDiaRepository;
+    private final CheckoutService checkoutService;
+    private final CheckoutMetricas checkoutMetricas;
+    private final VendaLoteService vendaLoteService;
+    private final VendaIdempotenciaService vendaIdempotenciaService;
+    private final ExportacaoVendasService exportacaoVendasService;
     
-    @Autowired
-    private CaixaRepository caixaRepository;
-    
-    @Autowired
-    private MovimentacaoCaixaRepository movimentacaoCaixaRepository;
-    
-    @Autowired
-    private ConfiguracaoRepository configuracaoRepository;
+    private static final int LIMITE_MAXIMO_PESQUISA = 200;
     
     @GetMapping
     public List<Venda> listar() {
         return vendaRepository.findAll();
     }
     
+    // Pesquisa paginada: só o cabeçalho das vendas, da mais recente para a mais antiga.
+    // Para a próxima página, repasse o proximoCursor recebido.
+    @GetMapping("/pesquisa")
+    public ResponseEntity<?> pesquisar(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime inicio,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime fim,
+            @RequestParam(required = false) Long usuarioId,
+            @RequestParam(required = false) Long clienteId,
+            @RequestParam(required = false) Boolean cancelada,
+            @RequestParam(required = false) BigDecimal totalMinimo,
+            @RequestParam(required = false) BigDecimal totalMaximo,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limite) {
+        FiltroVendasDTO filtro = new FiltroVendasDTO();
+        filtro.setInicio(inicio);
+        filtro.setFim(fim);
+        filtro.setUsuarioId(usuarioId);
+        filtro.setClienteId(clienteId);
+        filtro.setCancelada(cancelada);
+        filtro.setTotalMinimo(totalMinimo);
+        filtro.setTotalMaximo(totalMaximo);
+        
+        if (cursor != null && !cursor.isBlank()) {
+            try {
+                String[] partes = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+                filtro.setAposDataHora(LocalDateTime.parse(partes[0]));
+                filtro.setAposId(Long.parseLong(partes[1]));
+            } catch (RuntimeException e) {
+                Map<String, String> erro = new HashMap<>();
+                erro.put("erro", "Cursor inválido");
+                return ResponseEntity.badRequest().body(erro);
+            }
+        }
+        
+        int tamanho = Math.max(1, Math.min(limite, LIMITE_MAXIMO_PESQUISA));
+        List<VendaResumoDTO> vendas = vendaRepository.pesquisar(filtro, tamanho);
+        
+        String proximoCursor = null;
+        if (vendas.size() == tamanho) {
+            VendaResumoDTO ultima = vendas.get(vendas.size() - 1);
+            String chave = ultima.getDataHora() + "|" + ultima.getId();
+            proximoCursor = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(chave.getBytes(StandardCharsets.UTF_8));
+        }
+        return ResponseEntity.ok(new PaginaVendasDTO(vendas, proximoCursor));
+    }
+    
     @GetMapping("/{id}")
     public ResponseEntity<Venda> buscarPorId(@PathVariable Long id) {
         return vendaRepository.findById(id)
@@ -60,73 +118,147 @@ public class VendaController {
     }
     
     @PostMapping
-    public ResponseEntity<?> criar(@RequestBody VendaDTO vendaDTO) {
+    public ResponseEntity<?> criar(
+            @RequestBody VendaDTO vendaDTO,
+            @RequestHeader(value = "Idempotency-Key", required = false) String chaveIdempotencia) {
+        if (chaveIdempotencia != null && !chaveIdempotencia.isBlank()) {
+            vendaDTO.setChaveIdempotencia(chaveIdempotencia);
+        }
+        String chave = vendaDTO.getChaveIdempotencia();
+        
         try {
             System.out.println("Recebendo venda: " + vendaDTO);
             
-            // Verificar se controle de caixa está habilitado
-            Optional<Configuracao> configOpt = configuracaoRepository.findById(1L);
-            if (configOpt.isPresent() && configOpt.get().getControlarCaixa() != null 
-                && configOpt.get().getControlarCaixa()) {
-                
-                // Validar se existe caixa aberto
-                Optional<Caixa> caixaOpt = caixaRepository.findCaixaAberto();
-                if (!caixaOpt.isPresent()) {
+            // Reenvio do terminal (timeout, retry): devolve a venda já gravada
+            if (chave != null) {
+                try {
+                    vendaIdempotenciaService.validarChave(chave);
+                } catch (RuntimeException e) {
                     Map<String, String> erro = new HashMap<>();
-                    erro.put("erro", "Não é possível finalizar venda sem caixa aberto");
-                    erro.put("tipo", "CaixaFechadoException");
-                    return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(erro);
+                    erro.put("erro", e.getMessage());
+                    return ResponseEntity.badRequest().body(erro);
+                }
+                ResponseEntity<String> repetida = respostaRepetida(chave);
+                if (repetida != null) {
+                    return repetida;
                 }
             }
             
-            // Salvar a venda
-            Venda venda = vendaService.salvar(vendaDTO);
+            // Validação do caixa, venda, estoque e caixa em uma transação só
+            CronometroCheckout cronometro = new CronometroCheckout();
+            Venda venda = checkoutService.finalizar(vendaDTO, cronometro);
             
-            // Se controle de caixa está ativo, registrar no caixa
-            if (configOpt.isPresent() && configOpt.get().getControlarCaixa() != null 
-                && configOpt.get().getControlarCaixa()) {
-                
-                Optional<Caixa> caixaOpt = caixaRepository.findCaixaAberto();
-                if (caixaOpt.isPresent()) {
-                    Caixa caixa = caixaOpt.get();
-                    
-                    // Converter BigDecimal para Double
-                    Double valorVenda = venda.getTotal().doubleValue();
-                    
-                    // Atualizar valor de vendas no caixa
-                    caixa.setValorVendas(caixa.getValorVendas() + valorVenda);
-                    caixaRepository.save(caixa);
-                    
-                    // Registrar movimentação para cada forma de pagamento da venda
-                    if (venda.getPagamentos() != null && !venda.getPagamentos().isEmpty()) {
-                        for (var pagamento : venda.getPagamentos()) {
-                            MovimentacaoCaixa mov = new MovimentacaoCaixa();
-                            mov.setCaixa(caixa);
-                            mov.setTipo("VENDA");
-                            mov.setValor(pagamento.getValor().doubleValue());
-                            mov.setDescricao("Venda #" + venda.getNumeroDocumento() + 
-                                           " - " + pagamento.getFormaPagamento().getDescricao());
-                            mov.setDataHora(LocalDateTime.now());
-                            mov.setVenda(venda);
-                            mov.setFormaPagamento(pagamento.getFormaPagamento());
-                            movimentacaoCaixaRepository.save(mov);
-                        }
-                    }
-                    
-                    System.out.println("Venda registrada no caixa: " + valorVenda);
+            if (chave != null) {
+                String json = vendaIdempotenciaService.guardarResposta(chave, venda);
+                return ResponseEntity.ok()
+                    .header("Server-Timing", cronometro.serverTiming())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(json);
+            }
+            return ResponseEntity.ok()
+                .header("Server-Timing", cronometro.serverTiming())
+                .body(venda);
+        } catch (CaixaFechadoException e) {
+            Map<String, String> erro = new HashMap<>();
+            erro.put("erro", e.getMessage());
+            erro.put("tipo", "CaixaFechadoException");
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(erro);
+        } catch (DataIntegrityViolationException e) {
+            // A mesma chave foi gravada por uma requisição paralela
+            if (chave != null) {
+                ResponseEntity<String> repetida = respostaRepetida(chave);
+                if (repetida != null) {
+                    return repetida;
                 }
             }
-            
-            return ResponseEntity.ok(venda);
+            return erroVenda(e);
         } catch (Exception e) {
-            System.err.println("ERRO ao criar venda: " + e.getMessage());
-            e.printStackTrace();
-            
+            return erroVenda(e);
+        }
+    }
+    
+    private ResponseEntity<String> respostaRepetida(String chave) {
+        Optional<String> json = vendaIdempotenciaService.buscarNoCache(chave);
+        if (json.isEmpty()) {
+            json = vendaIdempotenciaService.buscarVenda(chave)
+                .map(venda -> vendaIdempotenciaService.guardarResposta(chave, venda));
+        }
+        return json
+            .map(body -> ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .header("Idempotent-Replayed", "true")
+                .body(body))
+            .orElse(null);
+    }
+    
+    private ResponseEntity<?> erroVenda(Exception e) {
+        System.err.println("ERRO ao criar venda: " + e.getMessage());
+        e.printStackTrace();
+        
+        Map<String, String> erro = new HashMap<>();
+        erro.put("erro", e.getMessage());
+        erro.put("tipo", e.getClass().getSimpleName());
+        
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(erro);
+    }
+    
+    @GetMapping("/resumo-diario")
+    public List<ResumoVendaDia> resumoDiario(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate inicio,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fim) {
+        return resumoVendaDiaRepository.findByDataBetweenOrderByData(inicio, fim);
+    }
+    
+    // Exportação do período [inicio, fim] (datas inclusivas) sem carregar as vendas em memória
+    @GetMapping("/exportar")
+    public ResponseEntity<StreamingResponseBody> exportar(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate inicio,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fim,
+            @RequestParam(defaultValue = "ndjson") String formato,
+            @RequestParam(defaultValue = "vendas") String conteudo,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        ExportacaoVendasService.Formato fmt;
+        ExportacaoVendasService.Conteudo cont;
+        try {
+            fmt = ExportacaoVendasService.Formato.valueOf(formato.toUpperCase());
+            cont = ExportacaoVendasService.Conteudo.valueOf(conteudo.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            String erro = "{\"erro\":\"Use formato=ndjson|csv e conteudo=vendas|itens|pagamentos\"}";
+            return ResponseEntity.badRequest()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(out -> out.write(erro.getBytes(StandardCharsets.UTF_8)));
+        }
+        
+        String arquivo = cont.name().toLowerCase() + "-" + inicio + "_" + fim
+            + (fmt == ExportacaoVendasService.Formato.CSV ? ".csv" : ".ndjson")
+            + (gzip ? ".gz" : "");
+        MediaType tipo = gzip ? MediaType.parseMediaType("application/gzip")
+            : fmt == ExportacaoVendasService.Formato.CSV ? MediaType.parseMediaType("text/csv;charset=UTF-8")
+            : MediaType.parseMediaType("application/x-ndjson;charset=UTF-8");
+        
+        StreamingResponseBody corpo = out -> exportacaoVendasService.exportar(
+            out, cont, fmt, inicio.atStartOfDay(), fim.plusDays(1).atStartOfDay(), gzip);
+        return ResponseEntity.ok()
+            .contentType(tipo)
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + arquivo + "\"")
+            .body(corpo);
+    }
+    
+    // Tempos médios/máximos por fase do checkout desde o start
+    @GetMapping("/checkout/metricas")
+    public Map<String, Object> metricasCheckout() {
+        return checkoutMetricas.resumo();
+    }
+    
+    // Sincronização de vendas feitas offline: várias vendas em uma requisição
+    @PostMapping("/lote")
+    public ResponseEntity<?> criarLote(@RequestBody List<VendaDTO> vendas) {
+        if (vendas.size() > VendaLoteService.MAXIMO_VENDAS) {
             Map<String, String> erro = new HashMap<>();
-            erro.put("erro", e.getMessage());
-            erro.put("tipo", e.getClass().getSimpleName());
-            
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(erro);
+            erro.put("erro", "Máximo de " + VendaLoteService.MAXIMO_VENDAS + " vendas por lote");
+            return ResponseEntity.badRequest().body(erro);
         }
+        
+        return ResponseEntity.ok(vendaLoteService.processar(vendas));
     }
 }
@@ -0,0 +1,35 @@
+package com.caixafacil.pdv.dto;
+
+import lombok.Data;
+
+import com.caixafacil.pdv.model.Categoria;
+import com.caixafacil.pdv.model.FormaPagamento;
+import com.caixafacil.pdv.model.Produto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Resposta de GET /api/catalogo/alteracoes. O terminal aplica os registros
+ * sobre a cópia local e guarda "versao" para a próxima chamada (desde).
+ */
+@Data
+public class AlteracoesCatalogoDTO {
+    private long versao;
+    
+    // true: catálogo inteiro, a cópia local deve ser substituída
+    private boolean completo;
+    
+    // Produtos vêm com a lista completa de códigos alternativos
+    private List<Produto> produtos = new ArrayList<>();
+    private List<Categoria> categorias = new ArrayList<>();
+    private List<FormaPagamento> formasPagamento = new ArrayList<>();
+    private List<Exclusao> exclusoes = new ArrayList<>();
+    
+    @Data
+    public static class Exclusao {
+        // PRODUTO, PRODUTO_CODIGO, CATEGORIA, FORMA_PAGAMENTO
+        private final String entidade;
+        private final Long id;
+    }
+}
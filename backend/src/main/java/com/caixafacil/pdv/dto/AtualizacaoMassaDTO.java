@@ -0,0 +1,27 @@
+package com.caixafacil.pdv.dto;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Alteração aplicada de uma vez a um conjunto de produtos.
+ *
+ * Filtro: categoriaId e/ou codigos (principais ou alternativos); todos = true
+ * para o catálogo inteiro. Alterações: campos nulos não mudam. Preços aceitam
+ * valor absoluto ou percentual (ex.: 7 = +7%, -10 = -10%), não os dois.
+ */
+@Data
+public class AtualizacaoMassaDTO {
+    private Long categoriaId;
+    private List<String> codigos;
+    private Boolean todos;
+    
+    private BigDecimal precoVenda;
+    private BigDecimal precoVendaPercentual;
+    private BigDecimal precoCusto;
+    private BigDecimal precoCustoPercentual;
+    private BigDecimal estoqueMinimo;
+    private Boolean ativo;
+}
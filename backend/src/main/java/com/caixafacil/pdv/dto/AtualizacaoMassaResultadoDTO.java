@@ -0,0 +1,12 @@
+package com.caixafacil.pdv.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class AtualizacaoMassaResultadoDTO {
+    private int produtosAlterados;
+    private List<String> codigosNaoEncontrados = new ArrayList<>();
+}
@@ -0,0 +1,18 @@
+package com.caixafacil.pdv.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import com.caixafacil.pdv.model.Balanco;
+import com.caixafacil.pdv.model.BalancoItem;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class BalancoResultadoDTO {
+    private Balanco balanco;
+
+    // Só os produtos com diferença; a contagem completa fica em /itens
+    private List<BalancoItem> ajustes;
+}
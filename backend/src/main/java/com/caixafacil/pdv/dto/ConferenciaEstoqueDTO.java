@@ -0,0 +1,16 @@
+package com.caixafacil.pdv.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class ConferenciaEstoqueDTO {
+    private long produtosConferidos;
+    private int totalDivergencias;
+    private int corrigidos;
+    private long tempoMs;
+    // Primeiras divergências, em ordem de id (até MAXIMO_DIVERGENCIAS_RELATADAS)
+    private List<DivergenciaEstoqueDTO> divergencias = new ArrayList<>();
+}
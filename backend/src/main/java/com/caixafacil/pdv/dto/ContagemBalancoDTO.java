@@ -0,0 +1,10 @@
+package com.caixafacil.pdv.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Total contado de um produto num balanço aberto, com a hora da última leitura
+ */
+public record ContagemBalancoDTO(Long produtoId, BigDecimal quantidade, LocalDateTime contadoEm) {
+}
@@ -0,0 +1,17 @@
+package com.caixafacil.pdv.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Produto cujo estoque não bate com a soma das movimentações do livro
+ */
+public record DivergenciaEstoqueDTO(
+        Long produtoId,
+        BigDecimal estoque,
+        BigDecimal esperado,
+        boolean corrigido) {
+
+    public DivergenciaEstoqueDTO comCorrecao() {
+        return new DivergenciaEstoqueDTO(produtoId, estoque, esperado, true);
+    }
+}
@@ -0,0 +1,16 @@
+package com.caixafacil.pdv.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+public class FiltroHistoricoEstoqueDTO {
+    private Long produtoId;
+    private LocalDateTime inicio;
+    private LocalDateTime fim;
+
+    // Posição da última movimentação da página anterior (ordem dataHora desc, id desc)
+    private LocalDateTime aposDataHora;
+    private Long aposId;
+}
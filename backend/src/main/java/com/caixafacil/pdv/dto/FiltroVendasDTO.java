@@ -0,0 +1,21 @@
+package com.caixafacil.pdv.dto;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+public class FiltroVendasDTO {
+    private LocalDateTime inicio;
+    private LocalDateTime fim;
+    private Long usuarioId;
+    private Long clienteId;
+    private Boolean cancelada;
+    private BigDecimal totalMinimo;
+    private BigDecimal totalMaximo;
+    
+    // Posição da última venda da página anterior (ordem dataHora desc, id desc)
+    private LocalDateTime aposDataHora;
+    private Long aposId;
+}
@@ -0,0 +1,25 @@
+package com.caixafacil.pdv.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class ImportacaoResultadoDTO {
+    private long linhasLidas;
+    private long inseridos;
+    private long atualizados;
+    private long totalErros;
+    private long tempoMs;
+    
+    // Limitado a ImportacaoProdutoService.MAXIMO_ERROS_RELATADOS
+    private List<ErroLinha> erros = new ArrayList<>();
+    
+    @Data
+    public static class ErroLinha {
+        private final long linha;
+        private final String codigo;
+        private final String erro;
+    }
+}
@@ -0,0 +1,17 @@
+package com.caixafacil.pdv.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class LeituraBalancoDTO {
+    private int linhasLidas;
+    private int leiturasAplicadas;
+    private int linhasInvalidas;
+    private int produtosContados;
+    private int totalNaoEncontrados;
+    // Primeiros códigos sem produto (até MAXIMO_CODIGOS_RELATADOS)
+    private List<String> codigosNaoEncontrados = new ArrayList<>();
+}
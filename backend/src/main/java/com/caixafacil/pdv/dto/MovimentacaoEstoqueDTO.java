@@ -0,0 +1,22 @@
+package com.caixafacil.pdv.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Linha do histórico de estoque: só as colunas da movimentação, sem carregar
+ * produto nem usuário
+ */
+public record MovimentacaoEstoqueDTO(
+        Long id,
+        Long produtoId,
+        String tipo,
+        BigDecimal quantidade,
+        BigDecimal estoqueAnterior,
+        BigDecimal estoqueAtual,
+        String motivo,
+        String observacao,
+        Long usuarioId,
+        Long vendaId,
+        LocalDateTime dataHora) {
+}
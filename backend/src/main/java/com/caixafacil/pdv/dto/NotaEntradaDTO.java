@@ -0,0 +1,25 @@
+package com.caixafacil.pdv.dto;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Nota de entrada (recebimento de fornecedor): todas as linhas entram no
+ * estoque juntas ou nenhuma entra. O mesmo produto pode aparecer em mais de
+ * uma linha.
+ */
+@Data
+public class NotaEntradaDTO {
+    private String documento;
+    private String observacao;
+    private List<Item> itens = new ArrayList<>();
+
+    @Data
+    public static class Item {
+        private Long produtoId;
+        private BigDecimal quantidade;
+    }
+}
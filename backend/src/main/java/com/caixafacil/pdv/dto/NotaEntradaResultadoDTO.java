@@ -0,0 +1,14 @@
+package com.caixafacil.pdv.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class NotaEntradaResultadoDTO {
+    private String documento;
+    private int linhas;
+    // Estoque de cada produto da nota depois da entrada, em ordem de id
+    private List<PosicaoEstoqueDTO> estoques = new ArrayList<>();
+}
@@ -0,0 +1,15 @@
+package com.caixafacil.pdv.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class PaginaVendasDTO {
+    private List<VendaResumoDTO> vendas;
+    
+    // null quando não há mais páginas
+    private String proximoCursor;
+}
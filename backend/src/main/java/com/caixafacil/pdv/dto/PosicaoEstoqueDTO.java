@@ -0,0 +1,10 @@
+package com.caixafacil.pdv.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Estoque de um produto: o atual ou o de um instante passado, calculado pelo
+ * livro de movimentações
+ */
+public record PosicaoEstoqueDTO(Long produtoId, BigDecimal estoque) {
+}
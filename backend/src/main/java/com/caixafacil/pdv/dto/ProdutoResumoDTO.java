@@ -0,0 +1,40 @@
+package com.caixafacil.pdv.dto;
+
+import com.caixafacil.pdv.model.Produto;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+/**
+ * Cópia imutável dos dados de venda de um produto, guardada no índice de
+ * códigos de barras. Não tem estoque: ele muda a cada venda e continua sendo
+ * lido do banco.
+ */
+public record ProdutoResumoDTO(
+        Long id,
+        String codigo,
+        String descricao,
+        String unidade,
+        Long categoriaId,
+        String categoriaDescricao,
+        BigDecimal precoVenda,
+        Boolean controlarEstoque,
+        Boolean ativo,
+        String fotoPath,
+        Map<String, String> fotos) {
+
+    public static ProdutoResumoDTO de(Produto p) {
+        return new ProdutoResumoDTO(
+                p.getId(),
+                p.getCodigo(),
+                p.getDescricao(),
+                p.getUnidade(),
+                p.getCategoria() != null ? p.getCategoria().getId() : null,
+                p.getCategoria() != null ? p.getCategoria().getDescricao() : null,
+                p.getPrecoVenda(),
+                p.getControlarEstoque(),
+                p.getAtivo(),
+                p.getFotoPath(),
+                p.getFotos());
+    }
+}
@@ -0,0 +1,10 @@
+package com.caixafacil.pdv.dto;
+
+/**
+ * Sugestão do autocompletar: um produto ou um cliente
+ *
+ * @param tipo  PRODUTO ou CLIENTE
+ * @param texto descrição do produto ou nome do cliente, como cadastrado
+ */
+public record SugestaoDTO(String tipo, Long id, String codigo, String texto, boolean ativo) {
+}
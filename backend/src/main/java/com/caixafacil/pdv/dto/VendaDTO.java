@@ -2,6 +2,7 @@ package com.caixafacil.pdv.dto;
 
 import lombok.Data;
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Data
@@ -18,6 +19,9 @@ public class VendaDTO {
     private BigDecimal valorPago;
     private BigDecimal troco;
     private String observacoes;
+    private String chaveIdempotencia;
+    // Hora da venda no terminal: só vale em /api/vendas/lote (vendas offline)
+    private LocalDateTime dataHora;
     private List<VendaItemDTO> itens;
     private List<VendaPagamentoDTO> pagamentos;
 }
@@ -0,0 +1,13 @@
+package com.caixafacil.pdv.dto;
+
+import lombok.Data;
+
+@Data
+public class VendaLoteResultadoDTO {
+    private int indice;
+    private boolean sucesso;
+    private boolean duplicada;
+    private Long vendaId;
+    private Long numeroDocumento;
+    private String erro;
+}
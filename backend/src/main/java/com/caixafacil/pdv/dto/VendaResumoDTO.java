@@ -0,0 +1,23 @@
+package com.caixafacil.pdv.dto;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Linha da pesquisa de vendas: só o cabeçalho, sem itens nem pagamentos
+ */
+@Data
+public class VendaResumoDTO {
+    private Long id;
+    private Long numeroDocumento;
+    private LocalDateTime dataHora;
+    private Long usuarioId;
+    private String usuarioNome;
+    private Long clienteId;
+    private String clienteNome;
+    private BigDecimal subtotal;
+    private BigDecimal total;
+    private Boolean cancelada;
+}
@@ -0,0 +1,36 @@
+package com.caixafacil.pdv.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Sessão de contagem de estoque (balanço). As contagens ficam em memória
+ * enquanto o balanço está aberto; no fechamento viram BalancoItem e os
+ * ajustes de estoque.
+ */
+@Entity
+@Table(name = "balancos")
+@Data
+public class Balanco {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(length = 255)
+    private String descricao;
+
+    // ABERTO, FECHADO, CANCELADO
+    @Column(nullable = false, length = 20)
+    private String status;
+
+    @Column(nullable = false)
+    private LocalDateTime abertoEm;
+
+    private LocalDateTime fechadoEm;
+
+    private Integer produtosContados;
+    private Integer produtosAjustados;
+}
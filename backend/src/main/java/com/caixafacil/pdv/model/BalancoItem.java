@@ -0,0 +1,41 @@
+package com.caixafacil.pdv.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Resultado da contagem de um produto no fechamento do balanço
+ */
+@Entity
+@Table(name = "balancos_itens",
+       indexes = @Index(name = "idx_balancos_itens_balanco", columnList = "balancoId, produtoId"))
+@Data
+public class BalancoItem {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long balancoId;
+
+    @Column(nullable = false)
+    private Long produtoId;
+
+    @Column(nullable = false, precision = 15, scale = 3)
+    private BigDecimal quantidadeContada;
+
+    // Hora da última leitura do produto
+    @Column(nullable = false)
+    private LocalDateTime contadoEm;
+
+    // Estoque do sistema na hora da contagem (o atual menos o que mudou depois dela)
+    @Column(nullable = false, precision = 15, scale = 3)
+    private BigDecimal estoqueNaContagem;
+
+    @Column(nullable = false, precision = 15, scale = 3)
+    private BigDecimal diferenca;
+}
@@ -0,0 +1,28 @@
+package com.caixafacil.pdv.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+/**
+ * Registro de exclusão (tombstone) de um item do catálogo, para os
+ * terminais apagarem a cópia local na sincronização incremental.
+ */
+@Entity
+@Table(name = "catalogo_exclusoes",
+       indexes = @Index(name = "idx_catalogo_exclusoes_versao", columnList = "versao"))
+@Data
+public class CatalogoExclusao {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // PRODUTO, PRODUTO_CODIGO, CATEGORIA, FORMA_PAGAMENTO
+    @Column(nullable = false, length = 30)
+    private String entidade;
+
+    @Column(nullable = false)
+    private Long entidadeId;
+
+    @Column(nullable = false)
+    private Long versao;
+}
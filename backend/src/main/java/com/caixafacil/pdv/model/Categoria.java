@@ -3,10 +3,13 @@ package com.caixafacil.pdv.model;
 import jakarta.persistence.*;
 import lombok.Data;
 
+import com.caixafacil.pdv.service.VersaoCatalogoListener;
+
 @Entity
 @Table(name = "categorias")
+@EntityListeners(VersaoCatalogoListener.class)
 @Data
-public class Categoria {
+public class Categoria implements VersionadoCatalogo {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -16,4 +19,6 @@ public class Categoria {
     
     @Column(nullable = false)
     private Boolean ativo = true;
+    
+    private Long versaoCatalogo;
 }
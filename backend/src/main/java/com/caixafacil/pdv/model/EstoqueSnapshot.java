@@ -0,0 +1,34 @@
+package com.caixafacil.pdv.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Estoque de cada produto num instante, gravado periodicamente a partir do
+ * livro de movimentações. A posição numa data parte do snapshot anterior a
+ * ela e aplica só as movimentações seguintes.
+ */
+@Entity
+@Table(name = "estoque_snapshots", indexes = {
+        @Index(name = "idx_estoque_snapshot_data_produto", columnList = "dataHora, produtoId"),
+        @Index(name = "idx_estoque_snapshot_produto_data", columnList = "produtoId, dataHora")
+})
+@Data
+public class EstoqueSnapshot {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long produtoId;
+
+    @Column(nullable = false)
+    private LocalDateTime dataHora;
+
+    @Column(nullable = false, precision = 15, scale = 3)
+    private BigDecimal estoque;
+}
@@ -0,0 +1,47 @@
+package com.caixafacil.pdv.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+/**
+ * Evento gravado na mesma transação que o originou (ex.: a venda) e
+ * processado depois, fora da requisição, pelo OutboxDispatcher.
+ */
+@Entity
+@Table(name = "eventos_outbox",
+       indexes = @Index(name = "idx_outbox_pendentes", columnList = "processadoEm, proximaTentativa"))
+@Data
+public class EventoOutbox {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE)
+    private Long id;
+    
+    // VENDA_FINALIZADA, ...
+    @Column(nullable = false, length = 50)
+    private String tipo;
+    
+    private Long agregadoId;
+    
+    @Column(length = 4000)
+    private String payload;
+    
+    @Column(nullable = false)
+    private LocalDateTime dataHora;
+    
+    @Column(nullable = false)
+    private LocalDateTime proximaTentativa;
+    
+    @Column(nullable = false)
+    private Integer tentativas = 0;
+    
+    // Reserva do evento por um nó do dispatcher (lease)
+    @Column(length = 36)
+    private String lote;
+    private LocalDateTime reservadoAte;
+    
+    private LocalDateTime processadoEm;
+    
+    @Column(length = 1000)
+    private String erro;
+}
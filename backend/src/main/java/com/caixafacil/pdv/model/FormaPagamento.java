@@ -2,9 +2,12 @@ package com.caixafacil.pdv.model;
 
 import jakarta.persistence.*;
 
+import com.caixafacil.pdv.service.VersaoCatalogoListener;
+
 @Entity
 @Table(name = "formas_pagamento")
-public class FormaPagamento {
+@EntityListeners(VersaoCatalogoListener.class)
+public class FormaPagamento implements VersionadoCatalogo {
     
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -25,6 +28,8 @@ public class FormaPagamento {
     @Column(length = 20)
     private String categoria; // DINHEIRO, PIX, CARTAO, TICKET, VALE, PARCELADO
     
+    private Long versaoCatalogo;
+    
     // Getters e Setters
     public Long getId() {
         return id;
@@ -66,6 +71,14 @@ public class FormaPagamento {
         this.permiteParcelamento = permiteParcelamento;
     }
     
+    public Long getVersaoCatalogo() {
+        return versaoCatalogo;
+    }
+    
+    public void setVersaoCatalogo(Long versaoCatalogo) {
+        this.versaoCatalogo = versaoCatalogo;
+    }
+    
     public String getCategoria() {
         return categoria;
     }
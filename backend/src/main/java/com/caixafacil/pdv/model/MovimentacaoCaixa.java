@@ -8,7 +8,7 @@ import java.time.LocalDateTime;
 @Data
 public class MovimentacaoCaixa {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE)
     private Long id;
     
     @ManyToOne
@@ -7,7 +7,12 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "estoque_movimentacao")
+@Table(name = "estoque_movimentacao", indexes = {
+        // Histórico paginado (keyset) e posição do produto numa data
+        @Index(name = "idx_estoque_mov_produto_data", columnList = "produto_id, dataHora, id"),
+        // Movimentações de todos os produtos desde o último snapshot
+        @Index(name = "idx_estoque_mov_data", columnList = "dataHora")
+})
 @Data
 public class MovimentacaoEstoque {
 
@@ -18,10 +23,11 @@ public class MovimentacaoEstoque {
     @ManyToOne(optional = false)
     private Produto produto;
 
-    // ENTRADA, SAIDA, AJUSTE
+    // ENTRADA, SAIDA, AJUSTE, VENDA, SALDO_INICIAL
     @Column(nullable = false, length = 20)
     private String tipo;
 
+    // Com sinal: negativa nas saídas e vendas
     @Column(nullable = false, precision = 15, scale = 3)
     private BigDecimal quantidade;
 
@@ -39,6 +45,8 @@ public class MovimentacaoEstoque {
     @ManyToOne
     private Usuario usuario;    // por enquanto pode ficar null
 
+    private Long vendaId;       // Só nas baixas de venda
+
     @Column(nullable = false)
     private LocalDateTime dataHora;
 }
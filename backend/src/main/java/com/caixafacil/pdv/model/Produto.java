@@ -2,16 +2,22 @@ package com.caixafacil.pdv.model;
 
 import jakarta.persistence.*;
 import lombok.Data;
+
+import com.caixafacil.pdv.service.FotoProdutoService;
+import com.caixafacil.pdv.service.VersaoCatalogoListener;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 @Entity
+@Table(indexes = @Index(name = "idx_produto_versao_catalogo", columnList = "versaoCatalogo"))
+@EntityListeners(VersaoCatalogoListener.class)
 @Data
-public class Produto {
+public class Produto implements VersionadoCatalogo {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE)
     private Long id;
     
     @Column(unique = true)
@@ -26,7 +32,12 @@ public class Produto {
     
     private BigDecimal precoVenda = BigDecimal.ZERO;
     private BigDecimal precoCusto = BigDecimal.ZERO;
+    // Mesma escala do livro de estoque (MovimentacaoEstoque): vendas fracionadas.
+    // Só gravado no INSERT: alterações passam por UPDATEs que somam no banco
+    // e registram no livro (EstoqueService, VendaService), nunca pelo merge
+    @Column(precision = 15, scale = 3, updatable = false)
     private BigDecimal estoque = BigDecimal.ZERO;
+    @Column(precision = 15, scale = 3)
     private BigDecimal estoqueMinimo = BigDecimal.ZERO;
     
     private Boolean controlarEstoque = true;
@@ -39,6 +50,17 @@ public class Produto {
     
     private String fotoPath;
     
+    // Miniaturas já geradas para fotoPath (ver FotoProdutoService)
+    private Boolean fotoVariantes = false;
+    
+    // Versão da última alteração de cadastro (não muda com movimentação de estoque)
+    private Long versaoCatalogo;
+    
     @OneToMany(mappedBy = "produto", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<ProdutoCodigo> codigosAlternativos = new ArrayList<>();
+    
+    // URLs por variante (full, grid, thumb, original) para a grade de produtos
+    public Map<String, String> getFotos() {
+        return FotoProdutoService.urls(fotoPath, fotoVariantes);
+    }
 }
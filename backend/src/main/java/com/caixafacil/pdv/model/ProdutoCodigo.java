@@ -4,13 +4,17 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.Data;
 
+import com.caixafacil.pdv.service.VersaoCatalogoListener;
+
 @Entity
 @Table(name = "produtos_codigos", 
-       uniqueConstraints = @UniqueConstraint(columnNames = "codigo"))
+       uniqueConstraints = @UniqueConstraint(columnNames = "codigo"),
+       indexes = @Index(name = "idx_produtos_codigos_versao", columnList = "versaoCatalogo"))
+@EntityListeners(VersaoCatalogoListener.class)
 @Data
-public class ProdutoCodigo {
+public class ProdutoCodigo implements VersionadoCatalogo {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE)
     private Long id;
     
     @ManyToOne
@@ -23,4 +27,6 @@ public class ProdutoCodigo {
     
     @Column(length = 100)
     private String descricao;
+    
+    private Long versaoCatalogo;
 }
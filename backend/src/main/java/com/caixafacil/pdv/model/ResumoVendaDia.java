@@ -0,0 +1,27 @@
+package com.caixafacil.pdv.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Totais de vendas por dia, mantidos pelo ResumoVendasHandler
+ */
+@Entity
+@Table(name = "resumo_vendas_dia")
+@Data
+public class ResumoVendaDia {
+    @Id
+    private LocalDate data;
+    
+    @Column(nullable = false)
+    private Long quantidadeVendas = 0L;
+    
+    @Column(nullable = false, precision = 15, scale = 2)
+    private BigDecimal valorTotal = BigDecimal.ZERO;
+    
+    @Column(nullable = false)
+    private LocalDateTime atualizadoEm;
+}
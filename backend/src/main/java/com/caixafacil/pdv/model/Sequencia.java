@@ -0,0 +1,21 @@
+package com.caixafacil.pdv.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+/**
+ * Contador nomeado mantido por UPDATE valor = valor + 1. A linha fica
+ * travada até o commit de quem incrementou, então os valores ficam
+ * visíveis na mesma ordem em que foram gerados.
+ */
+@Entity
+@Table(name = "sequencias")
+@Data
+public class Sequencia {
+    @Id
+    @Column(length = 50)
+    private String nome;
+
+    @Column(nullable = false)
+    private Long valor = 0L;
+}
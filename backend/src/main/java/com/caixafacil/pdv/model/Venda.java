@@ -8,12 +8,17 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
-@Table(name = "vendas")
+@Table(name = "vendas",
+       indexes = {
+           @Index(name = "idx_vendas_data_hora_id", columnList = "dataHora, id"),
+           @Index(name = "idx_vendas_usuario", columnList = "usuario_id, dataHora"),
+           @Index(name = "idx_vendas_cliente", columnList = "cliente_id, dataHora")
+       })
 @Data
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class Venda {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE)
     private Long id;
     
     @Column(nullable = false, unique = true)
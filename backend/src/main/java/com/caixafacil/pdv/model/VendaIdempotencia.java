@@ -0,0 +1,30 @@
+package com.caixafacil.pdv.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+/**
+ * Chave de idempotência enviada pelo terminal (header Idempotency-Key),
+ * gravada na mesma transação da venda que ela originou.
+ */
+@Entity
+@Table(name = "vendas_idempotencia",
+       uniqueConstraints = @UniqueConstraint(columnNames = "chave"),
+       indexes = @Index(name = "idx_vendas_idempotencia_data", columnList = "dataHora"))
+@Data
+public class VendaIdempotencia {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE)
+    private Long id;
+    
+    @Column(nullable = false, length = 100)
+    private String chave;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "venda_id", nullable = false)
+    private Venda venda;
+    
+    @Column(nullable = false)
+    private LocalDateTime dataHora;
+}
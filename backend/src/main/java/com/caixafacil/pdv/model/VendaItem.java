@@ -7,12 +7,13 @@ import lombok.Data;
 import java.math.BigDecimal;
 
 @Entity
-@Table(name = "vendas_itens")
+@Table(name = "vendas_itens",
+       indexes = @Index(name = "idx_vendas_itens_venda", columnList = "venda_id"))
 @Data
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class VendaItem {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE)
     private Long id;
     
     @ManyToOne
@@ -6,11 +6,12 @@ import lombok.Data;
 import java.math.BigDecimal;
 
 @Entity
-@Table(name = "vendas_pagamentos")
+@Table(name = "vendas_pagamentos",
+       indexes = @Index(name = "idx_vendas_pagamentos_venda", columnList = "venda_id"))
 @Data
 public class VendaPagamento {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE)
     private Long id;
     
     @ManyToOne
@@ -0,0 +1,14 @@
+package com.caixafacil.pdv.model;
+
+/**
+ * Entidade do catálogo sincronizada com os terminais. A versão é preenchida
+ * pelo VersaoCatalogoListener a cada inclusão ou alteração.
+ */
+public interface VersionadoCatalogo {
+
+    Long getId();
+
+    Long getVersaoCatalogo();
+
+    void setVersaoCatalogo(Long versaoCatalogo);
+}
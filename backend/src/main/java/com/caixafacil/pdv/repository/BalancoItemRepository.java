@@ -0,0 +1,12 @@
+package com.caixafacil.pdv.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import com.caixafacil.pdv.model.BalancoItem;
+
+import java.util.List;
+
+public interface BalancoItemRepository extends JpaRepository<BalancoItem, Long> {
+
+    List<BalancoItem> findByBalancoIdOrderByProdutoId(Long balancoId);
+}
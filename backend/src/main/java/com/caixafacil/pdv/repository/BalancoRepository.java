@@ -0,0 +1,12 @@
+package com.caixafacil.pdv.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import com.caixafacil.pdv.model.Balanco;
+
+import java.util.List;
+
+public interface BalancoRepository extends JpaRepository<Balanco, Long> {
+
+    List<Balanco> findByStatus(String status);
+}
@@ -1,7 +1,9 @@
 package com.caixafacil.pdv.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.caixafacil.pdv.model.Caixa;
@@ -22,4 +24,9 @@ public interface CaixaRepository extends JpaRepository<Caixa, Long> {
     List<Caixa> findByUsuarioOrderByDataHoraAberturaDesc(Usuario usuario);
     
     List<Caixa> findAllByOrderByDataHoraAberturaDesc();
+    
+    // Soma feita pelo banco: vendas simultâneas não perdem atualização
+    @Modifying
+    @Query("UPDATE Caixa c SET c.valorVendas = COALESCE(c.valorVendas, 0) + :valor WHERE c.id = :id")
+    int somarValorVendas(@Param("id") Long id, @Param("valor") Double valor);
 }
@@ -0,0 +1,15 @@
+package com.caixafacil.pdv.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.caixafacil.pdv.model.CatalogoExclusao;
+
+import java.util.List;
+
+public interface CatalogoExclusaoRepository extends JpaRepository<CatalogoExclusao, Long> {
+
+    @Query("SELECT e FROM CatalogoExclusao e WHERE e.versao > :desde AND e.versao <= :ate ORDER BY e.versao")
+    List<CatalogoExclusao> findAlteradas(@Param("desde") long desde, @Param("ate") long ate);
+}
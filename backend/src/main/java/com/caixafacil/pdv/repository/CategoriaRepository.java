@@ -1,6 +1,8 @@
 package com.caixafacil.pdv.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import com.caixafacil.pdv.model.Categoria;
 
@@ -8,4 +10,7 @@ import java.util.List;
 
 public interface CategoriaRepository extends JpaRepository<Categoria, Long> {
     List<Categoria> findByAtivoTrue();
+
+    @Query("SELECT c FROM Categoria c WHERE c.versaoCatalogo > :desde AND c.versaoCatalogo <= :ate")
+    List<Categoria> findAlteradas(@Param("desde") long desde, @Param("ate") long ate);
 }
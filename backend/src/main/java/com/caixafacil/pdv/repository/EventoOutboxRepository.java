@@ -0,0 +1,67 @@
+package com.caixafacil.pdv.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.caixafacil.pdv.model.EventoOutbox;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface EventoOutboxRepository extends JpaRepository<EventoOutbox, Long> {
+
+    @Query("""
+        SELECT e.id FROM EventoOutbox e
+        WHERE e.processadoEm IS NULL
+          AND e.proximaTentativa <= :agora
+          AND (e.reservadoAte IS NULL OR e.reservadoAte < :agora)
+        ORDER BY e.id
+    """)
+    List<Long> findIdsPendentes(@Param("agora") LocalDateTime agora, Pageable pageable);
+
+    // Só reserva o que ninguém reservou (ou cuja reserva expirou) — seguro com vários nós
+    @Modifying
+    @Query("""
+        UPDATE EventoOutbox e
+        SET e.lote = :lote, e.reservadoAte = :ate
+        WHERE e.id IN :ids
+          AND e.processadoEm IS NULL
+          AND (e.reservadoAte IS NULL OR e.reservadoAte < :agora)
+    """)
+    int reservar(@Param("ids") Collection<Long> ids,
+                 @Param("lote") String lote,
+                 @Param("ate") LocalDateTime ate,
+                 @Param("agora") LocalDateTime agora);
+
+    List<EventoOutbox> findByLoteOrderById(String lote);
+
+    @Modifying
+    @Query("""
+        UPDATE EventoOutbox e
+        SET e.processadoEm = :agora, e.lote = NULL, e.reservadoAte = NULL, e.erro = NULL
+        WHERE e.id IN :ids
+    """)
+    int marcarProcessados(@Param("ids") Collection<Long> ids, @Param("agora") LocalDateTime agora);
+
+    @Modifying
+    @Query("""
+        UPDATE EventoOutbox e
+        SET e.tentativas = e.tentativas + 1,
+            e.proximaTentativa = :proximaTentativa,
+            e.erro = :erro,
+            e.lote = NULL,
+            e.reservadoAte = NULL
+        WHERE e.id IN :ids
+    """)
+    int marcarFalha(@Param("ids") Collection<Long> ids,
+                    @Param("proximaTentativa") LocalDateTime proximaTentativa,
+                    @Param("erro") String erro);
+
+    @Modifying
+    @Query("DELETE FROM EventoOutbox e WHERE e.processadoEm < :limite")
+    int deleteProcessadosAntesDe(@Param("limite") LocalDateTime limite);
+}
@@ -1,10 +1,17 @@
 package com.caixafacil.pdv.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.caixafacil.pdv.model.FormaPagamento;
 
+import java.util.List;
+
 @Repository
 public interface FormaPagamentoRepository extends JpaRepository<FormaPagamento, Long> {
+
+    @Query("SELECT f FROM FormaPagamento f WHERE f.versaoCatalogo > :desde AND f.versaoCatalogo <= :ate")
+    List<FormaPagamento> findAlteradas(@Param("desde") long desde, @Param("ate") long ate);
 }
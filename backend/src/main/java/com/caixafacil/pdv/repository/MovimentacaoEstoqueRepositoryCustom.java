@@ -0,0 +1,79 @@
+package com.caixafacil.pdv.repository;
+
+import com.caixafacil.pdv.dto.DivergenciaEstoqueDTO;
+import com.caixafacil.pdv.dto.FiltroHistoricoEstoqueDTO;
+import com.caixafacil.pdv.dto.MovimentacaoEstoqueDTO;
+import com.caixafacil.pdv.model.MovimentacaoEstoque;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+public interface MovimentacaoEstoqueRepositoryCustom {
+
+    /**
+     * Acrescenta as movimentações ao livro com um INSERT em batch JDBC.
+     * Das entidades relacionadas só o id é usado.
+     */
+    void registrarEmLote(List<MovimentacaoEstoque> movimentacoes);
+
+    /**
+     * Histórico de um produto paginado por chave (dataHora desc, id desc),
+     * pelo índice (produto_id, dataHora, id): a página custa o mesmo no
+     * começo e no fim de um histórico de qualquer tamanho.
+     *
+     * @param limite máximo de linhas retornadas
+     */
+    List<MovimentacaoEstoqueDTO> historico(FiltroHistoricoEstoqueDTO filtro, int limite);
+
+    /**
+     * Soma das quantidades movimentadas de cada produto depois do instante
+     * informado para ele (produto -> soma). Produtos sem movimentação depois
+     * do instante ficam de fora.
+     */
+    Map<Long, BigDecimal> somaDepois(Map<Long, LocalDateTime> instantes);
+
+    /**
+     * Estoque do produto no instante informado: último snapshot até lá mais a
+     * última movimentação depois dele. Vazio se o produto não existe.
+     */
+    Optional<BigDecimal> estoqueEm(Long produtoId, LocalDateTime em);
+
+    /**
+     * Estoque de todos os produtos no instante informado (produto -> estoque),
+     * a partir do último snapshot até lá e das movimentações seguintes.
+     */
+    Map<Long, BigDecimal> posicaoEm(LocalDateTime em);
+
+    /**
+     * Grava o snapshot de todos os produtos no instante informado.
+     *
+     * @return quantidade de produtos gravados
+     */
+    int gerarSnapshot(LocalDateTime em);
+
+    /**
+     * Remove os snapshots anteriores ao instante informado
+     *
+     * @return quantidade de linhas removidas
+     */
+    int removerSnapshotsAntes(LocalDateTime limite);
+
+    /**
+     * Produtos com id em [idInicial, idFinal] cujo estoque difere da soma das
+     * movimentações do livro. Leitura sem travas: um único SELECT, que vê
+     * cada venda inteira (estoque e livro) ou não a vê.
+     */
+    List<DivergenciaEstoqueDTO> divergencias(long idInicial, long idFinal);
+
+    /**
+     * Corrige o estoque dos produtos para o valor do livro, só onde ele ainda
+     * é o lido na conferência (quem mudou desde então fica como está), e
+     * registra no livro uma movimentação CONFERENCIA de quantidade zero.
+     *
+     * @return as divergências efetivamente corrigidas
+     */
+    List<DivergenciaEstoqueDTO> corrigir(List<DivergenciaEstoqueDTO> divergencias);
+}
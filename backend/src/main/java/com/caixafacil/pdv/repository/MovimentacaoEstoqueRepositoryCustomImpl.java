@@ -0,0 +1,272 @@
+package com.caixafacil.pdv.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.caixafacil.pdv.dto.DivergenciaEstoqueDTO;
+import com.caixafacil.pdv.dto.FiltroHistoricoEstoqueDTO;
+import com.caixafacil.pdv.dto.MovimentacaoEstoqueDTO;
+import com.caixafacil.pdv.model.MovimentacaoEstoque;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+@RequiredArgsConstructor
+public class MovimentacaoEstoqueRepositoryCustomImpl implements MovimentacaoEstoqueRepositoryCustom {
+
+    private static final String SQL_INSERIR = """
+        INSERT INTO estoque_movimentacao (produto_id, tipo, quantidade, estoque_anterior, estoque_atual,
+                                          motivo, observacao, usuario_id, venda_id, data_hora)
+        VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+        """;
+
+    // Estoque de cada produto num instante, direto do livro: a última
+    // movimentação até lá; sem ela, o saldo anterior à primeira depois; sem
+    // nenhuma, o estoque atual. Duas buscas pelo índice (produto, dataHora)
+    // por produto, independente do tamanho do livro.
+    private static final String ESTOQUE_EM = """
+        COALESCE(
+            (SELECT m.estoque_atual FROM estoque_movimentacao m
+             WHERE m.produto_id = p.id AND m.data_hora <= ?
+             ORDER BY m.data_hora DESC, m.id DESC LIMIT 1),
+            (SELECT m.estoque_anterior FROM estoque_movimentacao m
+             WHERE m.produto_id = p.id AND m.data_hora > ?
+             ORDER BY m.data_hora, m.id LIMIT 1),
+            p.estoque, 0)
+        """;
+
+    private static final String SQL_POSICAO = "SELECT p.id, " + ESTOQUE_EM + " FROM produto p";
+
+    private static final String SQL_SNAPSHOT = "INSERT INTO estoque_snapshots (produto_id, data_hora, estoque) "
+            + "SELECT p.id, ?, " + ESTOQUE_EM + " FROM produto p";
+
+    // Pares (produto, instante) por consulta em somaDepois
+    private static final int TAMANHO_BLOCO_VALUES = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void registrarEmLote(List<MovimentacaoEstoque> movimentacoes) {
+        if (movimentacoes.isEmpty()) {
+            return;
+        }
+        List<Object[]> linhas = new ArrayList<>(movimentacoes.size());
+        for (MovimentacaoEstoque mov : movimentacoes) {
+            linhas.add(new Object[] {
+                    mov.getProduto().getId(),
+                    mov.getTipo(),
+                    mov.getQuantidade(),
+                    mov.getEstoqueAnterior(),
+                    mov.getEstoqueAtual(),
+                    mov.getMotivo(),
+                    mov.getObservacao(),
+                    mov.getUsuario() != null ? mov.getUsuario().getId() : null,
+                    mov.getVendaId(),
+                    Timestamp.valueOf(mov.getDataHora())
+            });
+        }
+        jdbcTemplate.batchUpdate(SQL_INSERIR, linhas);
+    }
+
+    @Override
+    public List<MovimentacaoEstoqueDTO> historico(FiltroHistoricoEstoqueDTO filtro, int limite) {
+        StringBuilder sql = new StringBuilder("""
+            SELECT id, produto_id, tipo, quantidade, estoque_anterior, estoque_atual,
+                   motivo, observacao, usuario_id, venda_id, data_hora
+            FROM estoque_movimentacao
+            WHERE produto_id = ?
+            """);
+        List<Object> params = new ArrayList<>();
+        params.add(filtro.getProdutoId());
+
+        if (filtro.getInicio() != null) {
+            sql.append(" AND data_hora >= ?");
+            params.add(Timestamp.valueOf(filtro.getInicio()));
+        }
+        if (filtro.getFim() != null) {
+            sql.append(" AND data_hora < ?");
+            params.add(Timestamp.valueOf(filtro.getFim()));
+        }
+
+        // Keyset: continua logo depois da última linha da página anterior
+        if (filtro.getAposDataHora() != null && filtro.getAposId() != null) {
+            Timestamp apos = Timestamp.valueOf(filtro.getAposDataHora());
+            sql.append(" AND (data_hora < ? OR (data_hora = ? AND id < ?))");
+            params.add(apos);
+            params.add(apos);
+            params.add(filtro.getAposId());
+        }
+
+        sql.append(" ORDER BY data_hora DESC, id DESC LIMIT ?");
+        params.add(limite);
+
+        return jdbcTemplate.query(sql.toString(), (rs, i) -> new MovimentacaoEstoqueDTO(
+                rs.getLong("id"),
+                rs.getLong("produto_id"),
+                rs.getString("tipo"),
+                rs.getBigDecimal("quantidade"),
+                rs.getBigDecimal("estoque_anterior"),
+                rs.getBigDecimal("estoque_atual"),
+                rs.getString("motivo"),
+                rs.getString("observacao"),
+                rs.getObject("usuario_id", Long.class),
+                rs.getObject("venda_id", Long.class),
+                rs.getTimestamp("data_hora").toLocalDateTime()), params.toArray());
+    }
+
+    @Override
+    public Map<Long, BigDecimal> somaDepois(Map<Long, LocalDateTime> instantes) {
+        Map<Long, BigDecimal> somas = new HashMap<>();
+        List<Map.Entry<Long, LocalDateTime>> pares = new ArrayList<>(instantes.entrySet());
+        for (int i = 0; i < pares.size(); i += TAMANHO_BLOCO_VALUES) {
+            List<Map.Entry<Long, LocalDateTime>> bloco = pares.subList(i, Math.min(i + TAMANHO_BLOCO_VALUES, pares.size()));
+            StringBuilder valores = new StringBuilder();
+            List<Object> params = new ArrayList<>(bloco.size() * 2);
+            for (Map.Entry<Long, LocalDateTime> par : bloco) {
+                valores.append(valores.length() == 0 ? "" : ", ").append("(CAST(? AS BIGINT), CAST(? AS TIMESTAMP))");
+                params.add(par.getKey());
+                params.add(Timestamp.valueOf(par.getValue()));
+            }
+            // Uma consulta por bloco, cada produto com o seu instante, pelo índice (produto_id, data_hora)
+            jdbcTemplate.query("SELECT c.produto_id, SUM(m.quantidade) FROM (VALUES " + valores
+                            + ") AS c(produto_id, desde) JOIN estoque_movimentacao m"
+                            + " ON m.produto_id = c.produto_id AND m.data_hora > c.desde GROUP BY c.produto_id",
+                    rs -> { somas.put(rs.getLong(1), rs.getBigDecimal(2)); }, params.toArray());
+        }
+        return somas;
+    }
+
+    @Override
+    public Optional<BigDecimal> estoqueEm(Long produtoId, LocalDateTime em) {
+        List<BigDecimal> atual = jdbcTemplate.queryForList(
+                "SELECT COALESCE(estoque, 0) FROM produto WHERE id = ?", BigDecimal.class, produtoId);
+        if (atual.isEmpty()) {
+            return Optional.empty();
+        }
+        Timestamp instante = Timestamp.valueOf(em);
+
+        // Snapshot mais recente até o instante + a última movimentação depois dele
+        List<Map<String, Object>> snapshot = jdbcTemplate.queryForList("""
+            SELECT data_hora, estoque FROM estoque_snapshots
+            WHERE produto_id = ? AND data_hora <= ?
+            ORDER BY data_hora DESC LIMIT 1
+            """, produtoId, instante);
+        Timestamp desde = snapshot.isEmpty() ? null : (Timestamp) snapshot.get(0).get("data_hora");
+
+        List<BigDecimal> ultima = desde != null
+                ? jdbcTemplate.queryForList("""
+                    SELECT estoque_atual FROM estoque_movimentacao
+                    WHERE produto_id = ? AND data_hora <= ? AND data_hora > ?
+                    ORDER BY data_hora DESC, id DESC LIMIT 1
+                    """, BigDecimal.class, produtoId, instante, desde)
+                : jdbcTemplate.queryForList("""
+                    SELECT estoque_atual FROM estoque_movimentacao
+                    WHERE produto_id = ? AND data_hora <= ?
+                    ORDER BY data_hora DESC, id DESC LIMIT 1
+                    """, BigDecimal.class, produtoId, instante);
+        if (!ultima.isEmpty()) {
+            return Optional.of(ultima.get(0));
+        }
+        if (desde != null) {
+            return Optional.of((BigDecimal) snapshot.get(0).get("estoque"));
+        }
+
+        // Nada até o instante: vale o saldo anterior à primeira movimentação depois
+        List<BigDecimal> seguinte = jdbcTemplate.queryForList("""
+            SELECT estoque_anterior FROM estoque_movimentacao
+            WHERE produto_id = ? AND data_hora > ?
+            ORDER BY data_hora, id LIMIT 1
+            """, BigDecimal.class, produtoId, instante);
+        return Optional.of(seguinte.isEmpty() ? atual.get(0) : seguinte.get(0));
+    }
+
+    @Override
+    public Map<Long, BigDecimal> posicaoEm(LocalDateTime em) {
+        Timestamp instante = Timestamp.valueOf(em);
+        Map<Long, BigDecimal> posicao = new TreeMap<>();
+
+        Timestamp snapshot = jdbcTemplate.queryForObject(
+                "SELECT MAX(data_hora) FROM estoque_snapshots WHERE data_hora <= ?", Timestamp.class, instante);
+        if (snapshot == null) {
+            jdbcTemplate.query(SQL_POSICAO,
+                    rs -> { posicao.put(rs.getLong(1), rs.getBigDecimal(2)); }, instante, instante);
+            return posicao;
+        }
+
+        jdbcTemplate.query("SELECT produto_id, estoque FROM estoque_snapshots WHERE data_hora = ?",
+                rs -> { posicao.put(rs.getLong(1), rs.getBigDecimal(2)); }, snapshot);
+        // Em ordem: a última movimentação de cada produto prevalece
+        jdbcTemplate.query("""
+            SELECT produto_id, estoque_atual FROM estoque_movimentacao
+            WHERE data_hora > ? AND data_hora <= ?
+            ORDER BY data_hora, id
+            """, rs -> { posicao.put(rs.getLong(1), rs.getBigDecimal(2)); }, snapshot, instante);
+        return posicao;
+    }
+
+    @Override
+    public int gerarSnapshot(LocalDateTime em) {
+        Timestamp instante = Timestamp.valueOf(em);
+        return jdbcTemplate.update(SQL_SNAPSHOT, instante, instante, instante);
+    }
+
+    @Override
+    public int removerSnapshotsAntes(LocalDateTime limite) {
+        return jdbcTemplate.update("DELETE FROM estoque_snapshots WHERE data_hora < ?", Timestamp.valueOf(limite));
+    }
+
+    @Override
+    public List<DivergenciaEstoqueDTO> divergencias(long idInicial, long idFinal) {
+        // Estoque e livro têm a mesma escala (3 casas): comparação exata
+        return jdbcTemplate.query("""
+            SELECT p.id, COALESCE(p.estoque, 0) AS estoque, COALESCE(SUM(m.quantidade), 0) AS esperado
+            FROM produto p
+            LEFT JOIN estoque_movimentacao m ON m.produto_id = p.id
+            WHERE p.id BETWEEN ? AND ?
+            GROUP BY p.id, p.estoque
+            HAVING COALESCE(p.estoque, 0) <> COALESCE(SUM(m.quantidade), 0)
+            ORDER BY p.id
+            """, (rs, i) -> new DivergenciaEstoqueDTO(
+                rs.getLong("id"), rs.getBigDecimal("estoque"), rs.getBigDecimal("esperado"), false),
+                idInicial, idFinal);
+    }
+
+    @Override
+    public List<DivergenciaEstoqueDTO> corrigir(List<DivergenciaEstoqueDTO> divergencias) {
+        if (divergencias.isEmpty()) {
+            return List.of();
+        }
+        List<Object[]> params = new ArrayList<>(divergencias.size());
+        for (DivergenciaEstoqueDTO d : divergencias) {
+            params.add(new Object[] { d.esperado(), d.produtoId(), d.estoque() });
+        }
+        int[] atualizados = jdbcTemplate.batchUpdate(
+                "UPDATE produto SET estoque = ? WHERE id = ? AND COALESCE(estoque, 0) = ?", params);
+
+        List<DivergenciaEstoqueDTO> corrigidas = new ArrayList<>();
+        List<Object[]> linhas = new ArrayList<>();
+        Timestamp agora = Timestamp.valueOf(LocalDateTime.now());
+        for (int i = 0; i < atualizados.length; i++) {
+            if (atualizados[i] == 0) {
+                continue;
+            }
+            DivergenciaEstoqueDTO d = divergencias.get(i);
+            corrigidas.add(d.comCorrecao());
+            linhas.add(new Object[] {
+                    d.produtoId(), "CONFERENCIA", BigDecimal.ZERO, d.estoque(), d.esperado(),
+                    "Conferência com o livro de estoque", null, null, null, agora
+            });
+        }
+        if (!linhas.isEmpty()) {
+            jdbcTemplate.batchUpdate(SQL_INSERIR, linhas);
+        }
+        return corrigidas;
+    }
+}
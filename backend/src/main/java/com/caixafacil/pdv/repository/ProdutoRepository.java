@@ -1,14 +1,20 @@
 package com.caixafacil.pdv.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 import com.caixafacil.pdv.model.Produto;
 
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 
-public interface ProdutoRepository extends JpaRepository<Produto, Long> {
+public interface ProdutoRepository extends JpaRepository<Produto, Long>, ProdutoRepositoryCustom {
 
     // =========================================================================
     // BUSCA POR CÓDIGO PRINCIPAL
@@ -25,6 +31,50 @@ public interface ProdutoRepository extends JpaRepository<Produto, Long> {
     """)
     Produto findByCodigoOrCodigoAlternativo(@Param("codigo") String codigo);
 
+    // =========================================================================
+    // CARGA EM LOTE — SOMENTE LEITURA (sem dirty checking, usado na venda)
+    // =========================================================================
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @Query("""
+        SELECT DISTINCT p FROM Produto p
+        LEFT JOIN FETCH p.categoria
+        LEFT JOIN FETCH p.codigosAlternativos
+        WHERE p.id IN :ids
+    """)
+    List<Produto> findByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Produtos gravados com a versão do catálogo (pelo índice da coluna)
+    @Query("SELECT p.id FROM Produto p WHERE p.versaoCatalogo = :versao")
+    List<Long> findIdsByVersaoCatalogo(@Param("versao") long versao);
+
+    @Query("SELECT COALESCE(MIN(p.id), 0) FROM Produto p")
+    long menorId();
+
+    @Query("SELECT COALESCE(MAX(p.id), 0) FROM Produto p")
+    long maiorId();
+
+    long countByFotoPath(String fotoPath);
+
+    // =========================================================================
+    // MOVIMENTAÇÃO ATÔMICA DE ESTOQUE — a soma é feita pelo banco
+    // =========================================================================
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+        UPDATE Produto p
+        SET p.estoque = COALESCE(p.estoque, 0) + :quantidade
+        WHERE p.id = :id
+    """)
+    int somarEstoque(@Param("id") Long id, @Param("quantidade") BigDecimal quantidade);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+        UPDATE Produto p
+        SET p.estoque = COALESCE(p.estoque, 0) + :quantidade
+        WHERE p.id = :id
+          AND COALESCE(p.estoque, 0) + :quantidade >= 0
+    """)
+    int somarEstoqueSemNegativar(@Param("id") Long id, @Param("quantidade") BigDecimal quantidade);
+
     // =========================================================================
     // BUSCA PARCIAL — USADA NO PDV
     // =========================================================================
@@ -0,0 +1,74 @@
+package com.caixafacil.pdv.repository;
+
+import com.caixafacil.pdv.dto.AtualizacaoMassaDTO;
+import com.caixafacil.pdv.model.Produto;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public interface ProdutoRepositoryCustom {
+
+    /**
+     * Baixa de estoque de vários produtos em um único UPDATE.
+     * Só atinge produtos com controlarEstoque = true.
+     *
+     * @param quantidades      produtoId -> quantidade a subtrair
+     * @param bloquearNegativo se true, produtos sem saldo suficiente não são alterados
+     * @return quantidade de produtos atualizados
+     */
+    int baixarEstoque(Map<Long, BigDecimal> quantidades, boolean bloquearNegativo);
+
+    /**
+     * Estoque corrente dos produtos (id -> estoque). Chamado depois de
+     * baixarEstoque na mesma transação, lê o valor das linhas já travadas.
+     */
+    Map<Long, BigDecimal> estoques(Collection<Long> ids);
+
+    /**
+     * Trava as linhas dos produtos (SELECT ... FOR UPDATE, em ordem de id, para
+     * transações concorrentes travarem na mesma ordem) e devolve o estoque
+     * de cada uma (id -> estoque). Ids inexistentes ficam de fora.
+     */
+    Map<Long, BigDecimal> travarEstoques(Collection<Long> ids);
+
+    /**
+     * Grava o estoque dos produtos (id -> novo estoque) com um UPDATE em
+     * batch JDBC. As linhas devem estar travadas por travarEstoques.
+     */
+    void definirEstoques(Map<Long, BigDecimal> estoques);
+
+    /**
+     * Catálogo completo (com categoria e códigos alternativos) lido por JDBC,
+     * para montar os índices em memória. Os objetos devolvidos não são
+     * gerenciados pelo JPA.
+     */
+    List<Produto> listarCatalogo();
+
+    /**
+     * Como listarCatalogo, só com os produtos de versaoCatalogo em (desde, ate]
+     */
+    List<Produto> listarCatalogoAlterado(long desde, long ate);
+
+    /**
+     * Como listarCatalogo, só com os produtos em estoque baixo ou alerta
+     * (estoque <= estoqueMinimo * 1.2), entre os ids informados ou todos (null)
+     */
+    List<Produto> listarEmAlerta(Collection<Long> ids);
+
+    /**
+     * Código (principal ou alternativo) -> id do produto, só dos códigos existentes
+     */
+    Map<String, Long> idsPorCodigo(Collection<String> codigos);
+
+    /**
+     * Aplica preços, estoque mínimo e ativo da alteração aos produtos num
+     * UPDATE por conjunto, sem carregar entidades nem ids: filtra pela
+     * categoria e/ou pelos ids informados (em blocos); os dois nulos =
+     * todos os produtos. Grava também a versão do catálogo informada.
+     *
+     * @return quantidade de produtos atualizados
+     */
+    int atualizarEmMassa(Long categoriaId, Collection<Long> ids, AtualizacaoMassaDTO alteracao, long versaoCatalogo);
+}
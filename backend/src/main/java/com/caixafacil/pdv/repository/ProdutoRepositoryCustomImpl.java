@@ -0,0 +1,276 @@
+package com.caixafacil.pdv.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.caixafacil.pdv.dto.AtualizacaoMassaDTO;
+import com.caixafacil.pdv.model.Categoria;
+import com.caixafacil.pdv.model.Produto;
+import com.caixafacil.pdv.model.ProdutoCodigo;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+@RequiredArgsConstructor
+public class ProdutoRepositoryCustomImpl implements ProdutoRepositoryCustom {
+
+    // Máximo de parâmetros em um IN (...)
+    private static final int TAMANHO_BLOCO_IN = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public int baixarEstoque(Map<Long, BigDecimal> quantidades, boolean bloquearNegativo) {
+        if (quantidades.isEmpty()) {
+            return 0;
+        }
+
+        // UPDATE produto SET estoque = estoque - CASE id WHEN ? THEN ? ... END
+        // WHERE id IN (...) — um statement só, independente do tamanho da venda.
+        // A conta é feita pelo banco sobre o valor corrente da linha, então
+        // vendas simultâneas do mesmo produto não perdem atualização.
+        StringBuilder casos = new StringBuilder("CASE id");
+        StringBuilder in = new StringBuilder();
+        List<Object> paramsCasos = new ArrayList<>();
+        List<Object> ids = new ArrayList<>();
+
+        for (Map.Entry<Long, BigDecimal> e : quantidades.entrySet()) {
+            casos.append(" WHEN ? THEN CAST(? AS NUMERIC(38, 3))");
+            paramsCasos.add(e.getKey());
+            paramsCasos.add(e.getValue());
+            in.append(in.length() == 0 ? "?" : ", ?");
+            ids.add(e.getKey());
+        }
+        casos.append(" ELSE 0 END");
+
+        StringBuilder sql = new StringBuilder("UPDATE produto SET estoque = COALESCE(estoque, 0) - ")
+                .append(casos)
+                .append(" WHERE id IN (").append(in).append(") AND controlar_estoque = TRUE");
+
+        List<Object> params = new ArrayList<>(paramsCasos);
+        params.addAll(ids);
+
+        if (bloquearNegativo) {
+            sql.append(" AND COALESCE(estoque, 0) >= ").append(casos);
+            params.addAll(paramsCasos);
+        }
+        return jdbcTemplate.update(sql.toString(), params.toArray());
+    }
+
+    @Override
+    public Map<Long, BigDecimal> estoques(Collection<Long> ids) {
+        Map<Long, BigDecimal> estoques = new HashMap<>();
+        for (List<?> bloco : blocos(new ArrayList<>(ids))) {
+            jdbcTemplate.query("SELECT id, estoque FROM produto WHERE id IN (" + marcadores(bloco.size()) + ")",
+                    rs -> { estoques.put(rs.getLong(1), rs.getBigDecimal(2)); }, bloco.toArray());
+        }
+        return estoques;
+    }
+
+    @Override
+    public Map<Long, BigDecimal> travarEstoques(Collection<Long> ids) {
+        Map<Long, BigDecimal> estoques = new TreeMap<>();
+        for (List<?> bloco : blocos(new ArrayList<>(new TreeSet<>(ids)))) {
+            jdbcTemplate.query("SELECT id, COALESCE(estoque, 0) FROM produto WHERE id IN ("
+                            + marcadores(bloco.size()) + ") ORDER BY id FOR UPDATE",
+                    rs -> { estoques.put(rs.getLong(1), rs.getBigDecimal(2)); }, bloco.toArray());
+        }
+        return estoques;
+    }
+
+    @Override
+    public void definirEstoques(Map<Long, BigDecimal> estoques) {
+        List<Object[]> params = new ArrayList<>(estoques.size());
+        estoques.forEach((id, estoque) -> params.add(new Object[] { estoque, id }));
+        jdbcTemplate.batchUpdate("UPDATE produto SET estoque = ? WHERE id = ?", params);
+    }
+
+    @Override
+    public List<Produto> listarCatalogo() {
+        return listar("", "");
+    }
+
+    @Override
+    public List<Produto> listarCatalogoAlterado(long desde, long ate) {
+        return listar(" WHERE versao_catalogo > ? AND versao_catalogo <= ?",
+                " WHERE produto_id IN (SELECT id FROM produto WHERE versao_catalogo > ? AND versao_catalogo <= ?)",
+                desde, ate);
+    }
+
+    @Override
+    public List<Produto> listarEmAlerta(Collection<Long> ids) {
+        String alerta = "estoque <= estoque_minimo * 1.2";
+        if (ids == null) {
+            return listar(" WHERE " + alerta, " WHERE produto_id IN (SELECT id FROM produto WHERE " + alerta + ")");
+        }
+        List<Produto> produtos = new ArrayList<>();
+        for (List<?> bloco : blocos(new ArrayList<>(ids))) {
+            String filtro = alerta + " AND id IN (" + marcadores(bloco.size()) + ")";
+            produtos.addAll(listar(" WHERE " + filtro,
+                    " WHERE produto_id IN (SELECT id FROM produto WHERE " + filtro + ")", bloco.toArray()));
+        }
+        return produtos;
+    }
+
+    private List<Produto> listar(String filtroProdutos, String filtroCodigos, Object... params) {
+        Map<Long, Produto> produtos = new HashMap<>();
+        Map<Long, Long> categoriaPorProduto = new HashMap<>();
+        List<Produto> catalogo = jdbcTemplate.query("""
+            SELECT id, codigo, descricao, unidade, categoria_id, preco_venda, preco_custo,
+                   estoque, estoque_minimo, controlar_estoque, ativo, observacoes,
+                   data_cadastro, foto_path, foto_variantes, versao_catalogo
+            FROM produto""" + filtroProdutos + " ORDER BY id", (rs, i) -> {
+            Produto p = new Produto();
+            p.setId(rs.getLong("id"));
+            p.setCodigo(rs.getString("codigo"));
+            p.setDescricao(rs.getString("descricao"));
+            p.setUnidade(rs.getString("unidade"));
+            Long categoriaId = rs.getObject("categoria_id", Long.class);
+            if (categoriaId != null) {
+                categoriaPorProduto.put(p.getId(), categoriaId);
+            }
+            p.setPrecoVenda(rs.getBigDecimal("preco_venda"));
+            p.setPrecoCusto(rs.getBigDecimal("preco_custo"));
+            p.setEstoque(rs.getBigDecimal("estoque"));
+            p.setEstoqueMinimo(rs.getBigDecimal("estoque_minimo"));
+            p.setControlarEstoque(rs.getObject("controlar_estoque", Boolean.class));
+            p.setAtivo(rs.getObject("ativo", Boolean.class));
+            p.setObservacoes(rs.getString("observacoes"));
+            Timestamp cadastro = rs.getTimestamp("data_cadastro");
+            p.setDataCadastro(cadastro != null ? cadastro.toLocalDateTime() : null);
+            p.setFotoPath(rs.getString("foto_path"));
+            p.setFotoVariantes(rs.getObject("foto_variantes", Boolean.class));
+            p.setVersaoCatalogo(rs.getObject("versao_catalogo", Long.class));
+            produtos.put(p.getId(), p);
+            return p;
+        }, params);
+        if (catalogo.isEmpty()) {
+            return catalogo;
+        }
+
+        if (!categoriaPorProduto.isEmpty()) {
+            Map<Long, Categoria> categorias = new HashMap<>();
+            jdbcTemplate.query("SELECT id, descricao, ativo, versao_catalogo FROM categorias", rs -> {
+                Categoria c = new Categoria();
+                c.setId(rs.getLong("id"));
+                c.setDescricao(rs.getString("descricao"));
+                c.setAtivo(rs.getBoolean("ativo"));
+                c.setVersaoCatalogo(rs.getObject("versao_catalogo", Long.class));
+                categorias.put(c.getId(), c);
+            });
+            categoriaPorProduto.forEach((produtoId, categoriaId) ->
+                    produtos.get(produtoId).setCategoria(categorias.get(categoriaId)));
+        }
+
+        jdbcTemplate.query("SELECT id, produto_id, codigo, descricao, versao_catalogo FROM produtos_codigos"
+                + filtroCodigos, rs -> {
+            Produto p = produtos.get(rs.getLong("produto_id"));
+            if (p != null) {
+                ProdutoCodigo pc = new ProdutoCodigo();
+                pc.setId(rs.getLong("id"));
+                pc.setProduto(p);
+                pc.setCodigo(rs.getString("codigo"));
+                pc.setDescricao(rs.getString("descricao"));
+                pc.setVersaoCatalogo(rs.getObject("versao_catalogo", Long.class));
+                p.getCodigosAlternativos().add(pc);
+            }
+        }, params);
+        return catalogo;
+    }
+
+    @Override
+    public Map<String, Long> idsPorCodigo(Collection<String> codigos) {
+        Map<String, Long> ids = new HashMap<>();
+        for (List<?> bloco : blocos(new ArrayList<>(codigos))) {
+            String in = marcadores(bloco.size());
+            // Alternativos primeiro: o código principal prevalece em caso de repetição
+            jdbcTemplate.query("SELECT codigo, produto_id FROM produtos_codigos WHERE codigo IN (" + in + ")",
+                    rs -> { ids.put(rs.getString(1), rs.getLong(2)); }, bloco.toArray());
+            jdbcTemplate.query("SELECT codigo, id FROM produto WHERE codigo IN (" + in + ")",
+                    rs -> { ids.put(rs.getString(1), rs.getLong(2)); }, bloco.toArray());
+        }
+        return ids;
+    }
+
+    @Override
+    public int atualizarEmMassa(Long categoriaId, Collection<Long> ids, AtualizacaoMassaDTO alteracao,
+                                long versaoCatalogo) {
+        StringBuilder set = new StringBuilder();
+        List<Object> params = new ArrayList<>();
+
+        if (alteracao.getPrecoVenda() != null) {
+            set.append(", preco_venda = ?");
+            params.add(alteracao.getPrecoVenda());
+        } else if (alteracao.getPrecoVendaPercentual() != null) {
+            set.append(", preco_venda = ROUND(COALESCE(preco_venda, 0) * ?, 2)");
+            params.add(fator(alteracao.getPrecoVendaPercentual()));
+        }
+        if (alteracao.getPrecoCusto() != null) {
+            set.append(", preco_custo = ?");
+            params.add(alteracao.getPrecoCusto());
+        } else if (alteracao.getPrecoCustoPercentual() != null) {
+            set.append(", preco_custo = ROUND(COALESCE(preco_custo, 0) * ?, 2)");
+            params.add(fator(alteracao.getPrecoCustoPercentual()));
+        }
+        if (alteracao.getEstoqueMinimo() != null) {
+            set.append(", estoque_minimo = ?");
+            params.add(alteracao.getEstoqueMinimo());
+        }
+        if (alteracao.getAtivo() != null) {
+            set.append(", ativo = ?");
+            params.add(alteracao.getAtivo());
+        }
+        if (set.length() == 0 || (ids != null && ids.isEmpty())) {
+            return 0;
+        }
+        set.append(", versao_catalogo = ?");
+        params.add(versaoCatalogo);
+
+        String sql = "UPDATE produto SET " + set.substring(2);
+        if (categoriaId != null) {
+            sql += " WHERE categoria_id = ?";
+            params.add(categoriaId);
+        }
+        if (ids == null) {
+            return jdbcTemplate.update(sql, params.toArray());
+        }
+
+        // Lista de códigos: só ela vira ids, em blocos
+        int alterados = 0;
+        for (List<?> bloco : blocos(new ArrayList<>(ids))) {
+            List<Object> todos = new ArrayList<>(params);
+            todos.addAll(bloco);
+            alterados += jdbcTemplate.update(sql + (categoriaId != null ? " AND" : " WHERE")
+                    + " id IN (" + marcadores(bloco.size()) + ")", todos.toArray());
+        }
+        return alterados;
+    }
+
+    // 7 -> 1.07; -10 -> 0.90
+    private static BigDecimal fator(BigDecimal percentual) {
+        return BigDecimal.ONE.add(percentual.movePointLeft(2));
+    }
+
+    private static List<List<?>> blocos(List<?> valores) {
+        if (valores.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<List<?>> blocos = new ArrayList<>();
+        for (int i = 0; i < valores.size(); i += TAMANHO_BLOCO_IN) {
+            blocos.add(valores.subList(i, Math.min(i + TAMANHO_BLOCO_IN, valores.size())));
+        }
+        return blocos;
+    }
+
+    private static String marcadores(int quantidade) {
+        return String.join(", ", Collections.nCopies(quantidade, "?"));
+    }
+}
@@ -0,0 +1,13 @@
+package com.caixafacil.pdv.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import com.caixafacil.pdv.model.ResumoVendaDia;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface ResumoVendaDiaRepository extends JpaRepository<ResumoVendaDia, LocalDate> {
+
+    List<ResumoVendaDia> findByDataBetweenOrderByData(LocalDate inicio, LocalDate fim);
+}
@@ -0,0 +1,22 @@
+package com.caixafacil.pdv.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.caixafacil.pdv.model.Venda;
+import com.caixafacil.pdv.model.VendaIdempotencia;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+public interface VendaIdempotenciaRepository extends JpaRepository<VendaIdempotencia, Long> {
+
+    @Query("SELECT i.venda FROM VendaIdempotencia i WHERE i.chave = :chave")
+    Optional<Venda> findVendaByChave(@Param("chave") String chave);
+
+    @Modifying
+    @Query("DELETE FROM VendaIdempotencia i WHERE i.dataHora < :limite")
+    int deleteAntesDe(@Param("limite") LocalDateTime limite);
+}
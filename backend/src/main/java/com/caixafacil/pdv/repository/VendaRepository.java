@@ -2,14 +2,30 @@ package com.caixafacil.pdv.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import com.caixafacil.pdv.model.Venda;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
-public interface VendaRepository extends JpaRepository<Venda, Long> {
+public interface VendaRepository extends JpaRepository<Venda, Long>, VendaRepositoryCustom {
     Optional<Venda> findByNumeroDocumento(Long numeroDocumento);
     
+    // Usado só para semear a sequence de numeração em bases já existentes
     @Query("SELECT COALESCE(MAX(v.numeroDocumento), 0) FROM Venda v")
     Long findMaxNumeroDocumento();
+    
+    @Query("SELECT v.dataHora FROM Venda v WHERE v.id IN :ids")
+    List<LocalDateTime> findDataHoraByIdIn(@Param("ids") Collection<Long> ids);
+    
+    // [quantidade, soma dos totais] das vendas não canceladas no período
+    @Query("""
+        SELECT COUNT(v), COALESCE(SUM(v.total), 0) FROM Venda v
+        WHERE v.dataHora >= :inicio AND v.dataHora < :fim
+          AND v.cancelada = false
+    """)
+    List<Object[]> totalizarPeriodo(@Param("inicio") LocalDateTime inicio, @Param("fim") LocalDateTime fim);
 }
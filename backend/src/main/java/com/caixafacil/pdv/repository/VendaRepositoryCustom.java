@@ -0,0 +1,18 @@
+package com.caixafacil.pdv.repository;
+
+import com.caixafacil.pdv.dto.FiltroVendasDTO;
+import com.caixafacil.pdv.dto.VendaResumoDTO;
+
+import java.util.List;
+
+public interface VendaRepositoryCustom {
+
+    /**
+     * Pesquisa de vendas paginada por chave (dataHora desc, id desc).
+     * Cada página continua a partir de aposDataHora/aposId do filtro, então o
+     * custo não cresce com o número da página nem com o tamanho da tabela.
+     *
+     * @param limite máximo de linhas retornadas
+     */
+    List<VendaResumoDTO> pesquisar(FiltroVendasDTO filtro, int limite);
+}
@@ -0,0 +1,88 @@
+package com.caixafacil.pdv.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.caixafacil.pdv.dto.FiltroVendasDTO;
+import com.caixafacil.pdv.dto.VendaResumoDTO;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class VendaRepositoryCustomImpl implements VendaRepositoryCustom {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public List<VendaResumoDTO> pesquisar(FiltroVendasDTO filtro, int limite) {
+        StringBuilder sql = new StringBuilder("""
+            SELECT v.id, v.numero_documento, v.data_hora, v.subtotal, v.total, v.cancelada,
+                   u.id AS usuario_id, u.nome AS usuario_nome,
+                   c.id AS cliente_id, c.nome AS cliente_nome
+            FROM vendas v
+            JOIN usuarios u ON u.id = v.usuario_id
+            LEFT JOIN clientes c ON c.id = v.cliente_id
+            WHERE 1 = 1
+            """);
+        List<Object> params = new ArrayList<>();
+
+        if (filtro.getInicio() != null) {
+            sql.append(" AND v.data_hora >= ?");
+            params.add(Timestamp.valueOf(filtro.getInicio()));
+        }
+        if (filtro.getFim() != null) {
+            sql.append(" AND v.data_hora < ?");
+            params.add(Timestamp.valueOf(filtro.getFim()));
+        }
+        if (filtro.getUsuarioId() != null) {
+            sql.append(" AND v.usuario_id = ?");
+            params.add(filtro.getUsuarioId());
+        }
+        if (filtro.getClienteId() != null) {
+            sql.append(" AND v.cliente_id = ?");
+            params.add(filtro.getClienteId());
+        }
+        if (filtro.getCancelada() != null) {
+            sql.append(" AND v.cancelada = ?");
+            params.add(filtro.getCancelada());
+        }
+        if (filtro.getTotalMinimo() != null) {
+            sql.append(" AND v.total >= ?");
+            params.add(filtro.getTotalMinimo());
+        }
+        if (filtro.getTotalMaximo() != null) {
+            sql.append(" AND v.total <= ?");
+            params.add(filtro.getTotalMaximo());
+        }
+
+        // Keyset: continua logo depois da última linha da página anterior,
+        // descendo pelo índice (data_hora, id) sem OFFSET
+        if (filtro.getAposDataHora() != null && filtro.getAposId() != null) {
+            Timestamp apos = Timestamp.valueOf(filtro.getAposDataHora());
+            sql.append(" AND (v.data_hora < ? OR (v.data_hora = ? AND v.id < ?))");
+            params.add(apos);
+            params.add(apos);
+            params.add(filtro.getAposId());
+        }
+
+        sql.append(" ORDER BY v.data_hora DESC, v.id DESC LIMIT ?");
+        params.add(limite);
+
+        return jdbcTemplate.query(sql.toString(), (rs, i) -> {
+            VendaResumoDTO dto = new VendaResumoDTO();
+            dto.setId(rs.getLong("id"));
+            dto.setNumeroDocumento(rs.getLong("numero_documento"));
+            dto.setDataHora(rs.getTimestamp("data_hora").toLocalDateTime());
+            dto.setSubtotal(rs.getBigDecimal("subtotal"));
+            dto.setTotal(rs.getBigDecimal("total"));
+            dto.setCancelada(rs.getBoolean("cancelada"));
+            dto.setUsuarioId(rs.getLong("usuario_id"));
+            dto.setUsuarioNome(rs.getString("usuario_nome"));
+            dto.setClienteId(rs.getObject("cliente_id", Long.class));
+            dto.setClienteNome(rs.getString("cliente_nome"));
+            return dto;
+        }, params.toArray());
+    }
+}
@@ -0,0 +1,253 @@
+package com.caixafacil.pdv.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.caixafacil.pdv.dto.AtualizacaoMassaDTO;
+import com.caixafacil.pdv.dto.AtualizacaoMassaResultadoDTO;
+import com.caixafacil.pdv.dto.ImportacaoResultadoDTO;
+import com.caixafacil.pdv.repository.ProdutoRepository;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reajustes e alterações de cadastro em massa (por categoria, lista de
+ * códigos ou planilha), sempre em uma transação só. Os índices em memória
+ * recebem um único ProdutoAlteradoEvent depois do commit.
+ */
+@Service
+@RequiredArgsConstructor
+public class AtualizacaoMassaService {
+
+    // Acima disso é mais barato recarregar os índices inteiros
+    private static final int LIMITE_ATUALIZACAO_INCREMENTAL = 1000;
+    private static final int TAMANHO_BLOCO = 1000;
+
+    private static final List<String> COLUNAS_ARQUIVO =
+            List.of("precovenda", "precocusto", "estoqueminimo", "ativo");
+
+    private final ProdutoRepository produtoRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final VersaoCatalogoService versaoCatalogoService;
+
+    @Transactional
+    public AtualizacaoMassaResultadoDTO aplicar(AtualizacaoMassaDTO alteracao) {
+        validar(alteracao);
+        AtualizacaoMassaResultadoDTO resultado = new AtualizacaoMassaResultadoDTO();
+
+        // Todos ou categoria: o UPDATE filtra direto; só a lista de códigos vira ids
+        Long categoriaId = null;
+        Set<Long> ids = null;
+        if (!Boolean.TRUE.equals(alteracao.getTodos())) {
+            categoriaId = alteracao.getCategoriaId();
+            if (alteracao.getCodigos() != null && !alteracao.getCodigos().isEmpty()) {
+                Set<String> codigos = new LinkedHashSet<>();
+                alteracao.getCodigos().forEach(c -> {
+                    if (c != null && !c.isBlank()) codigos.add(c.trim());
+                });
+                Map<String, Long> porCodigo = produtoRepository.idsPorCodigo(codigos);
+                for (String codigo : codigos) {
+                    if (!porCodigo.containsKey(codigo)) {
+                        resultado.getCodigosNaoEncontrados().add(codigo);
+                    }
+                }
+                // Categoria e códigos juntos: só os códigos dessa categoria
+                ids = new LinkedHashSet<>(porCodigo.values());
+            }
+        }
+
+        long versao = versaoCatalogoService.versaoDaTransacao();
+        int alterados = produtoRepository.atualizarEmMassa(categoriaId, ids, alteracao, versao);
+        resultado.setProdutosAlterados(alterados);
+        if (alterados > LIMITE_ATUALIZACAO_INCREMENTAL) {
+            eventPublisher.publishEvent(ProdutoAlteradoEvent.catalogo());
+        } else if (alterados > 0) {
+            // Poucos: os alterados são os gravados com a versão desta transação
+            publicar(ids != null && ids.size() == alterados
+                    ? ids
+                    : new HashSet<>(produtoRepository.findIdsByVersaoCatalogo(versao)));
+        }
+        System.out.println("Atualização em massa: " + alterados + " produtos");
+        return resultado;
+    }
+
+    private static void validar(AtualizacaoMassaDTO a) {
+        boolean temFiltro = Boolean.TRUE.equals(a.getTodos()) || a.getCategoriaId() != null
+                || (a.getCodigos() != null && !a.getCodigos().isEmpty());
+        if (!temFiltro) {
+            throw new RuntimeException("Informe categoriaId, codigos ou todos = true");
+        }
+        if (a.getPrecoVenda() == null && a.getPrecoVendaPercentual() == null && a.getPrecoCusto() == null
+                && a.getPrecoCustoPercentual() == null && a.getEstoqueMinimo() == null && a.getAtivo() == null) {
+            throw new RuntimeException("Nenhuma alteração informada");
+        }
+        if (a.getPrecoVenda() != null && a.getPrecoVendaPercentual() != null) {
+            throw new RuntimeException("Use precoVenda ou precoVendaPercentual, não os dois");
+        }
+        if (a.getPrecoCusto() != null && a.getPrecoCustoPercentual() != null) {
+            throw new RuntimeException("Use precoCusto ou precoCustoPercentual, não os dois");
+        }
+        for (BigDecimal valor : new BigDecimal[] {a.getPrecoVenda(), a.getPrecoCusto(), a.getEstoqueMinimo()}) {
+            if (valor != null && valor.signum() < 0) {
+                throw new RuntimeException("Valores não podem ser negativos");
+            }
+        }
+        for (BigDecimal percentual : new BigDecimal[] {a.getPrecoVendaPercentual(), a.getPrecoCustoPercentual()}) {
+            if (percentual != null && percentual.compareTo(BigDecimal.valueOf(-100)) <= 0) {
+                throw new RuntimeException("Percentual deve ser maior que -100");
+            }
+        }
+    }
+
+    // =========================================================================
+    // POR PLANILHA: codigo + precoVenda/precoCusto/estoqueMinimo/ativo
+    // =========================================================================
+
+    /**
+     * Aplica os valores de cada linha ao produto do código (principal ou
+     * alternativo). Célula vazia mantém o valor atual. Linhas com erro são
+     * relatadas e as demais gravadas, tudo em uma transação.
+     */
+    @Transactional
+    public ImportacaoResultadoDTO aplicarArquivo(InputStream entrada) throws IOException {
+        long inicio = System.currentTimeMillis();
+        ImportacaoResultadoDTO resultado = new ImportacaoResultadoDTO();
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(entrada, StandardCharsets.UTF_8), 64 * 1024);
+        String cabecalho = reader.readLine();
+        if (cabecalho == null) {
+            throw new RuntimeException("Arquivo vazio");
+        }
+        cabecalho = LeitorCsv.semBom(cabecalho);
+        char separador = LeitorCsv.separador(cabecalho);
+
+        Map<String, Integer> colunas = new HashMap<>();
+        List<String> nomes = LeitorCsv.dividir(cabecalho, separador);
+        for (int i = 0; i < nomes.size(); i++) {
+            colunas.putIfAbsent(LeitorCsv.nomeColuna(nomes.get(i)), i);
+        }
+        List<String> presentes = COLUNAS_ARQUIVO.stream().filter(colunas::containsKey).toList();
+        if (!colunas.containsKey("codigo") || presentes.isEmpty()) {
+            throw new RuntimeException("O cabeçalho precisa da coluna codigo e de ao menos uma entre "
+                    + String.join(", ", COLUNAS_ARQUIVO));
+        }
+
+        StringBuilder sql = new StringBuilder("UPDATE produto SET ");
+        for (int i = 0; i < presentes.size(); i++) {
+            String coluna = switch (presentes.get(i)) {
+                case "precovenda" -> "preco_venda";
+                case "precocusto" -> "preco_custo";
+                case "estoqueminimo" -> "estoque_minimo";
+                default -> "ativo";
+            };
+            sql.append(i > 0 ? ", " : "").append(coluna).append(" = COALESCE(?, ").append(coluna).append(")");
+        }
+        sql.append(", versao_catalogo = ? WHERE id = ?");
+
+        Set<Long> alterados = new HashSet<>();
+        List<LinhaArquivo> bloco = new ArrayList<>(TAMANHO_BLOCO);
+        String texto;
+        long numero = 1;
+        while ((texto = reader.readLine()) != null) {
+            numero++;
+            if (texto.isBlank()) {
+                continue;
+            }
+            resultado.setLinhasLidas(resultado.getLinhasLidas() + 1);
+            List<String> celulas = LeitorCsv.dividir(texto, separador);
+            String codigo = LeitorCsv.celula(celulas, colunas.get("codigo"));
+            try {
+                if (codigo == null) {
+                    throw new RuntimeException("Código vazio");
+                }
+                Object[] valores = new Object[presentes.size()];
+                for (int i = 0; i < presentes.size(); i++) {
+                    String nome = presentes.get(i);
+                    String valor = LeitorCsv.celula(celulas, colunas.get(nome));
+                    valores[i] = nome.equals("ativo") ? LeitorCsv.booleano(valor, nome) : LeitorCsv.decimal(valor, nome);
+                    if (valores[i] instanceof BigDecimal d && d.signum() < 0) {
+                        throw new RuntimeException("Valor negativo em " + nome);
+                    }
+                }
+                bloco.add(new LinhaArquivo(numero, codigo, valores));
+            } catch (RuntimeException e) {
+                erro(resultado, numero, codigo, e.getMessage());
+            }
+            if (bloco.size() >= TAMANHO_BLOCO) {
+                gravarBloco(sql.toString(), bloco, resultado, alterados);
+            }
+        }
+        gravarBloco(sql.toString(), bloco, resultado, alterados);
+
+        publicar(alterados);
+        resultado.setTempoMs(System.currentTimeMillis() - inicio);
+        System.out.println("Atualização em massa por planilha: " + resultado.getAtualizados()
+                + " linhas aplicadas, " + resultado.getTotalErros() + " erros");
+        return resultado;
+    }
+
+    private record LinhaArquivo(long numero, String codigo, Object[] valores) {
+    }
+
+    private void gravarBloco(String sql, List<LinhaArquivo> bloco, ImportacaoResultadoDTO resultado, Set<Long> alterados) {
+        if (bloco.isEmpty()) {
+            return;
+        }
+        Set<String> codigos = new HashSet<>();
+        bloco.forEach(l -> codigos.add(l.codigo()));
+        Map<String, Long> ids = produtoRepository.idsPorCodigo(codigos);
+
+        List<Object[]> parametros = new ArrayList<>(bloco.size());
+        for (LinhaArquivo linha : bloco) {
+            Long id = ids.get(linha.codigo());
+            if (id == null) {
+                erro(resultado, linha.numero(), linha.codigo(), "Produto não encontrado");
+                continue;
+            }
+            Object[] params = new Object[linha.valores().length + 2];
+            System.arraycopy(linha.valores(), 0, params, 0, linha.valores().length);
+            params[params.length - 2] = versaoCatalogoService.versaoDaTransacao();
+            params[params.length - 1] = id;
+            parametros.add(params);
+            alterados.add(id);
+        }
+        if (!parametros.isEmpty()) {
+            jdbcTemplate.batchUpdate(sql, parametros);
+        }
+        resultado.setAtualizados(resultado.getAtualizados() + parametros.size());
+        bloco.clear();
+    }
+
+    private static void erro(ImportacaoResultadoDTO resultado, long numero, String codigo, String mensagem) {
+        resultado.setTotalErros(resultado.getTotalErros() + 1);
+        if (resultado.getErros().size() < ImportacaoProdutoService.MAXIMO_ERROS_RELATADOS) {
+            resultado.getErros().add(new ImportacaoResultadoDTO.ErroLinha(numero, codigo, mensagem));
+        }
+    }
+
+    // Um evento só, entregue depois do commit
+    private void publicar(Set<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        eventPublisher.publishEvent(ids.size() > LIMITE_ATUALIZACAO_INCREMENTAL
+                ? ProdutoAlteradoEvent.catalogo()
+                : ProdutoAlteradoEvent.salvos(ids));
+    }
+}
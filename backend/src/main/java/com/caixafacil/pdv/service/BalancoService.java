@@ -0,0 +1,324 @@
+package com.caixafacil.pdv.service;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.caixafacil.pdv.dto.BalancoResultadoDTO;
+import com.caixafacil.pdv.dto.ContagemBalancoDTO;
+import com.caixafacil.pdv.dto.LeituraBalancoDTO;
+import com.caixafacil.pdv.dto.ProdutoResumoDTO;
+import com.caixafacil.pdv.model.Balanco;
+import com.caixafacil.pdv.model.BalancoItem;
+import com.caixafacil.pdv.model.MovimentacaoEstoque;
+import com.caixafacil.pdv.model.Produto;
+import com.caixafacil.pdv.repository.BalancoItemRepository;
+import com.caixafacil.pdv.repository.BalancoRepository;
+import com.caixafacil.pdv.repository.MovimentacaoEstoqueRepository;
+import com.caixafacil.pdv.repository.ProdutoRepository;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Balanço (contagem física do estoque).
+ *
+ * Os coletores enviam as leituras em fluxo ("codigo" ou "codigo;quantidade"
+ * por linha); os códigos são resolvidos pelo índice de códigos de barras e o
+ * total de cada produto é somado em memória, junto com a hora da última
+ * leitura.
+ *
+ * As vendas continuam durante a contagem. No fechamento, o estoque do
+ * sistema na hora em que cada produto foi contado é o estoque atual menos o
+ * que o livro movimentou depois daquela hora; a diferença contra a contagem
+ * é aplicada ao estoque atual, numa transação, com UPDATE e INSERT (AJUSTE)
+ * em batch.
+ *
+ * As contagens de um balanço aberto não sobrevivem a um reinício do servidor.
+ */
+@Service
+public class BalancoService {
+
+    public static final int MAXIMO_CODIGOS_RELATADOS = 100;
+    private static final int TAMANHO_BLOCO_LEITURAS = 500;
+    private static final int CASAS_ESTOQUE = 3;
+
+    private final BalancoRepository balancoRepository;
+    private final BalancoItemRepository balancoItemRepository;
+    private final ProdutoRepository produtoRepository;
+    private final MovimentacaoEstoqueRepository movimentacaoEstoqueRepository;
+    private final IndiceCodigoBarrasService indiceCodigoBarrasService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transacao;
+
+    private final Map<Long, Sessao> sessoes = new ConcurrentHashMap<>();
+
+    private record Contagem(BigDecimal quantidade, LocalDateTime contadoEm) {
+        Contagem somar(Contagem outra) {
+            return new Contagem(quantidade.add(outra.quantidade), outra.contadoEm);
+        }
+    }
+
+    // Leituras entram com o read lock (vários coletores ao mesmo tempo);
+    // fechar e cancelar pegam o write lock e encerram a sessão
+    private static class Sessao {
+        final Map<Long, Contagem> contagens = new ConcurrentHashMap<>();
+        final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        boolean encerrada;
+    }
+
+    public BalancoService(BalancoRepository balancoRepository,
+                          BalancoItemRepository balancoItemRepository,
+                          ProdutoRepository produtoRepository,
+                          MovimentacaoEstoqueRepository movimentacaoEstoqueRepository,
+                          IndiceCodigoBarrasService indiceCodigoBarrasService,
+                          ApplicationEventPublisher eventPublisher,
+                          PlatformTransactionManager transactionManager) {
+        this.balancoRepository = balancoRepository;
+        this.balancoItemRepository = balancoItemRepository;
+        this.produtoRepository = produtoRepository;
+        this.movimentacaoEstoqueRepository = movimentacaoEstoqueRepository;
+        this.indiceCodigoBarrasService = indiceCodigoBarrasService;
+        this.eventPublisher = eventPublisher;
+        this.transacao = new TransactionTemplate(transactionManager);
+    }
+
+    // Balanços que estavam abertos continuam abertos, com a contagem zerada
+    @EventListener(ApplicationReadyEvent.class)
+    public void restaurar() {
+        for (Balanco balanco : balancoRepository.findByStatus("ABERTO")) {
+            sessoes.put(balanco.getId(), new Sessao());
+            System.out.println("Balanço #" + balanco.getId() + " aberto sem contagens (servidor reiniciado)");
+        }
+    }
+
+    public Balanco abrir(String descricao) {
+        Balanco balanco = new Balanco();
+        balanco.setDescricao(descricao);
+        balanco.setStatus("ABERTO");
+        balanco.setAbertoEm(LocalDateTime.now());
+        Balanco salvo = balancoRepository.save(balanco);
+        sessoes.put(salvo.getId(), new Sessao());
+        return salvo;
+    }
+
+    /**
+     * Lê as linhas do fluxo e soma as quantidades na contagem do balanço.
+     * Quantidade negativa desconta (correção de leitura).
+     */
+    public LeituraBalancoDTO registrarLeituras(Long balancoId, InputStream entrada) throws IOException {
+        Sessao sessao = sessaoAberta(balancoId);
+        LeituraBalancoDTO resultado = new LeituraBalancoDTO();
+        Map<Long, Contagem> bloco = new HashMap<>();
+        int pendentes = 0;
+
+        BufferedReader leitor = new BufferedReader(new InputStreamReader(entrada, StandardCharsets.UTF_8));
+        String linha;
+        while ((linha = leitor.readLine()) != null) {
+            linha = LeitorCsv.semBom(linha).trim();
+            if (linha.isEmpty()) {
+                continue;
+            }
+            resultado.setLinhasLidas(resultado.getLinhasLidas() + 1);
+
+            List<String> celulas = LeitorCsv.dividir(linha, linha.indexOf('\t') >= 0 ? '\t' : ';');
+            String codigo = LeitorCsv.celula(celulas, 0);
+            BigDecimal quantidade;
+            try {
+                quantidade = LeitorCsv.decimal(LeitorCsv.celula(celulas, 1), "quantidade");
+            } catch (RuntimeException e) {
+                resultado.setLinhasInvalidas(resultado.getLinhasInvalidas() + 1);
+                continue;
+            }
+            Optional<ProdutoResumoDTO> produto = codigo != null ? indiceCodigoBarrasService.buscar(codigo) : Optional.empty();
+            if (produto.isEmpty()) {
+                resultado.setTotalNaoEncontrados(resultado.getTotalNaoEncontrados() + 1);
+                if (resultado.getCodigosNaoEncontrados().size() < MAXIMO_CODIGOS_RELATADOS) {
+                    resultado.getCodigosNaoEncontrados().add(codigo);
+                }
+                continue;
+            }
+
+            Contagem leitura = new Contagem(quantidade != null ? quantidade : BigDecimal.ONE, LocalDateTime.now());
+            bloco.merge(produto.get().id(), leitura, Contagem::somar);
+            resultado.setLeiturasAplicadas(resultado.getLeiturasAplicadas() + 1);
+            if (++pendentes >= TAMANHO_BLOCO_LEITURAS) {
+                aplicar(balancoId, sessao, bloco);
+                pendentes = 0;
+            }
+        }
+        aplicar(balancoId, sessao, bloco);
+
+        resultado.setProdutosContados(sessao.contagens.size());
+        return resultado;
+    }
+
+    public List<ContagemBalancoDTO> contagens(Long balancoId) {
+        Sessao sessao = sessaoAberta(balancoId);
+        List<ContagemBalancoDTO> contagens = new ArrayList<>(sessao.contagens.size());
+        new TreeMap<>(sessao.contagens).forEach((produtoId, c) ->
+                contagens.add(new ContagemBalancoDTO(produtoId, c.quantidade(), c.contadoEm())));
+        return contagens;
+    }
+
+    /**
+     * Fecha o balanço: aplica a diferença de cada produto contado ao estoque
+     * atual e registra os ajustes no livro. Produtos não contados não mudam.
+     */
+    public BalancoResultadoDTO fechar(Long balancoId) {
+        Sessao sessao = sessaoAberta(balancoId);
+        sessao.lock.writeLock().lock();
+        try {
+            if (sessao.encerrada) {
+                throw new RuntimeException("Balanço não está aberto: " + balancoId);
+            }
+            BalancoResultadoDTO resultado = transacao.execute(status -> aplicarContagem(balancoId, sessao));
+            sessao.encerrada = true;
+            sessoes.remove(balancoId);
+            return resultado;
+        } finally {
+            sessao.lock.writeLock().unlock();
+        }
+    }
+
+    public Balanco cancelar(Long balancoId) {
+        Sessao sessao = sessaoAberta(balancoId);
+        sessao.lock.writeLock().lock();
+        try {
+            Balanco balanco = balancoAberto(balancoId);
+            balanco.setStatus("CANCELADO");
+            balanco.setFechadoEm(LocalDateTime.now());
+            Balanco salvo = balancoRepository.save(balanco);
+            sessao.encerrada = true;
+            sessoes.remove(balancoId);
+            return salvo;
+        } finally {
+            sessao.lock.writeLock().unlock();
+        }
+    }
+
+    private BalancoResultadoDTO aplicarContagem(Long balancoId, Sessao sessao) {
+        Balanco balanco = balancoAberto(balancoId);
+        Map<Long, Contagem> contagens = new TreeMap<>(sessao.contagens);
+
+        // Trava os produtos contados (em ordem de id) e lê o estoque atual;
+        // produtos excluídos durante o balanço ficam de fora
+        Map<Long, BigDecimal> atuais = produtoRepository.travarEstoques(contagens.keySet());
+        Map<Long, LocalDateTime> instantes = new HashMap<>();
+        atuais.keySet().forEach(id -> instantes.put(id, contagens.get(id).contadoEm()));
+        Map<Long, BigDecimal> depois = movimentacaoEstoqueRepository.somaDepois(instantes);
+
+        LocalDateTime agora = LocalDateTime.now();
+        List<BalancoItem> itens = new ArrayList<>(atuais.size());
+        List<BalancoItem> ajustes = new ArrayList<>();
+        Map<Long, BigDecimal> diferencas = new TreeMap<>();
+        Map<Long, BigDecimal> novos = new TreeMap<>();
+        for (Map.Entry<Long, BigDecimal> e : atuais.entrySet()) {
+            Long produtoId = e.getKey();
+            Contagem contagem = contagens.get(produtoId);
+            // Contagem na escala do estoque, para a diferença bater com o livro
+            BigDecimal contada = contagem.quantidade().setScale(CASAS_ESTOQUE, RoundingMode.HALF_UP);
+            BigDecimal atual = e.getValue();
+            BigDecimal naContagem = atual.subtract(depois.getOrDefault(produtoId, BigDecimal.ZERO));
+            BigDecimal diferenca = contada.subtract(naContagem);
+
+            BalancoItem item = new BalancoItem();
+            item.setBalancoId(balancoId);
+            item.setProdutoId(produtoId);
+            item.setQuantidadeContada(contada);
+            item.setContadoEm(contagem.contadoEm());
+            item.setEstoqueNaContagem(naContagem);
+            item.setDiferenca(diferenca);
+            itens.add(item);
+            if (diferenca.signum() == 0) {
+                continue;
+            }
+            ajustes.add(item);
+            diferencas.put(produtoId, diferenca);
+            novos.put(produtoId, atual.add(diferenca));
+        }
+
+        produtoRepository.definirEstoques(novos);
+        // O livro guarda o valor gravado pelo banco, não o calculado aqui
+        Map<Long, BigDecimal> gravados = produtoRepository.estoques(novos.keySet());
+
+        List<MovimentacaoEstoque> movimentacoes = new ArrayList<>(diferencas.size());
+        diferencas.forEach((produtoId, diferenca) -> {
+            Produto produto = new Produto();
+            produto.setId(produtoId);
+            MovimentacaoEstoque mov = new MovimentacaoEstoque();
+            mov.setProduto(produto);
+            mov.setTipo("AJUSTE");
+            mov.setQuantidade(diferenca);
+            mov.setEstoqueAnterior(atuais.get(produtoId));
+            mov.setEstoqueAtual(gravados.get(produtoId));
+            mov.setMotivo("Balanço #" + balancoId);
+            mov.setDataHora(agora);
+            movimentacoes.add(mov);
+        });
+        movimentacaoEstoqueRepository.registrarEmLote(movimentacoes);
+        balancoItemRepository.saveAll(itens);
+        if (!novos.isEmpty()) {
+            eventPublisher.publishEvent(new EstoqueAlteradoEvent(Set.copyOf(novos.keySet())));
+        }
+
+        balanco.setStatus("FECHADO");
+        balanco.setFechadoEm(agora);
+        balanco.setProdutosContados(itens.size());
+        balanco.setProdutosAjustados(ajustes.size());
+        System.out.println("Balanço #" + balancoId + " fechado: " + itens.size() + " produtos contados, "
+                + ajustes.size() + " ajustados");
+        return new BalancoResultadoDTO(balancoRepository.save(balanco), ajustes);
+    }
+
+    private void aplicar(Long balancoId, Sessao sessao, Map<Long, Contagem> bloco) {
+        if (bloco.isEmpty()) {
+            return;
+        }
+        sessao.lock.readLock().lock();
+        try {
+            if (sessao.encerrada) {
+                throw new RuntimeException("Balanço não está aberto: " + balancoId);
+            }
+            bloco.forEach((produtoId, leitura) -> sessao.contagens.merge(produtoId, leitura, Contagem::somar));
+        } finally {
+            sessao.lock.readLock().unlock();
+        }
+        bloco.clear();
+    }
+
+    private Sessao sessaoAberta(Long balancoId) {
+        Sessao sessao = sessoes.get(balancoId);
+        if (sessao == null) {
+            throw new RuntimeException("Balanço não está aberto: " + balancoId);
+        }
+        return sessao;
+    }
+
+    private Balanco balancoAberto(Long balancoId) {
+        Balanco balanco = balancoRepository.findById(balancoId)
+                .orElseThrow(() -> new RuntimeException("Balanço não encontrado: " + balancoId));
+        if (!"ABERTO".equals(balanco.getStatus())) {
+            throw new RuntimeException("Balanço não está aberto: " + balancoId);
+        }
+        return balanco;
+    }
+}
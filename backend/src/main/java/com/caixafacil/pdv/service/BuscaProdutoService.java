@@ -0,0 +1,394 @@
+package com.caixafacil.pdv.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.caixafacil.pdv.model.Produto;
+import com.caixafacil.pdv.model.ProdutoCodigo;
+import com.caixafacil.pdv.repository.ProdutoRepository;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Busca textual de produtos por descrição, código e códigos alternativos,
+ * com índice invertido de trigramas em memória.
+ *
+ * O texto é normalizado (sem acento, minúsculo, só letras e dígitos) e cada
+ * palavra com 3 ou mais caracteres gera seus trigramas. Na busca, os produtos
+ * que compartilham trigramas com a consulta viram candidatos e são ordenados
+ * por relevância: código exato, prefixo de código, início da descrição, início
+ * de palavra, conter todos os termos e, por fim, semelhança por trigramas
+ * (tolera erro de digitação).
+ */
+@Service
+@RequiredArgsConstructor
+public class BuscaProdutoService {
+
+    public static final int LIMITE_PADRAO = 50;
+
+    // Fração mínima de trigramas da consulta para um candidato "aproximado"
+    private static final double SEMELHANCA_MINIMA = 0.5;
+
+    private final ProdutoRepository produtoRepository;
+
+    // Leitores usam o read lock; escritores, além do write lock, são serializados
+    // por synchronized (a carga completa monta o índice novo fora do lock)
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Map<Long, Documento> documentos = new HashMap<>();
+    private Map<Long, Postagens> indice = new HashMap<>();
+
+    /**
+     * Produto como indexado: textos já normalizados
+     */
+    private record Documento(long id, String descricao, String[] palavras, String[] codigos, long[] trigramas) {
+    }
+
+    // =========================================================================
+    // BUSCA
+    // =========================================================================
+
+    /**
+     * Ids dos produtos mais relevantes para o texto, em ordem de relevância
+     */
+    public List<Long> buscarIds(String texto, int limite) {
+        String consulta = normalizar(texto);
+        if (consulta.isEmpty()) {
+            return List.of();
+        }
+        String[] termos = consulta.split(" ");
+        long[] trigramasConsulta = trigramas(termos);
+
+        List<Resultado> resultados = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            if (trigramasConsulta.length == 0) {
+                // Termos curtos demais para trigramas: varre os documentos
+                for (Documento doc : documentos.values()) {
+                    int nota = pontuar(doc, consulta, termos, 0, 0);
+                    if (nota > 0) {
+                        resultados.add(new Resultado(doc, nota));
+                    }
+                }
+            } else {
+                Map<Long, int[]> acertos = new HashMap<>();
+                for (long trigrama : trigramasConsulta) {
+                    Postagens postagens = indice.get(trigrama);
+                    if (postagens == null) {
+                        continue;
+                    }
+                    for (int i = 0; i < postagens.tamanho; i++) {
+                        acertos.computeIfAbsent(postagens.ids[i], id -> new int[1])[0]++;
+                    }
+                }
+                for (Map.Entry<Long, int[]> e : acertos.entrySet()) {
+                    Documento doc = documentos.get(e.getKey());
+                    int nota = pontuar(doc, consulta, termos, e.getValue()[0], trigramasConsulta.length);
+                    if (nota > 0) {
+                        resultados.add(new Resultado(doc, nota));
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        return resultados.stream()
+                .sorted(Comparator.comparingInt(Resultado::nota).reversed()
+                        .thenComparingInt(r -> r.doc().descricao().length())
+                        .thenComparing(r -> r.doc().descricao()))
+                .limit(limite)
+                .map(r -> r.doc().id())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Produtos mais relevantes, carregados do banco (com estoque atual) na ordem do ranking
+     */
+    public List<Produto> buscar(String texto, int limite) {
+        List<Long> ids = buscarIds(texto, limite);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Produto> porId = produtoRepository.findByIdIn(ids).stream()
+                .collect(Collectors.toMap(Produto::getId, Function.identity()));
+        List<Produto> produtos = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Produto p = porId.get(id);
+            if (p != null) {
+                produtos.add(p);
+            }
+        }
+        return produtos;
+    }
+
+    private record Resultado(Documento doc, int nota) {
+    }
+
+    private static int pontuar(Documento doc, String consulta, String[] termos, int acertos, int totalTrigramas) {
+        for (String codigo : doc.codigos()) {
+            if (codigo.equals(consulta)) {
+                return 1000;
+            }
+        }
+        for (String codigo : doc.codigos()) {
+            if (codigo.startsWith(consulta)) {
+                return 800;
+            }
+        }
+        if (doc.descricao().startsWith(consulta)) {
+            return 600;
+        }
+
+        boolean todosNoInicio = true;
+        boolean todosContidos = true;
+        for (String termo : termos) {
+            boolean inicio = false;
+            for (String palavra : doc.palavras()) {
+                if (palavra.startsWith(termo)) {
+                    inicio = true;
+                    break;
+                }
+            }
+            todosNoInicio &= inicio;
+            if (!inicio && !contem(doc, termo)) {
+                todosContidos = false;
+                break;
+            }
+        }
+        if (todosContidos) {
+            return todosNoInicio ? 400 : 200;
+        }
+
+        if (totalTrigramas > 0) {
+            double semelhanca = (double) acertos / totalTrigramas;
+            if (semelhanca >= SEMELHANCA_MINIMA) {
+                return (int) Math.round(semelhanca * 100);
+            }
+        }
+        return 0;
+    }
+
+    private static boolean contem(Documento doc, String termo) {
+        if (doc.descricao().contains(termo)) {
+            return true;
+        }
+        for (String codigo : doc.codigos()) {
+            if (codigo.contains(termo)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // =========================================================================
+    // CARGA E ATUALIZAÇÃO
+    // =========================================================================
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void carregar() {
+        long inicio = System.currentTimeMillis();
+
+        // Monta fora do lock e troca de uma vez: buscas continuam no índice antigo
+        Map<Long, Documento> novosDocumentos = new HashMap<>();
+        Map<Long, Postagens> novoIndice = new HashMap<>();
+        for (Produto produto : produtoRepository.listarCatalogo()) {
+            Documento doc = documento(produto);
+            novosDocumentos.put(doc.id(), doc);
+            for (long trigrama : doc.trigramas()) {
+                novoIndice.computeIfAbsent(trigrama, t -> new Postagens()).acrescentar(doc.id());
+            }
+        }
+        novoIndice.values().forEach(Postagens::ordenar);
+
+        lock.writeLock().lock();
+        try {
+            documentos = novosDocumentos;
+            indice = novoIndice;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        System.out.println("Índice de busca de produtos: " + novosDocumentos.size() + " produtos, "
+                + novoIndice.size() + " trigramas em " + (System.currentTimeMillis() - inicio) + " ms");
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void aoAlterarProduto(ProdutoAlteradoEvent evento) {
+        if (evento.tipo() == ProdutoAlteradoEvent.Tipo.CATALOGO) {
+            carregar();
+            return;
+        }
+        List<Documento> novos = evento.tipo() == ProdutoAlteradoEvent.Tipo.REMOVIDO
+                ? List.of()
+                : produtoRepository.findByIdIn(evento.ids()).stream().map(BuscaProdutoService::documento).toList();
+
+        lock.writeLock().lock();
+        try {
+            for (Long id : evento.ids()) {
+                remover(id);
+            }
+            for (Documento doc : novos) {
+                documentos.put(doc.id(), doc);
+                for (long trigrama : doc.trigramas()) {
+                    indice.computeIfAbsent(trigrama, t -> new Postagens()).adicionar(doc.id());
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void remover(Long id) {
+        Documento antigo = documentos.remove(id);
+        if (antigo == null) {
+            return;
+        }
+        for (long trigrama : antigo.trigramas()) {
+            Postagens postagens = indice.get(trigrama);
+            if (postagens != null && postagens.remover(id) && postagens.tamanho == 0) {
+                indice.remove(trigrama);
+            }
+        }
+    }
+
+    private static Documento documento(Produto produto) {
+        String descricao = normalizar(produto.getDescricao());
+        List<String> codigos = new ArrayList<>();
+        adicionarCodigo(codigos, produto.getCodigo());
+        if (produto.getCodigosAlternativos() != null) {
+            for (ProdutoCodigo alternativo : produto.getCodigosAlternativos()) {
+                adicionarCodigo(codigos, alternativo.getCodigo());
+            }
+        }
+
+        String[] palavras = descricao.isEmpty() ? new String[0] : descricao.split(" ");
+        Set<String> termos = new LinkedHashSet<>(Arrays.asList(palavras));
+        termos.addAll(codigos);
+        return new Documento(produto.getId(), descricao, palavras, codigos.toArray(new String[0]),
+                trigramas(termos.toArray(new String[0])));
+    }
+
+    private static void adicionarCodigo(List<String> codigos, String codigo) {
+        String normalizado = normalizar(codigo);
+        if (!normalizado.isEmpty()) {
+            codigos.add(normalizado);
+        }
+    }
+
+    // =========================================================================
+    // NORMALIZAÇÃO E TRIGRAMAS
+    // =========================================================================
+
+    /**
+     * Sem acentos, minúsculo, só letras e dígitos separados por um espaço
+     */
+    static String normalizar(String texto) {
+        if (texto == null || texto.isEmpty()) {
+            return "";
+        }
+        String semAcento = Normalizer.normalize(texto, Normalizer.Form.NFD);
+        StringBuilder sb = new StringBuilder(semAcento.length());
+        boolean espaco = false;
+        for (int i = 0; i < semAcento.length(); i++) {
+            char c = semAcento.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                continue;
+            }
+            if (Character.isLetterOrDigit(c)) {
+                if (espaco && sb.length() > 0) {
+                    sb.append(' ');
+                }
+                sb.append(Character.toLowerCase(c));
+                espaco = false;
+            } else {
+                espaco = true;
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Trigramas distintos das palavras, cada um empacotado em um long (3 chars de 16 bits)
+     */
+    static long[] trigramas(String[] palavras) {
+        int total = 0;
+        for (String palavra : palavras) {
+            total += Math.max(0, palavra.length() - 2);
+        }
+        long[] todos = new long[total];
+        int n = 0;
+        for (String palavra : palavras) {
+            for (int i = 0; i + 3 <= palavra.length(); i++) {
+                todos[n++] = ((long) palavra.charAt(i) << 32)
+                        | ((long) palavra.charAt(i + 1) << 16)
+                        | palavra.charAt(i + 2);
+            }
+        }
+        // Ordena e remove repetidos no próprio array
+        Arrays.sort(todos);
+        int distintos = 0;
+        for (int i = 0; i < n; i++) {
+            if (distintos == 0 || todos[i] != todos[distintos - 1]) {
+                todos[distintos++] = todos[i];
+            }
+        }
+        return distintos == n ? todos : Arrays.copyOf(todos, distintos);
+    }
+
+    /**
+     * Lista ordenada de ids de produto de um trigrama
+     */
+    private static final class Postagens {
+        long[] ids = new long[4];
+        int tamanho;
+
+        void adicionar(long id) {
+            int pos = Arrays.binarySearch(ids, 0, tamanho, id);
+            if (pos >= 0) {
+                return;
+            }
+            pos = -pos - 1;
+            if (tamanho == ids.length) {
+                ids = Arrays.copyOf(ids, tamanho * 2);
+            }
+            System.arraycopy(ids, pos, ids, pos + 1, tamanho - pos);
+            ids[pos] = id;
+            tamanho++;
+        }
+
+        // Carga completa: acrescenta sem ordenar e ordena uma vez no final
+        void acrescentar(long id) {
+            if (tamanho == ids.length) {
+                ids = Arrays.copyOf(ids, tamanho * 2);
+            }
+            ids[tamanho++] = id;
+        }
+
+        void ordenar() {
+            Arrays.sort(ids, 0, tamanho);
+        }
+
+        boolean remover(long id) {
+            int pos = Arrays.binarySearch(ids, 0, tamanho, id);
+            if (pos < 0) {
+                return false;
+            }
+            System.arraycopy(ids, pos + 1, ids, pos, tamanho - pos - 1);
+            tamanho--;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.caixafacil.pdv.service;
+
+public class CaixaFechadoException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public CaixaFechadoException() {
+        super("Não é possível finalizar venda sem caixa aberto");
+    }
+}
@@ -0,0 +1,9 @@
+package com.caixafacil.pdv.service;
+
+/**
+ * Publicado quando o caixa é aberto ou fechado e a cada sangria ou suprimento
+ *
+ * @param tipo ABERTURA, FECHAMENTO, SUPRIMENTO ou SANGRIA
+ */
+public record CaixaMovimentadoEvent(String tipo, Long caixaId, Double valor) {
+}
@@ -0,0 +1,51 @@
+package com.caixafacil.pdv.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Tempos acumulados por fase de todos os checkouts desde o start
+ */
+@Component
+public class CheckoutMetricas {
+
+    private final Map<String, Fase> fases = new ConcurrentHashMap<>();
+
+    public void registrar(CronometroCheckout cronometro) {
+        cronometro.getFasesNanos().forEach((nome, nanos) -> fases.computeIfAbsent(nome, n -> new Fase()).registrar(nanos));
+        fases.computeIfAbsent("total", n -> new Fase()).registrar(cronometro.getTotalNanos());
+    }
+
+    public Map<String, Object> resumo() {
+        Map<String, Object> resumo = new LinkedHashMap<>();
+        fases.forEach((nome, fase) -> resumo.put(nome, fase.resumo()));
+        return resumo;
+    }
+
+    private static class Fase {
+        private final LongAdder quantidade = new LongAdder();
+        private final LongAdder somaNanos = new LongAdder();
+        private final LongAccumulator maximoNanos = new LongAccumulator(Math::max, 0);
+
+        void registrar(long nanos) {
+            quantidade.increment();
+            somaNanos.add(nanos);
+            maximoNanos.accumulate(nanos);
+        }
+
+        Map<String, Object> resumo() {
+            long qtd = quantidade.sum();
+            Map<String, Object> dto = new LinkedHashMap<>();
+            dto.put("quantidade", qtd);
+            dto.put("mediaMs", qtd == 0 ? 0.0 : somaNanos.sum() / 1_000_000.0 / qtd);
+            dto.put("maximoMs", maximoNanos.get() / 1_000_000.0);
+            dto.put("totalMs", somaNanos.sum() / 1_000_000.0);
+            return dto;
+        }
+    }
+}
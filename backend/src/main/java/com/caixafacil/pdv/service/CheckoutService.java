@@ -0,0 +1,55 @@
+package com.caixafacil.pdv.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.caixafacil.pdv.dto.VendaDTO;
+import com.caixafacil.pdv.model.Caixa;
+import com.caixafacil.pdv.model.Venda;
+import com.caixafacil.pdv.repository.CaixaRepository;
+
+/**
+ * Finalização de venda no PDV.
+ *
+ * Validação do caixa, gravação da venda, baixa de estoque, total do caixa
+ * e movimentações de pagamento rodam em uma única transação: ou a venda
+ * entra inteira, ou nada é gravado. O caixa aberto é buscado uma vez só.
+ */
+@Service
+@RequiredArgsConstructor
+public class CheckoutService {
+
+    private final VendaService vendaService;
+    private final CaixaRepository caixaRepository;
+    private final CheckoutMetricas checkoutMetricas;
+    private final PlatformTransactionManager transactionManager;
+
+    public Venda finalizar(VendaDTO vendaDTO, CronometroCheckout cronometro) {
+        TransactionTemplate transacao = new TransactionTemplate(transactionManager);
+        // Venda online: vale a hora do servidor
+        vendaDTO.setDataHora(null);
+
+        Venda venda = transacao.execute(status -> {
+            Caixa caixa = null;
+            if (vendaService.controlaCaixa()) {
+                caixa = caixaRepository.findCaixaAberto().orElseThrow(CaixaFechadoException::new);
+            }
+            cronometro.marcar("validacao");
+
+            Venda salva = vendaService.salvar(vendaDTO, cronometro);
+
+            if (caixa != null) {
+                vendaService.registrarNoCaixa(caixa, salva);
+                cronometro.marcar("caixa");
+            }
+            return salva;
+        });
+        // inserts da venda (em batch) + commit
+        cronometro.marcar("commit");
+
+        checkoutMetricas.registrar(cronometro);
+        return venda;
+    }
+}
@@ -0,0 +1,7 @@
+package com.caixafacil.pdv.service;
+
+/**
+ * Publicado quando um cliente é criado, alterado ou removido
+ */
+public record ClienteAlteradoEvent(Long id, boolean removido) {
+}
@@ -0,0 +1,172 @@
+package com.caixafacil.pdv.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.caixafacil.pdv.dto.ConferenciaEstoqueDTO;
+import com.caixafacil.pdv.dto.DivergenciaEstoqueDTO;
+import com.caixafacil.pdv.repository.MovimentacaoEstoqueRepository;
+import com.caixafacil.pdv.repository.ProdutoRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Conferência do estoque dos produtos com o livro de movimentações: o
+ * estoque esperado de cada produto é a soma das quantidades do livro.
+ *
+ * A faixa de ids é dividida em blocos processados num ForkJoinPool próprio.
+ * Cada bloco é um SELECT sem travas; na correção, cada bloco tem a sua
+ * transação curta, e só é corrigido o produto cujo estoque ainda é o lido
+ * (UPDATE ... WHERE estoque = lido), então uma venda no meio da conferência
+ * nunca espera por ela nem é sobrescrita.
+ */
+@Service
+public class ConferenciaEstoqueService {
+
+    public static final int MAXIMO_DIVERGENCIAS_RELATADAS = 1000;
+
+    private final ProdutoRepository produtoRepository;
+    private final MovimentacaoEstoqueRepository movimentacaoEstoqueRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transacao;
+    private final ForkJoinPool pool;
+    private final int tamanhoBloco;
+    private final AtomicBoolean emAndamento = new AtomicBoolean(false);
+
+    @Value("${pdv.estoque.conferencia-corrigir:false}")
+    private boolean corrigirAgendada;
+
+    public ConferenciaEstoqueService(ProdutoRepository produtoRepository,
+                                     MovimentacaoEstoqueRepository movimentacaoEstoqueRepository,
+                                     ApplicationEventPublisher eventPublisher,
+                                     PlatformTransactionManager transactionManager,
+                                     @Value("${pdv.estoque.conferencia-threads:4}") int threads,
+                                     @Value("${pdv.estoque.conferencia-bloco:5000}") int tamanhoBloco) {
+        this.produtoRepository = produtoRepository;
+        this.movimentacaoEstoqueRepository = movimentacaoEstoqueRepository;
+        this.eventPublisher = eventPublisher;
+        this.transacao = new TransactionTemplate(transactionManager);
+        this.tamanhoBloco = Math.max(1, tamanhoBloco);
+
+        AtomicInteger contador = new AtomicInteger();
+        this.pool = new ForkJoinPool(Math.max(1, threads), p -> {
+            ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+            t.setName("conferencia-estoque-" + contador.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }, null, false);
+    }
+
+    @Scheduled(cron = "${pdv.estoque.conferencia-cron:0 30 2 * * *}")
+    public void agendado() {
+        conferir(corrigirAgendada);
+    }
+
+    /**
+     * Confere todos os produtos e, se pedido, corrige o estoque para o valor
+     * do livro (com uma movimentação CONFERENCIA de quantidade zero).
+     */
+    public ConferenciaEstoqueDTO conferir(boolean corrigir) {
+        if (!emAndamento.compareAndSet(false, true)) {
+            throw new RuntimeException("Conferência de estoque já em andamento");
+        }
+        try {
+            long inicio = System.currentTimeMillis();
+            long menorId = produtoRepository.menorId();
+            long maiorId = produtoRepository.maiorId();
+
+            List<DivergenciaEstoqueDTO> divergencias = menorId > 0
+                    ? pool.invoke(new Bloco(menorId, maiorId, corrigir))
+                    : List.of();
+
+            ConferenciaEstoqueDTO resultado = new ConferenciaEstoqueDTO();
+            resultado.setProdutosConferidos(produtoRepository.count());
+            resultado.setTotalDivergencias(divergencias.size());
+            resultado.setCorrigidos((int) divergencias.stream().filter(DivergenciaEstoqueDTO::corrigido).count());
+            resultado.setDivergencias(new ArrayList<>(
+                    divergencias.subList(0, Math.min(divergencias.size(), MAXIMO_DIVERGENCIAS_RELATADAS))));
+            resultado.setTempoMs(System.currentTimeMillis() - inicio);
+
+            System.out.println("Conferência de estoque: " + resultado.getProdutosConferidos() + " produtos, "
+                    + resultado.getTotalDivergencias() + " divergências, " + resultado.getCorrigidos()
+                    + " corrigidas em " + resultado.getTempoMs() + " ms");
+            return resultado;
+        } finally {
+            emAndamento.set(false);
+        }
+    }
+
+    private List<DivergenciaEstoqueDTO> conferirBloco(long idInicial, long idFinal, boolean corrigir) {
+        List<DivergenciaEstoqueDTO> divergencias = movimentacaoEstoqueRepository.divergencias(idInicial, idFinal);
+        if (!corrigir || divergencias.isEmpty()) {
+            return divergencias;
+        }
+
+        List<DivergenciaEstoqueDTO> corrigidas = transacao.execute(status -> {
+            List<DivergenciaEstoqueDTO> feitas = movimentacaoEstoqueRepository.corrigir(divergencias);
+            if (!feitas.isEmpty()) {
+                Set<Long> ids = feitas.stream().map(DivergenciaEstoqueDTO::produtoId).collect(Collectors.toSet());
+                eventPublisher.publishEvent(new EstoqueAlteradoEvent(ids));
+            }
+            return feitas;
+        });
+        Set<Long> idsCorrigidos = corrigidas.stream().map(DivergenciaEstoqueDTO::produtoId).collect(Collectors.toSet());
+        List<DivergenciaEstoqueDTO> resultado = new ArrayList<>(divergencias.size());
+        for (DivergenciaEstoqueDTO d : divergencias) {
+            resultado.add(idsCorrigidos.contains(d.produtoId()) ? d.comCorrecao() : d);
+        }
+        return resultado;
+    }
+
+    /**
+     * Faixa de ids [inicio, fim]: divide ao meio até caber num bloco
+     */
+    private class Bloco extends RecursiveTask<List<DivergenciaEstoqueDTO>> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final long inicio;
+        private final long fim;
+        private final boolean corrigir;
+
+        Bloco(long inicio, long fim, boolean corrigir) {
+            this.inicio = inicio;
+            this.fim = fim;
+            this.corrigir = corrigir;
+        }
+
+        @Override
+        protected List<DivergenciaEstoqueDTO> compute() {
+            if (fim - inicio < tamanhoBloco) {
+                return conferirBloco(inicio, fim, corrigir);
+            }
+            long meio = inicio + (fim - inicio) / 2;
+            Bloco esquerda = new Bloco(inicio, meio, corrigir);
+            esquerda.fork();
+            List<DivergenciaEstoqueDTO> direita = new Bloco(meio + 1, fim, corrigir).compute();
+
+            // Concatena em ordem de id
+            List<DivergenciaEstoqueDTO> todas = new ArrayList<>(esquerda.join());
+            todas.addAll(direita);
+            return todas;
+        }
+    }
+
+    @PreDestroy
+    void encerrar() {
+        pool.shutdown();
+    }
+}
@@ -0,0 +1,45 @@
+package com.caixafacil.pdv.service;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Tempo gasto em cada fase de um checkout.
+ * Cada marcar(fase) atribui à fase o tempo desde a marca anterior.
+ */
+public class CronometroCheckout {
+
+    private final long inicio = System.nanoTime();
+    private long ultimaMarca = inicio;
+    private final Map<String, Long> fases = new LinkedHashMap<>();
+
+    public void marcar(String fase) {
+        long agora = System.nanoTime();
+        fases.merge(fase, agora - ultimaMarca, Long::sum);
+        ultimaMarca = agora;
+    }
+
+    public Map<String, Long> getFasesNanos() {
+        return fases;
+    }
+
+    public long getTotalNanos() {
+        return ultimaMarca - inicio;
+    }
+
+    /**
+     * Valor do header Server-Timing (aparece no DevTools do navegador)
+     */
+    public String serverTiming() {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, Long> fase : fases.entrySet()) {
+            sb.append(fase.getKey())
+              .append(";dur=")
+              .append(String.format(Locale.ROOT, "%.3f", fase.getValue() / 1_000_000.0))
+              .append(", ");
+        }
+        sb.append("total;dur=").append(String.format(Locale.ROOT, "%.3f", getTotalNanos() / 1_000_000.0));
+        return sb.toString();
+    }
+}
@@ -0,0 +1,14 @@
+package com.caixafacil.pdv.service;
+
+import java.util.Set;
+
+/**
+ * Publicado quando o saldo de estoque de produtos muda (venda, entrada,
+ * ajuste). Não altera a versão do catálogo.
+ */
+public record EstoqueAlteradoEvent(Set<Long> produtoIds) {
+
+    public static EstoqueAlteradoEvent de(Long produtoId) {
+        return new EstoqueAlteradoEvent(Set.of(produtoId));
+    }
+}
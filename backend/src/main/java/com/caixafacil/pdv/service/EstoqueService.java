@@ -1,9 +1,14 @@
 package com.caixafacil.pdv.service;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.caixafacil.pdv.dto.NotaEntradaDTO;
+import com.caixafacil.pdv.dto.NotaEntradaResultadoDTO;
+import com.caixafacil.pdv.dto.PosicaoEstoqueDTO;
 import com.caixafacil.pdv.model.MovimentacaoEstoque;
 import com.caixafacil.pdv.model.Produto;
 import com.caixafacil.pdv.repository.MovimentacaoEstoqueRepository;
@@ -11,6 +16,12 @@ import com.caixafacil.pdv.repository.ProdutoRepository;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
 
 @Service
 @RequiredArgsConstructor
@@ -18,23 +29,28 @@ public class EstoqueService {
 
     private final ProdutoRepository produtoRepository;
     private final MovimentacaoEstoqueRepository movimentacaoEstoqueRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${pdv.estoque.bloquear-negativo:false}")
+    private boolean bloquearNegativo;
 
     /**
      * Entrada de estoque – adiciona quantidade
      */
     @Transactional
     public Produto entrada(Long produtoId, BigDecimal quantidade, String observacao) {
-        Produto produto = produtoRepository.findById(produtoId)
-                .orElseThrow(() -> new RuntimeException("Produto não encontrado: " + produtoId));
-
-        BigDecimal estoqueAnterior = produto.getEstoque() != null
-                ? produto.getEstoque()
-                : BigDecimal.ZERO;
-
-        BigDecimal estoqueAtual = estoqueAnterior.add(quantidade);
+        BigDecimal estoqueAnterior = travarEstoque(produtoId);
+        int atualizados = bloquearNegativo
+                ? produtoRepository.somarEstoqueSemNegativar(produtoId, quantidade)
+                : produtoRepository.somarEstoque(produtoId, quantidade);
+        if (atualizados == 0) {
+            throw new RuntimeException("Entrada deixaria o estoque negativo!");
+        }
+        eventPublisher.publishEvent(EstoqueAlteradoEvent.de(produtoId));
 
-        produto.setEstoque(estoqueAtual);
-        produtoRepository.save(produto);
+        // A linha segue travada até o commit: o valor lido é o resultado desta entrada
+        Produto produto = consultar(produtoId);
+        BigDecimal estoqueAtual = produto.getEstoque();
 
         MovimentacaoEstoque mov = new MovimentacaoEstoque();
         mov.setProduto(produto);
@@ -51,26 +67,85 @@ public class EstoqueService {
     }
 
     /**
-     * Ajuste direto – pode ser positivo ou negativo
-     * No front você está usando isso como SAÍDA (quantidade negativa).
+     * Entrada de uma nota inteira numa transação: cada produto é travado uma
+     * vez só (em ordem de id), o estoque é gravado com um UPDATE em batch e o
+     * livro recebe uma linha por produto com um INSERT em batch.
      */
     @Transactional
-    public Produto ajustar(Long produtoId, BigDecimal quantidade, String motivo) {
-        Produto produto = produtoRepository.findById(produtoId)
-                .orElseThrow(() -> new RuntimeException("Produto não encontrado: " + produtoId));
+    public NotaEntradaResultadoDTO entradaNota(NotaEntradaDTO nota) {
+        if (nota.getItens() == null || nota.getItens().isEmpty()) {
+            throw new RuntimeException("Nota de entrada sem itens");
+        }
+
+        // Linhas repetidas do mesmo produto viram uma entrada só
+        Map<Long, BigDecimal> quantidades = new TreeMap<>();
+        for (NotaEntradaDTO.Item item : nota.getItens()) {
+            if (item.getProdutoId() == null) {
+                throw new RuntimeException("Item da nota sem produto");
+            }
+            if (item.getQuantidade() == null || item.getQuantidade().signum() <= 0) {
+                throw new RuntimeException("Quantidade inválida para o produto " + item.getProdutoId());
+            }
+            quantidades.merge(item.getProdutoId(), item.getQuantidade(), BigDecimal::add);
+        }
 
-        BigDecimal estoqueAnterior = produto.getEstoque() != null
-                ? produto.getEstoque()
-                : BigDecimal.ZERO;
+        Map<Long, BigDecimal> anteriores = produtoRepository.travarEstoques(quantidades.keySet());
+        if (anteriores.size() < quantidades.size()) {
+            Set<Long> inexistentes = new TreeSet<>(quantidades.keySet());
+            inexistentes.removeAll(anteriores.keySet());
+            throw new RuntimeException("Produto não encontrado: " + inexistentes);
+        }
 
-        BigDecimal estoqueAtual = estoqueAnterior.add(quantidade);
+        Map<Long, BigDecimal> novos = new TreeMap<>();
+        quantidades.forEach((id, quantidade) -> novos.put(id, anteriores.get(id).add(quantidade)));
+        produtoRepository.definirEstoques(novos);
+        // O livro guarda o valor gravado pelo banco, não o calculado aqui
+        Map<Long, BigDecimal> atuais = new TreeMap<>(produtoRepository.estoques(novos.keySet()));
+
+        String observacao = "Nota " + (nota.getDocumento() != null ? nota.getDocumento() : "s/n")
+                + (nota.getObservacao() != null ? " - " + nota.getObservacao() : "");
+        LocalDateTime agora = LocalDateTime.now();
+        List<MovimentacaoEstoque> movimentacoes = new ArrayList<>(atuais.size());
+        NotaEntradaResultadoDTO resultado = new NotaEntradaResultadoDTO();
+        for (Map.Entry<Long, BigDecimal> e : atuais.entrySet()) {
+            Produto produto = new Produto();
+            produto.setId(e.getKey());
+
+            MovimentacaoEstoque mov = new MovimentacaoEstoque();
+            mov.setProduto(produto);
+            mov.setTipo("ENTRADA");
+            mov.setQuantidade(quantidades.get(e.getKey()));
+            mov.setEstoqueAnterior(anteriores.get(e.getKey()));
+            mov.setEstoqueAtual(e.getValue());
+            mov.setObservacao(observacao.length() > 255 ? observacao.substring(0, 255) : observacao);
+            mov.setDataHora(agora);
+            movimentacoes.add(mov);
+            resultado.getEstoques().add(new PosicaoEstoqueDTO(e.getKey(), e.getValue()));
+        }
+        movimentacaoEstoqueRepository.registrarEmLote(movimentacoes);
+        eventPublisher.publishEvent(new EstoqueAlteradoEvent(Set.copyOf(atuais.keySet())));
+
+        resultado.setDocumento(nota.getDocumento());
+        resultado.setLinhas(nota.getItens().size());
+        System.out.println("Nota de entrada " + nota.getDocumento() + ": " + nota.getItens().size()
+                + " linhas, " + atuais.size() + " produtos");
+        return resultado;
+    }
 
-        if (estoqueAtual.compareTo(BigDecimal.ZERO) < 0) {
+    /**
+     * Ajuste direto – pode ser positivo ou negativo
+     * No front você está usando isso como SAÍDA (quantidade negativa).
+     */
+    @Transactional
+    public Produto ajustar(Long produtoId, BigDecimal quantidade, String motivo) {
+        BigDecimal estoqueAnterior = travarEstoque(produtoId);
+        if (produtoRepository.somarEstoqueSemNegativar(produtoId, quantidade) == 0) {
             throw new RuntimeException("Ajuste deixaria o estoque negativo!");
         }
+        eventPublisher.publishEvent(EstoqueAlteradoEvent.de(produtoId));
 
-        produto.setEstoque(estoqueAtual);
-        produtoRepository.save(produto);
+        Produto produto = consultar(produtoId);
+        BigDecimal estoqueAtual = produto.getEstoque();
 
         MovimentacaoEstoque mov = new MovimentacaoEstoque();
         mov.setProduto(produto);
@@ -86,6 +161,67 @@ public class EstoqueService {
         return produto;
     }
 
+    /**
+     * Saldo inicial no livro para o estoque gravado no cadastro de um produto
+     * novo (já inserido nesta transação). Estoque zero não grava nada.
+     */
+    @Transactional
+    public void registrarSaldoInicial(Produto produto) {
+        BigDecimal atual = produtoRepository.estoques(Set.of(produto.getId())).get(produto.getId());
+        if (atual == null || atual.signum() == 0) {
+            return;
+        }
+        produto.setEstoque(atual);
+
+        MovimentacaoEstoque mov = new MovimentacaoEstoque();
+        mov.setProduto(produto);
+        mov.setTipo("SALDO_INICIAL");
+        mov.setQuantidade(atual);
+        mov.setEstoqueAnterior(BigDecimal.ZERO);
+        mov.setEstoqueAtual(atual);
+        mov.setMotivo("Cadastro do produto");
+        mov.setDataHora(LocalDateTime.now());
+        movimentacaoEstoqueRepository.save(mov);
+    }
+
+    /**
+     * Estoque informado na edição do cadastro: com a linha travada, a
+     * diferença para o estoque atual é somada no banco e lançada como AJUSTE.
+     * Sem diferença não grava nada.
+     */
+    @Transactional
+    public void definirPeloCadastro(Long produtoId, BigDecimal estoque) {
+        BigDecimal estoqueAnterior = travarEstoque(produtoId);
+        BigDecimal diferenca = estoque.subtract(estoqueAnterior);
+        if (diferenca.signum() == 0) {
+            return;
+        }
+        produtoRepository.somarEstoque(produtoId, diferenca);
+        eventPublisher.publishEvent(EstoqueAlteradoEvent.de(produtoId));
+
+        MovimentacaoEstoque mov = new MovimentacaoEstoque();
+        mov.setProduto(produtoRepository.getReferenceById(produtoId));
+        mov.setTipo("AJUSTE");
+        mov.setQuantidade(diferenca);
+        mov.setEstoqueAnterior(estoqueAnterior);
+        mov.setEstoqueAtual(produtoRepository.estoques(Set.of(produtoId)).get(produtoId));
+        mov.setMotivo("Alteração no cadastro do produto");
+        mov.setDataHora(LocalDateTime.now());
+        movimentacaoEstoqueRepository.save(mov);
+    }
+
+    /**
+     * Trava a linha do produto até o fim da transação e devolve o estoque
+     * anterior à alteração que vem a seguir.
+     */
+    private BigDecimal travarEstoque(Long produtoId) {
+        BigDecimal estoque = produtoRepository.travarEstoques(Set.of(produtoId)).get(produtoId);
+        if (estoque == null) {
+            throw new RuntimeException("Produto não encontrado: " + produtoId);
+        }
+        return estoque;
+    }
+
     /**
      * Consulta estoque atual
      */
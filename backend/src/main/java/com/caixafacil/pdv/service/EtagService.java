@@ -0,0 +1,65 @@
+package com.caixafacil.pdv.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ETags das listagens de cadastro, montadas a partir de versões mantidas em
+ * memória: um If-None-Match que confere vira 304 sem consultar o banco.
+ *
+ * A época de inicialização entra em todas as tags, então um restart do
+ * servidor invalida o que os navegadores guardaram. A tag é calculada antes
+ * de ler os dados: uma alteração concorrente no máximo faz o próximo GET
+ * devolver 200 de novo, nunca um 304 com dado velho.
+ */
+@Service
+@RequiredArgsConstructor
+public class EtagService {
+
+    private final long epoca = System.currentTimeMillis();
+
+    private final AtomicLong versaoEstoque = new AtomicLong();
+    private final AtomicLong versaoConfiguracao = new AtomicLong();
+
+    private final VersaoCatalogoService versaoCatalogoService;
+
+    // Produtos mudam por cadastro e pelo saldo de estoque
+    public String produtos() {
+        return tag("p", versaoCatalogoService.versaoConfirmada(), versaoEstoque.get());
+    }
+
+    // Categorias e formas de pagamento: basta a versão do catálogo
+    public String catalogo() {
+        return tag("c", versaoCatalogoService.versaoConfirmada());
+    }
+
+    public String configuracao() {
+        return tag("k", versaoConfiguracao.get());
+    }
+
+    public void configuracaoAlterada() {
+        versaoConfiguracao.incrementAndGet();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void aoAlterarEstoque(EstoqueAlteradoEvent evento) {
+        versaoEstoque.incrementAndGet();
+    }
+
+    // A configuração devolve o cliente padrão completo
+    @TransactionalEventListener(fallbackExecution = true)
+    public void aoAlterarCliente(ClienteAlteradoEvent evento) {
+        versaoConfiguracao.incrementAndGet();
+    }
+
+    private String tag(String recurso, long... versoes) {
+        StringBuilder sb = new StringBuilder("\"").append(recurso).append(epoca);
+        for (long versao : versoes) {
+            sb.append('-').append(versao);
+        }
+        return sb.append('"').toString();
+    }
+}
@@ -0,0 +1,284 @@
+package com.caixafacil.pdv.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Exportação de vendas do período direto do cursor do banco para a resposta.
+ * Nenhuma lista é montada: cada linha lida do ResultSet é escrita e descartada,
+ * então a memória usada não depende do tamanho do período.
+ */
+@Service
+public class ExportacaoVendasService {
+
+    public enum Formato { NDJSON, CSV }
+
+    public enum Conteudo { VENDAS, ITENS, PAGAMENTOS }
+
+    private static final int TAMANHO_FETCH = 1000;
+    private static final int TAMANHO_BUFFER = 64 * 1024;
+
+    private static final Map<Conteudo, String> CONSULTAS = Map.of(
+        Conteudo.VENDAS, """
+            SELECT v.id, v.numero_documento, v.data_hora, v.usuario_id, v.cliente_id,
+                   v.subtotal, v.desconto_percentual, v.desconto_valor,
+                   v.acrescimo_percentual, v.acrescimo_valor, v.frete, v.total,
+                   v.valor_pago, v.troco, v.cancelada
+            FROM vendas v
+            WHERE v.data_hora >= ? AND v.data_hora < ?
+            ORDER BY v.data_hora, v.id
+            """,
+        Conteudo.ITENS, """
+            SELECT v.id AS venda_id, v.numero_documento, v.data_hora, i.sequencia,
+                   i.produto_id, p.codigo AS produto_codigo, p.descricao AS produto_descricao,
+                   i.quantidade, i.preco_unitario, i.desconto_percentual, i.desconto_valor,
+                   i.acrescimo_percentual, i.acrescimo_valor, i.total, v.cancelada
+            FROM vendas v
+            JOIN vendas_itens i ON i.venda_id = v.id
+            JOIN produto p ON p.id = i.produto_id
+            WHERE v.data_hora >= ? AND v.data_hora < ?
+            ORDER BY v.data_hora, v.id, i.sequencia
+            """,
+        Conteudo.PAGAMENTOS, """
+            SELECT v.id AS venda_id, v.numero_documento, v.data_hora,
+                   g.forma_pagamento_id, f.descricao AS forma_pagamento,
+                   g.valor, g.troco, v.cancelada
+            FROM vendas v
+            JOIN vendas_pagamentos g ON g.venda_id = v.id
+            JOIN formas_pagamento f ON f.id = g.forma_pagamento_id
+            WHERE v.data_hora >= ? AND v.data_hora < ?
+            ORDER BY v.data_hora, v.id, g.id
+            """
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    public ExportacaoVendasService(DataSource dataSource, PlatformTransactionManager transactionManager) {
+        // JdbcTemplate próprio: fetchSize faz o driver trazer as linhas aos poucos
+        // (no PostgreSQL só vale dentro de transação, daí o TransactionTemplate)
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(TAMANHO_FETCH);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    /**
+     * Escreve as linhas do período [inicio, fim) em out.
+     *
+     * @return quantidade de linhas exportadas
+     */
+    public long exportar(OutputStream out, Conteudo conteudo, Formato formato,
+                         LocalDateTime inicio, LocalDateTime fim, boolean gzip) throws IOException {
+        OutputStream destino = gzip ? new GZIPOutputStream(out, TAMANHO_BUFFER) : out;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(destino, StandardCharsets.UTF_8), TAMANHO_BUFFER);
+
+        EscritorLinhas escritor = formato == Formato.CSV
+            ? new EscritorCsv(writer)
+            : new EscritorNdjson(jsonFactory.createGenerator(writer));
+
+        Long linhas;
+        try {
+            linhas = transactionTemplate.execute(status -> jdbcTemplate.query(
+                CONSULTAS.get(conteudo),
+                (ResultSetExtractor<Long>) rs -> {
+                    try {
+                        escritor.cabecalho(rs.getMetaData());
+                        long total = 0;
+                        while (rs.next()) {
+                            escritor.linha(rs);
+                            total++;
+                        }
+                        return total;
+                    } catch (IOException e) {
+                        // Cliente desconectou: aborta a leitura do cursor
+                        throw new UncheckedIOException(e);
+                    }
+                },
+                Timestamp.valueOf(inicio), Timestamp.valueOf(fim)));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        escritor.fechar();
+        writer.flush();
+        if (destino instanceof GZIPOutputStream gz) {
+            gz.finish();
+        }
+        return linhas != null ? linhas : 0;
+    }
+
+    // =========================================================================
+    // ESCRITORES
+    // =========================================================================
+
+    private interface EscritorLinhas {
+        void cabecalho(ResultSetMetaData meta) throws SQLException, IOException;
+
+        void linha(ResultSet rs) throws SQLException, IOException;
+
+        void fechar() throws IOException;
+    }
+
+    private static String[] nomesColunas(ResultSetMetaData meta) throws SQLException {
+        String[] nomes = new String[meta.getColumnCount()];
+        for (int i = 0; i < nomes.length; i++) {
+            nomes[i] = meta.getColumnLabel(i + 1).toLowerCase();
+        }
+        return nomes;
+    }
+
+    private static int[] tiposColunas(ResultSetMetaData meta) throws SQLException {
+        int[] tipos = new int[meta.getColumnCount()];
+        for (int i = 0; i < tipos.length; i++) {
+            tipos[i] = meta.getColumnType(i + 1);
+        }
+        return tipos;
+    }
+
+    private static final class EscritorNdjson implements EscritorLinhas {
+        private final JsonGenerator json;
+        private String[] nomes;
+        private int[] tipos;
+        private boolean escreveu;
+
+        EscritorNdjson(JsonGenerator json) {
+            this.json = json;
+            // Um objeto por linha
+            this.json.setRootValueSeparator(new SerializedString("\n"));
+        }
+
+        @Override
+        public void cabecalho(ResultSetMetaData meta) throws SQLException {
+            nomes = nomesColunas(meta);
+            tipos = tiposColunas(meta);
+        }
+
+        @Override
+        public void linha(ResultSet rs) throws SQLException, IOException {
+            json.writeStartObject();
+            for (int i = 0; i < nomes.length; i++) {
+                json.writeFieldName(nomes[i]);
+                int col = i + 1;
+                switch (tipos[i]) {
+                    case Types.BIGINT, Types.INTEGER, Types.SMALLINT -> {
+                        long valor = rs.getLong(col);
+                        if (rs.wasNull()) json.writeNull(); else json.writeNumber(valor);
+                    }
+                    case Types.NUMERIC, Types.DECIMAL -> {
+                        var valor = rs.getBigDecimal(col);
+                        if (valor == null) json.writeNull(); else json.writeNumber(valor);
+                    }
+                    case Types.BOOLEAN, Types.BIT -> {
+                        boolean valor = rs.getBoolean(col);
+                        if (rs.wasNull()) json.writeNull(); else json.writeBoolean(valor);
+                    }
+                    case Types.TIMESTAMP -> {
+                        Timestamp valor = rs.getTimestamp(col);
+                        if (valor == null) json.writeNull(); else json.writeString(valor.toLocalDateTime().toString());
+                    }
+                    default -> json.writeString(rs.getString(col));
+                }
+            }
+            json.writeEndObject();
+            escreveu = true;
+        }
+
+        @Override
+        public void fechar() throws IOException {
+            if (escreveu) {
+                json.writeRaw('\n');
+            }
+            json.flush();
+        }
+    }
+
+    private static final class EscritorCsv implements EscritorLinhas {
+        private final Writer writer;
+        private int[] tipos;
+
+        EscritorCsv(Writer writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        public void cabecalho(ResultSetMetaData meta) throws SQLException, IOException {
+            tipos = tiposColunas(meta);
+            writer.write(String.join(",", nomesColunas(meta)));
+            writer.write("\r\n");
+        }
+
+        @Override
+        public void linha(ResultSet rs) throws SQLException, IOException {
+            for (int i = 0; i < tipos.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                int col = i + 1;
+                if (tipos[i] == Types.TIMESTAMP) {
+                    Timestamp valor = rs.getTimestamp(col);
+                    if (valor != null) {
+                        writer.write(valor.toLocalDateTime().toString());
+                    }
+                    continue;
+                }
+                if (tipos[i] == Types.BOOLEAN || tipos[i] == Types.BIT) {
+                    boolean valor = rs.getBoolean(col);
+                    if (!rs.wasNull()) {
+                        writer.write(valor ? "true" : "false");
+                    }
+                    continue;
+                }
+                String valor = rs.getString(col);
+                if (valor != null) {
+                    escrever(valor);
+                }
+            }
+            writer.write("\r\n");
+        }
+
+        // RFC 4180: aspas só quando o texto tem separador, aspas ou quebra de linha
+        private void escrever(String valor) throws IOException {
+            boolean precisaAspas = false;
+            for (int i = 0; i < valor.length() && !precisaAspas; i++) {
+                char c = valor.charAt(i);
+                precisaAspas = c == ',' || c == '"' || c == '\n' || c == '\r';
+            }
+            if (!precisaAspas) {
+                writer.write(valor);
+                return;
+            }
+            writer.write('"');
+            writer.write(valor.replace("\"", "\"\""));
+            writer.write('"');
+        }
+
+        @Override
+        public void fechar() {
+        }
+    }
+}
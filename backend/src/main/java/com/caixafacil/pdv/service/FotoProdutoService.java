@@ -0,0 +1,373 @@
+package com.caixafacil.pdv.service;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import com.caixafacil.pdv.model.Produto;
+import com.caixafacil.pdv.repository.ProdutoRepository;
+
+import jakarta.annotation.PreDestroy;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fotos de produto: o original é gravado com o hash do conteúdo no nome e as
+ * variantes (ampliada, grade e miniatura) são geradas em segundo plano, em
+ * JPEG. Como o nome muda sempre que o conteúdo muda, os arquivos são servidos
+ * com cache imutável (ver WebMvcConfig).
+ *
+ * Enquanto as variantes não ficam prontas, Produto.getFotos() aponta todas
+ * para o original.
+ */
+@Service
+public class FotoProdutoService {
+
+    public static final String DIRETORIO = "uploads/produtos/";
+    private static final String URL_BASE = "/uploads/produtos/";
+
+    // Variante -> maior lado em pixels, da maior para a menor
+    private static final Map<String, Integer> VARIANTES = new LinkedHashMap<>();
+    static {
+        VARIANTES.put("full", 1200);
+        VARIANTES.put("grid", 400);
+        VARIANTES.put("thumb", 160);
+    }
+
+    private static final float QUALIDADE_JPEG = 0.85f;
+
+    // Acima disso a imagem nem é decodificada (protege o heap)
+    private static final long MAXIMO_PIXELS = 40_000_000L;
+
+    private final ProdutoRepository produtoRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transacao;
+    private final VersaoCatalogoService versaoCatalogoService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final ThreadPoolExecutor geradores = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(100),
+            r -> {
+                Thread t = new Thread(r, "foto-variantes");
+                t.setDaemon(true);
+                return t;
+            },
+            // fila cheia: quem enviou a foto espera a geração (backpressure)
+            new ThreadPoolExecutor.CallerRunsPolicy());
+
+    public FotoProdutoService(ProdutoRepository produtoRepository,
+                              JdbcTemplate jdbcTemplate,
+                              PlatformTransactionManager transactionManager,
+                              VersaoCatalogoService versaoCatalogoService,
+                              ApplicationEventPublisher eventPublisher) {
+        this.produtoRepository = produtoRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transacao = new TransactionTemplate(transactionManager);
+        this.versaoCatalogoService = versaoCatalogoService;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        geradores.shutdownNow();
+    }
+
+    /**
+     * URLs da foto por variante (full, grid, thumb), relativas ao servidor.
+     * Sem variantes prontas, todas apontam para o original.
+     */
+    public static Map<String, String> urls(String fotoPath, Boolean variantesProntas) {
+        if (fotoPath == null || fotoPath.isEmpty()) {
+            return null;
+        }
+        Map<String, String> urls = new LinkedHashMap<>();
+        for (String variante : VARIANTES.keySet()) {
+            urls.put(variante, URL_BASE + (Boolean.TRUE.equals(variantesProntas)
+                    ? nomeVariante(fotoPath, variante)
+                    : fotoPath));
+        }
+        urls.put("original", URL_BASE + fotoPath);
+        return urls;
+    }
+
+    // =========================================================================
+    // ENVIO / REMOÇÃO
+    // =========================================================================
+
+    /**
+     * Grava o original, troca a foto do produto e agenda as variantes.
+     *
+     * @return nome do arquivo original (fotoPath)
+     */
+    public String salvar(Produto produto, MultipartFile arquivo) throws IOException {
+        byte[] conteudo = arquivo.getBytes();
+        String nome = hash(conteudo) + extensao(arquivo.getOriginalFilename());
+
+        Path diretorio = Paths.get(DIRETORIO);
+        Files.createDirectories(diretorio);
+        Path destino = diretorio.resolve(nome);
+        if (!Files.exists(destino)) {
+            Path temporario = Files.createTempFile(diretorio, "envio", ".tmp");
+            Files.write(temporario, conteudo);
+            Files.move(temporario, destino, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+
+        // Mesmo conteúdo já enviado para outro produto: variantes já existem
+        boolean prontas = VARIANTES.keySet().stream()
+                .allMatch(v -> Files.exists(diretorio.resolve(nomeVariante(nome, v))));
+
+        String anterior = produto.getFotoPath();
+        gravarFoto(produto, nome, prontas);
+
+        if (anterior != null && !anterior.equals(nome)) {
+            removerSemUso(anterior);
+        }
+        if (!prontas) {
+            geradores.execute(() -> gerarVariantes(nome));
+        }
+        return nome;
+    }
+
+    public void remover(Produto produto) {
+        String anterior = produto.getFotoPath();
+        if (anterior == null || anterior.isEmpty()) {
+            return;
+        }
+        gravarFoto(produto, null, false);
+        removerSemUso(anterior);
+    }
+
+    // Só as colunas da foto: o produto recebido pode estar desatualizado
+    // (estoque, por exemplo) e não é gravado inteiro
+    private void gravarFoto(Produto produto, String fotoPath, boolean variantes) {
+        Long versao = transacao.execute(status -> {
+            long v = versaoCatalogoService.versaoDaTransacao();
+            jdbcTemplate.update("UPDATE produto SET foto_path = ?, foto_variantes = ?, versao_catalogo = ? WHERE id = ?",
+                    fotoPath, variantes, v, produto.getId());
+            return v;
+        });
+        produto.setFotoPath(fotoPath);
+        produto.setFotoVariantes(variantes);
+        produto.setVersaoCatalogo(versao);
+    }
+
+    // Arquivos com o mesmo hash podem ser de outro produto
+    private void removerSemUso(String fotoPath) {
+        if (produtoRepository.countByFotoPath(fotoPath) > 0) {
+            return;
+        }
+        Path diretorio = Paths.get(DIRETORIO);
+        try {
+            Files.deleteIfExists(diretorio.resolve(fotoPath));
+            for (String variante : VARIANTES.keySet()) {
+                Files.deleteIfExists(diretorio.resolve(nomeVariante(fotoPath, variante)));
+            }
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Erro ao remover foto " + fotoPath + ": " + e.getMessage());
+        }
+    }
+
+    // =========================================================================
+    // VARIANTES
+    // =========================================================================
+
+    /**
+     * Fotos gravadas antes das variantes existirem (ou cuja geração foi
+     * interrompida por um restart) entram na fila ao subir a aplicação.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void gerarPendentes() {
+        List<String> pendentes = jdbcTemplate.queryForList(
+                "SELECT DISTINCT foto_path FROM produto WHERE foto_path IS NOT NULL AND foto_variantes IS NOT TRUE",
+                String.class);
+        for (String fotoPath : pendentes) {
+            if (Files.exists(Paths.get(DIRETORIO).resolve(fotoPath))) {
+                geradores.execute(() -> gerarVariantes(fotoPath));
+            }
+        }
+    }
+
+    private void gerarVariantes(String fotoPath) {
+        long inicio = System.currentTimeMillis();
+        Path diretorio = Paths.get(DIRETORIO);
+        try {
+            BufferedImage imagem = ler(diretorio.resolve(fotoPath));
+            if (imagem == null) {
+                System.out.println("Foto sem variantes (formato ou tamanho não suportado): " + fotoPath);
+                return;
+            }
+            // Cada variante sai da anterior, que já é menor que o original
+            BufferedImage atual = paraRgb(imagem);
+            for (Map.Entry<String, Integer> variante : VARIANTES.entrySet()) {
+                atual = redimensionar(atual, variante.getValue());
+                gravarJpeg(atual, diretorio.resolve(nomeVariante(fotoPath, variante.getKey())));
+            }
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Erro ao gerar variantes de " + fotoPath + ": " + e.getMessage());
+            return;
+        }
+
+        List<Long> ids = transacao.execute(status -> {
+            List<Long> doArquivo = jdbcTemplate.queryForList(
+                    "SELECT id FROM produto WHERE foto_path = ?", Long.class, fotoPath);
+            if (!doArquivo.isEmpty()) {
+                jdbcTemplate.update("UPDATE produto SET foto_variantes = TRUE, versao_catalogo = ? WHERE foto_path = ?",
+                        versaoCatalogoService.versaoDaTransacao(), fotoPath);
+            }
+            return doArquivo;
+        });
+        if (ids != null && !ids.isEmpty()) {
+            eventPublisher.publishEvent(ProdutoAlteradoEvent.salvos(ids));
+        }
+        System.out.println("Variantes da foto " + fotoPath + " geradas em "
+                + (System.currentTimeMillis() - inicio) + " ms");
+    }
+
+    private static BufferedImage ler(Path arquivo) throws IOException {
+        try (ImageInputStream entrada = ImageIO.createImageInputStream(arquivo.toFile())) {
+            if (entrada == null) {
+                return null;
+            }
+            Iterator<ImageReader> leitores = ImageIO.getImageReaders(entrada);
+            if (!leitores.hasNext()) {
+                return null;
+            }
+            ImageReader leitor = leitores.next();
+            try {
+                leitor.setInput(entrada, true, true);
+                if ((long) leitor.getWidth(0) * leitor.getHeight(0) > MAXIMO_PIXELS) {
+                    return null;
+                }
+                return leitor.read(0);
+            } finally {
+                leitor.dispose();
+            }
+        }
+    }
+
+    // JPEG não tem transparência: fundo branco
+    private static BufferedImage paraRgb(BufferedImage imagem) {
+        if (imagem.getType() == BufferedImage.TYPE_INT_RGB) {
+            return imagem;
+        }
+        BufferedImage rgb = new BufferedImage(imagem.getWidth(), imagem.getHeight(), BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = rgb.createGraphics();
+        try {
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, rgb.getWidth(), rgb.getHeight());
+            g.drawImage(imagem, 0, 0, null);
+        } finally {
+            g.dispose();
+        }
+        return rgb;
+    }
+
+    /**
+     * Reduz para caber em maximo x maximo, sem ampliar. Reduções grandes vão
+     * pela metade a cada passo, o que evita o serrilhado da interpolação
+     * bilinear sem o custo da média por área.
+     */
+    private static BufferedImage redimensionar(BufferedImage imagem, int maximo) {
+        int largura = imagem.getWidth();
+        int altura = imagem.getHeight();
+        double escala = Math.min(1.0, (double) maximo / Math.max(largura, altura));
+        int alvoLargura = Math.max(1, (int) Math.round(largura * escala));
+        int alvoAltura = Math.max(1, (int) Math.round(altura * escala));
+
+        BufferedImage atual = imagem;
+        while (atual.getWidth() / 2 >= alvoLargura && atual.getHeight() / 2 >= alvoAltura) {
+            atual = desenhar(atual, atual.getWidth() / 2, atual.getHeight() / 2);
+        }
+        if (atual.getWidth() != alvoLargura || atual.getHeight() != alvoAltura) {
+            atual = desenhar(atual, alvoLargura, alvoAltura);
+        }
+        return atual;
+    }
+
+    private static BufferedImage desenhar(BufferedImage origem, int largura, int altura) {
+        BufferedImage destino = new BufferedImage(largura, altura, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = destino.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(origem, 0, 0, largura, altura, null);
+        } finally {
+            g.dispose();
+        }
+        return destino;
+    }
+
+    private static void gravarJpeg(BufferedImage imagem, Path destino) throws IOException {
+        ImageWriter escritor = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ImageWriteParam parametros = escritor.getDefaultWriteParam();
+        parametros.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        parametros.setCompressionQuality(QUALIDADE_JPEG);
+
+        Path temporario = Files.createTempFile(destino.getParent(), "variante", ".tmp");
+        try (OutputStream saida = Files.newOutputStream(temporario);
+             ImageOutputStream imagemSaida = ImageIO.createImageOutputStream(saida)) {
+            escritor.setOutput(imagemSaida);
+            escritor.write(null, new IIOImage(imagem, null, null), parametros);
+        } finally {
+            escritor.dispose();
+        }
+        Files.move(temporario, destino, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // abc123.png -> abc123_grid.jpg
+    private static String nomeVariante(String fotoPath, String variante) {
+        int ponto = fotoPath.lastIndexOf('.');
+        String base = ponto > 0 ? fotoPath.substring(0, ponto) : fotoPath;
+        return base + "_" + variante + ".jpg";
+    }
+
+    private static String hash(byte[] conteudo) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(conteudo);
+            // 128 bits bastam para o nome não colidir
+            return HexFormat.of().formatHex(digest, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Só letras e números: o nome vai para URL e disco
+    private static String extensao(String nomeOriginal) {
+        if (nomeOriginal == null || !nomeOriginal.contains(".")) {
+            return "";
+        }
+        String extensao = nomeOriginal.substring(nomeOriginal.lastIndexOf('.') + 1).toLowerCase(Locale.ROOT);
+        return extensao.matches("[a-z0-9]{1,5}") ? "." + extensao : "";
+    }
+}
@@ -0,0 +1,449 @@
+package com.caixafacil.pdv.service;
+
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.Session;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.caixafacil.pdv.dto.ImportacaoResultadoDTO;
+import com.caixafacil.pdv.model.Categoria;
+import com.caixafacil.pdv.model.MovimentacaoEstoque;
+import com.caixafacil.pdv.model.Produto;
+import com.caixafacil.pdv.model.ProdutoCodigo;
+import com.caixafacil.pdv.repository.CategoriaRepository;
+import com.caixafacil.pdv.repository.MovimentacaoEstoqueRepository;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Importação de produtos por planilha CSV (cadastro inicial de lojas).
+ *
+ * O arquivo é lido linha a linha e gravado em blocos, cada bloco em uma
+ * transação: produtos novos vão por persist com batch JDBC (ids por
+ * sequence) e produtos existentes — mesmo código principal — por UPDATE em
+ * batch. A unicidade dos códigos (principal e alternativos, nas duas tabelas)
+ * é conferida em memória antes de gravar.
+ *
+ * Colunas reconhecidas no cabeçalho (separador ";" ou ","): codigo e descricao
+ * (obrigatórias), unidade, categoria, precoVenda, precoCusto, estoque,
+ * estoqueMinimo, controlarEstoque, ativo e codigosAlternativos (separados por
+ * "|"). Célula vazia mantém o valor atual do produto existente. O estoque só
+ * é usado em produtos novos, como saldo inicial.
+ */
+@Service
+@RequiredArgsConstructor
+public class ImportacaoProdutoService {
+
+    public static final int MAXIMO_ERROS_RELATADOS = 1000;
+    private static final int TAMANHO_BLOCO = 1000;
+
+    private static final int TAMANHO_CODIGO = 255;
+    private static final int TAMANHO_CODIGO_ALTERNATIVO = 50;
+
+    private final CategoriaRepository categoriaRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final EntityManager entityManager;
+    private final JdbcTemplate jdbcTemplate;
+    private final MovimentacaoEstoqueRepository movimentacaoEstoqueRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final VersaoCatalogoService versaoCatalogoService;
+
+    private enum Coluna {
+        CODIGO("codigo"), DESCRICAO("descricao"), UNIDADE("unidade"), CATEGORIA("categoria"),
+        PRECO_VENDA("precovenda"), PRECO_CUSTO("precocusto"), ESTOQUE("estoque"),
+        ESTOQUE_MINIMO("estoqueminimo"), CONTROLAR_ESTOQUE("controlarestoque"), ATIVO("ativo"),
+        CODIGOS_ALTERNATIVOS("codigosalternativos");
+
+        final String nome;
+
+        Coluna(String nome) {
+            this.nome = nome;
+        }
+    }
+
+    /**
+     * Linha validada, aguardando gravação
+     */
+    private static final class Linha {
+        long numero;
+        Long produtoId;  // null = produto novo
+        String codigo;
+        String descricao;
+        String unidade;
+        Long categoriaId;
+        BigDecimal precoVenda;
+        BigDecimal precoCusto;
+        BigDecimal estoque;
+        BigDecimal estoqueMinimo;
+        Boolean controlarEstoque;
+        Boolean ativo;
+        List<String> novosCodigosAlternativos = new ArrayList<>();
+        List<String> codigosReservados = new ArrayList<>();
+    }
+
+    /**
+     * Estado de uma importação
+     */
+    private final class Importacao {
+        final ImportacaoResultadoDTO resultado = new ImportacaoResultadoDTO();
+        final Map<Coluna, Integer> colunas = new HashMap<>();
+        final TransactionTemplate transacao = new TransactionTemplate(transactionManager);
+        char separador;
+        String sqlAtualizacao;
+
+        // Código principal -> id do produto existente
+        final Map<String, Long> principais = new HashMap<>();
+        // Qualquer código (principal ou alternativo) -> dono; linhas novas usam -numeroDaLinha
+        final Map<String, Long> donos = new HashMap<>();
+        final Map<String, Long> categorias = new HashMap<>();
+
+        final List<Linha> bloco = new ArrayList<>(TAMANHO_BLOCO);
+    }
+
+    public ImportacaoResultadoDTO importar(InputStream entrada) throws IOException {
+        long inicio = System.currentTimeMillis();
+        Importacao imp = new Importacao();
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(entrada, StandardCharsets.UTF_8), 64 * 1024);
+        String cabecalho = reader.readLine();
+        if (cabecalho == null) {
+            throw new RuntimeException("Arquivo vazio");
+        }
+        lerCabecalho(imp, LeitorCsv.semBom(cabecalho));
+        carregarCodigosECategorias(imp);
+
+        String texto;
+        long numero = 1;
+        while ((texto = reader.readLine()) != null) {
+            numero++;
+            if (texto.isBlank()) {
+                continue;
+            }
+            imp.resultado.setLinhasLidas(imp.resultado.getLinhasLidas() + 1);
+
+            List<String> celulas = LeitorCsv.dividir(texto, imp.separador);
+            String codigo = celula(imp, celulas, Coluna.CODIGO);
+            try {
+                imp.bloco.add(validar(imp, numero, celulas));
+            } catch (RuntimeException e) {
+                erro(imp, numero, codigo, e.getMessage());
+            }
+
+            if (imp.bloco.size() >= TAMANHO_BLOCO) {
+                gravar(imp);
+            }
+        }
+        gravar(imp);
+
+        if (imp.resultado.getInseridos() + imp.resultado.getAtualizados() > 0) {
+            eventPublisher.publishEvent(ProdutoAlteradoEvent.catalogo());
+        }
+        imp.resultado.setTempoMs(System.currentTimeMillis() - inicio);
+        System.out.println("Importação de produtos: " + imp.resultado.getLinhasLidas() + " linhas, "
+                + imp.resultado.getInseridos() + " inseridos, " + imp.resultado.getAtualizados()
+                + " atualizados, " + imp.resultado.getTotalErros() + " erros em "
+                + imp.resultado.getTempoMs() + " ms");
+        return imp.resultado;
+    }
+
+    // =========================================================================
+    // PREPARAÇÃO
+    // =========================================================================
+
+    private void lerCabecalho(Importacao imp, String cabecalho) {
+        imp.separador = LeitorCsv.separador(cabecalho);
+        List<String> nomes = LeitorCsv.dividir(cabecalho, imp.separador);
+        for (int i = 0; i < nomes.size(); i++) {
+            String nome = LeitorCsv.nomeColuna(nomes.get(i));
+            for (Coluna coluna : Coluna.values()) {
+                if (coluna.nome.equals(nome)) {
+                    imp.colunas.put(coluna, i);
+                }
+            }
+        }
+        if (!imp.colunas.containsKey(Coluna.CODIGO) || !imp.colunas.containsKey(Coluna.DESCRICAO)) {
+            throw new RuntimeException("O cabeçalho precisa das colunas codigo e descricao");
+        }
+
+        // UPDATE só das colunas presentes; célula vazia mantém o valor atual
+        StringBuilder sql = new StringBuilder("UPDATE produto SET descricao = COALESCE(?, descricao)");
+        if (imp.colunas.containsKey(Coluna.UNIDADE)) sql.append(", unidade = COALESCE(?, unidade)");
+        if (imp.colunas.containsKey(Coluna.CATEGORIA)) sql.append(", categoria_id = COALESCE(?, categoria_id)");
+        if (imp.colunas.containsKey(Coluna.PRECO_VENDA)) sql.append(", preco_venda = COALESCE(?, preco_venda)");
+        if (imp.colunas.containsKey(Coluna.PRECO_CUSTO)) sql.append(", preco_custo = COALESCE(?, preco_custo)");
+        if (imp.colunas.containsKey(Coluna.ESTOQUE_MINIMO)) sql.append(", estoque_minimo = COALESCE(?, estoque_minimo)");
+        if (imp.colunas.containsKey(Coluna.CONTROLAR_ESTOQUE)) sql.append(", controlar_estoque = COALESCE(?, controlar_estoque)");
+        if (imp.colunas.containsKey(Coluna.ATIVO)) sql.append(", ativo = COALESCE(?, ativo)");
+        imp.sqlAtualizacao = sql.append(", versao_catalogo = ? WHERE id = ?").toString();
+    }
+
+    private void carregarCodigosECategorias(Importacao imp) {
+        jdbcTemplate.query("SELECT codigo, id FROM produto WHERE codigo IS NOT NULL", rs -> {
+            imp.principais.put(rs.getString(1), rs.getLong(2));
+            imp.donos.put(rs.getString(1), rs.getLong(2));
+        });
+        jdbcTemplate.query("SELECT codigo, produto_id FROM produtos_codigos", rs -> {
+            imp.donos.putIfAbsent(rs.getString(1), rs.getLong(2));
+        });
+        for (Categoria categoria : categoriaRepository.findAll()) {
+            imp.categorias.putIfAbsent(BuscaProdutoService.normalizar(categoria.getDescricao()), categoria.getId());
+        }
+    }
+
+    // =========================================================================
+    // VALIDAÇÃO
+    // =========================================================================
+
+    private Linha validar(Importacao imp, long numero, List<String> celulas) {
+        Linha linha = new Linha();
+        linha.numero = numero;
+        linha.codigo = celula(imp, celulas, Coluna.CODIGO);
+        linha.descricao = celula(imp, celulas, Coluna.DESCRICAO);
+
+        if (linha.codigo == null) {
+            throw new RuntimeException("Código vazio");
+        }
+        if (linha.codigo.length() > TAMANHO_CODIGO) {
+            throw new RuntimeException("Código com mais de " + TAMANHO_CODIGO + " caracteres");
+        }
+
+        linha.produtoId = imp.principais.get(linha.codigo);
+        if (linha.produtoId != null && linha.produtoId < 0) {
+            throw new RuntimeException("Código repetido no arquivo (linha " + (-linha.produtoId) + ")");
+        }
+        if (linha.produtoId == null && imp.donos.containsKey(linha.codigo)) {
+            throw new RuntimeException("Código já cadastrado como código alternativo de outro produto");
+        }
+        if (linha.produtoId == null && linha.descricao == null) {
+            throw new RuntimeException("Descrição vazia");
+        }
+
+        linha.unidade = celula(imp, celulas, Coluna.UNIDADE);
+        linha.precoVenda = decimal(imp, celulas, Coluna.PRECO_VENDA);
+        linha.precoCusto = decimal(imp, celulas, Coluna.PRECO_CUSTO);
+        linha.estoque = decimal(imp, celulas, Coluna.ESTOQUE);
+        linha.estoqueMinimo = decimal(imp, celulas, Coluna.ESTOQUE_MINIMO);
+        linha.controlarEstoque = booleano(imp, celulas, Coluna.CONTROLAR_ESTOQUE);
+        linha.ativo = booleano(imp, celulas, Coluna.ATIVO);
+
+        Long dono = linha.produtoId != null ? linha.produtoId : -numero;
+        Set<String> alternativos = new LinkedHashSet<>();
+        String textoAlternativos = celula(imp, celulas, Coluna.CODIGOS_ALTERNATIVOS);
+        if (textoAlternativos != null) {
+            for (String alternativo : textoAlternativos.split("\\|")) {
+                alternativo = alternativo.trim();
+                if (alternativo.isEmpty() || alternativo.equals(linha.codigo)) {
+                    continue;
+                }
+                if (alternativo.length() > TAMANHO_CODIGO_ALTERNATIVO) {
+                    throw new RuntimeException("Código alternativo com mais de "
+                            + TAMANHO_CODIGO_ALTERNATIVO + " caracteres: " + alternativo);
+                }
+                Long atual = imp.donos.get(alternativo);
+                if (atual != null && !atual.equals(dono)) {
+                    throw new RuntimeException("Código alternativo " + alternativo + " já pertence a outro produto");
+                }
+                if (atual == null) {
+                    alternativos.add(alternativo);
+                }
+            }
+        }
+
+        // Só depois da validação completa: reserva categoria e códigos
+        String categoria = celula(imp, celulas, Coluna.CATEGORIA);
+        if (categoria != null) {
+            linha.categoriaId = categoria(imp, categoria);
+        }
+        if (linha.produtoId == null) {
+            imp.principais.put(linha.codigo, dono);
+            imp.donos.put(linha.codigo, dono);
+            linha.codigosReservados.add(linha.codigo);
+        }
+        for (String alternativo : alternativos) {
+            imp.donos.put(alternativo, dono);
+            linha.codigosReservados.add(alternativo);
+            linha.novosCodigosAlternativos.add(alternativo);
+        }
+        return linha;
+    }
+
+    private Long categoria(Importacao imp, String descricao) {
+        String chave = BuscaProdutoService.normalizar(descricao);
+        Long id = imp.categorias.get(chave);
+        if (id == null) {
+            Categoria nova = new Categoria();
+            nova.setDescricao(descricao.length() > 100 ? descricao.substring(0, 100) : descricao);
+            id = categoriaRepository.save(nova).getId();
+            imp.categorias.put(chave, id);
+        }
+        return id;
+    }
+
+    // =========================================================================
+    // GRAVAÇÃO
+    // =========================================================================
+
+    private void gravar(Importacao imp) {
+        if (imp.bloco.isEmpty()) {
+            return;
+        }
+        List<Linha> bloco = new ArrayList<>(imp.bloco);
+        imp.bloco.clear();
+
+        try {
+            imp.transacao.executeWithoutResult(status -> gravarBloco(imp, bloco));
+            for (Linha linha : bloco) {
+                if (linha.produtoId == null) {
+                    imp.resultado.setInseridos(imp.resultado.getInseridos() + 1);
+                } else {
+                    imp.resultado.setAtualizados(imp.resultado.getAtualizados() + 1);
+                }
+            }
+        } catch (RuntimeException e) {
+            String mensagem = "Falha ao gravar o bloco: " + causa(e).getMessage();
+            for (Linha linha : bloco) {
+                linha.codigosReservados.forEach(codigo -> {
+                    imp.donos.remove(codigo);
+                    if (linha.produtoId == null) {
+                        imp.principais.remove(codigo);
+                    }
+                });
+                erro(imp, linha.numero, linha.codigo, mensagem);
+            }
+        } finally {
+            // Com open-in-view o EntityManager vive a requisição toda
+            entityManager.clear();
+        }
+    }
+
+    private void gravarBloco(Importacao imp, List<Linha> bloco) {
+        entityManager.unwrap(Session.class).setJdbcBatchSize(TAMANHO_BLOCO);
+
+        List<Object[]> atualizacoes = new ArrayList<>();
+        List<MovimentacaoEstoque> saldosIniciais = new ArrayList<>();
+        LocalDateTime agora = LocalDateTime.now();
+        for (Linha linha : bloco) {
+            if (linha.produtoId == null) {
+                Produto novo = novoProduto(linha, agora);
+                entityManager.persist(novo);
+                if (linha.estoque != null && linha.estoque.signum() != 0) {
+                    saldosIniciais.add(saldoInicial(novo, agora));
+                }
+            } else {
+                atualizacoes.add(parametrosAtualizacao(imp, linha, versaoCatalogoService.versaoDaTransacao()));
+                Produto existente = entityManager.getReference(Produto.class, linha.produtoId);
+                for (String codigo : linha.novosCodigosAlternativos) {
+                    entityManager.persist(codigoAlternativo(existente, codigo));
+                }
+            }
+        }
+        entityManager.flush();
+
+        if (!atualizacoes.isEmpty()) {
+            jdbcTemplate.batchUpdate(imp.sqlAtualizacao, atualizacoes);
+        }
+        // Depois do flush os produtos novos já têm id
+        movimentacaoEstoqueRepository.registrarEmLote(saldosIniciais);
+    }
+
+    private static MovimentacaoEstoque saldoInicial(Produto produto, LocalDateTime agora) {
+        MovimentacaoEstoque mov = new MovimentacaoEstoque();
+        mov.setProduto(produto);
+        mov.setTipo("SALDO_INICIAL");
+        mov.setQuantidade(produto.getEstoque());
+        mov.setEstoqueAnterior(BigDecimal.ZERO);
+        mov.setEstoqueAtual(produto.getEstoque());
+        mov.setMotivo("Importação de produtos");
+        mov.setDataHora(agora);
+        return mov;
+    }
+
+    private Produto novoProduto(Linha linha, LocalDateTime agora) {
+        Produto p = new Produto();
+        p.setCodigo(linha.codigo);
+        p.setDescricao(linha.descricao);
+        p.setUnidade(linha.unidade != null ? linha.unidade : "UN");
+        if (linha.categoriaId != null) {
+            p.setCategoria(entityManager.getReference(Categoria.class, linha.categoriaId));
+        }
+        if (linha.precoVenda != null) p.setPrecoVenda(linha.precoVenda);
+        if (linha.precoCusto != null) p.setPrecoCusto(linha.precoCusto);
+        if (linha.estoque != null) p.setEstoque(linha.estoque);
+        if (linha.estoqueMinimo != null) p.setEstoqueMinimo(linha.estoqueMinimo);
+        if (linha.controlarEstoque != null) p.setControlarEstoque(linha.controlarEstoque);
+        if (linha.ativo != null) p.setAtivo(linha.ativo);
+        p.setDataCadastro(agora);
+        for (String codigo : linha.novosCodigosAlternativos) {
+            p.getCodigosAlternativos().add(codigoAlternativo(p, codigo));
+        }
+        return p;
+    }
+
+    private static ProdutoCodigo codigoAlternativo(Produto produto, String codigo) {
+        ProdutoCodigo pc = new ProdutoCodigo();
+        pc.setProduto(produto);
+        pc.setCodigo(codigo);
+        return pc;
+    }
+
+    private static Object[] parametrosAtualizacao(Importacao imp, Linha linha, long versaoCatalogo) {
+        List<Object> params = new ArrayList<>();
+        params.add(linha.descricao);
+        if (imp.colunas.containsKey(Coluna.UNIDADE)) params.add(linha.unidade);
+        if (imp.colunas.containsKey(Coluna.CATEGORIA)) params.add(linha.categoriaId);
+        if (imp.colunas.containsKey(Coluna.PRECO_VENDA)) params.add(linha.precoVenda);
+        if (imp.colunas.containsKey(Coluna.PRECO_CUSTO)) params.add(linha.precoCusto);
+        if (imp.colunas.containsKey(Coluna.ESTOQUE_MINIMO)) params.add(linha.estoqueMinimo);
+        if (imp.colunas.containsKey(Coluna.CONTROLAR_ESTOQUE)) params.add(linha.controlarEstoque);
+        if (imp.colunas.containsKey(Coluna.ATIVO)) params.add(linha.ativo);
+        params.add(versaoCatalogo);
+        params.add(linha.produtoId);
+        return params.toArray();
+    }
+
+    // =========================================================================
+    // CSV
+    // =========================================================================
+
+    private static void erro(Importacao imp, long numero, String codigo, String mensagem) {
+        imp.resultado.setTotalErros(imp.resultado.getTotalErros() + 1);
+        if (imp.resultado.getErros().size() < MAXIMO_ERROS_RELATADOS) {
+            imp.resultado.getErros().add(new ImportacaoResultadoDTO.ErroLinha(numero, codigo, mensagem));
+        }
+    }
+
+    private static String celula(Importacao imp, List<String> celulas, Coluna coluna) {
+        return LeitorCsv.celula(celulas, imp.colunas.get(coluna));
+    }
+
+    private static BigDecimal decimal(Importacao imp, List<String> celulas, Coluna coluna) {
+        return LeitorCsv.decimal(celula(imp, celulas, coluna), coluna.nome);
+    }
+
+    private static Boolean booleano(Importacao imp, List<String> celulas, Coluna coluna) {
+        return LeitorCsv.booleano(celula(imp, celulas, coluna), coluna.nome);
+    }
+
+    private static Throwable causa(Throwable e) {
+        while (e.getCause() != null && e.getCause() != e) {
+            e = e.getCause();
+        }
+        return e;
+    }
+}
@@ -0,0 +1,132 @@
+package com.caixafacil.pdv.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.caixafacil.pdv.dto.ProdutoResumoDTO;
+import com.caixafacil.pdv.model.Produto;
+import com.caixafacil.pdv.model.ProdutoCodigo;
+import com.caixafacil.pdv.repository.ProdutoRepository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Índice em memória: código principal ou alternativo -> resumo do produto.
+ *
+ * Leituras não travam nem vão ao banco. Escritas (carga e atualização após
+ * ProdutoAlteradoEvent) são serializadas para que a troca de códigos de um
+ * produto não se misture com outra atualização do mesmo produto. A carga
+ * completa monta mapas novos ao lado e troca a referência de uma vez: as
+ * leituras continuam no índice antigo até lá, nunca num índice vazio.
+ */
+@Service
+@RequiredArgsConstructor
+public class IndiceCodigoBarrasService {
+
+    private final ProdutoRepository produtoRepository;
+
+    private volatile ConcurrentHashMap<String, ProdutoResumoDTO> porCodigo = new ConcurrentHashMap<>();
+    // Códigos indexados de cada produto, para remover os que deixaram de existir
+    // (só acessado com o lock do serviço)
+    private Map<Long, List<String>> codigosPorProduto = new HashMap<>();
+
+    public Optional<ProdutoResumoDTO> buscar(String codigo) {
+        if (codigo == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(porCodigo.get(codigo.trim()));
+    }
+
+    public int tamanho() {
+        return porCodigo.size();
+    }
+
+    // =========================================================================
+    // CARGA E ATUALIZAÇÃO
+    // =========================================================================
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void carregar() {
+        long inicio = System.currentTimeMillis();
+        ConcurrentHashMap<String, ProdutoResumoDTO> novoPorCodigo = new ConcurrentHashMap<>();
+        Map<Long, List<String>> novosCodigosPorProduto = new HashMap<>();
+        for (Produto produto : produtoRepository.listarCatalogo()) {
+            indexar(produto, novoPorCodigo, novosCodigosPorProduto);
+        }
+        codigosPorProduto = novosCodigosPorProduto;
+        porCodigo = novoPorCodigo;
+        System.out.println("Índice de códigos carregado: " + novoPorCodigo.size() + " códigos em "
+                + (System.currentTimeMillis() - inicio) + " ms");
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void aoAlterarProduto(ProdutoAlteradoEvent evento) {
+        if (evento.tipo() == ProdutoAlteradoEvent.Tipo.CATALOGO) {
+            carregar();
+            return;
+        }
+        atualizar(evento);
+    }
+
+    private synchronized void atualizar(ProdutoAlteradoEvent evento) {
+        List<Produto> produtos = evento.tipo() == ProdutoAlteradoEvent.Tipo.REMOVIDO
+                ? List.of()
+                : produtoRepository.findByIdIn(evento.ids());
+
+        Map<Long, Produto> encontrados = new HashMap<>();
+        produtos.forEach(p -> encontrados.put(p.getId(), p));
+
+        for (Long id : evento.ids()) {
+            remover(id);
+            Produto produto = encontrados.get(id);
+            if (produto != null) {
+                indexar(produto, porCodigo, codigosPorProduto);
+            }
+        }
+    }
+
+    private static void indexar(Produto produto, Map<String, ProdutoResumoDTO> porCodigo,
+                                Map<Long, List<String>> codigosPorProduto) {
+        ProdutoResumoDTO resumo = ProdutoResumoDTO.de(produto);
+        List<String> codigos = new ArrayList<>();
+
+        if (produto.getCodigosAlternativos() != null) {
+            for (ProdutoCodigo alternativo : produto.getCodigosAlternativos()) {
+                adicionar(alternativo.getCodigo(), resumo, codigos, porCodigo);
+            }
+        }
+        // Código principal por último: prevalece sobre um alternativo igual
+        adicionar(produto.getCodigo(), resumo, codigos, porCodigo);
+
+        codigosPorProduto.put(produto.getId(), codigos);
+    }
+
+    private static void adicionar(String codigo, ProdutoResumoDTO resumo, List<String> codigos,
+                                  Map<String, ProdutoResumoDTO> porCodigo) {
+        if (codigo == null || codigo.isBlank()) {
+            return;
+        }
+        String chave = codigo.trim();
+        porCodigo.put(chave, resumo);
+        codigos.add(chave);
+    }
+
+    private void remover(Long produtoId) {
+        List<String> codigos = codigosPorProduto.remove(produtoId);
+        if (codigos == null) {
+            return;
+        }
+        // Só remove se o código ainda aponta para este produto
+        for (String codigo : codigos) {
+            porCodigo.computeIfPresent(codigo, (c, atual) -> atual.id().equals(produtoId) ? null : atual);
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package com.caixafacil.pdv.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.caixafacil.pdv.model.Produto;
+import com.caixafacil.pdv.repository.ProdutoRepository;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Produtos em estoque baixo (estoque <= mínimo) e em alerta (até 20% acima
+ * do mínimo), mantidos em memória e ordenados pelo estoque. As telas de
+ * estoque consultam sem ir ao banco, com custo proporcional ao resultado.
+ *
+ * O banco só é lido por inteiro na subida (e quando o catálogo é trocado em
+ * massa); depois cada EstoqueAlteradoEvent ou ProdutoAlteradoEvent relê
+ * apenas os produtos afetados que estão na faixa de alerta. Produto que muda
+ * de faixa vira evento "estoque" para os terminais (NotificacaoService).
+ *
+ * Alterações de estoque (vendas, principalmente) não esperam a releitura: a
+ * thread do checkout só anota os ids, e uma thread própria relê os
+ * pendentes acumulados de uma vez.
+ */
+@Service
+@RequiredArgsConstructor
+public class IndiceEstoqueBaixoService {
+
+    private static final BigDecimal FATOR_ALERTA = new BigDecimal("1.2");
+
+    private static final Comparator<Produto> ORDEM = Comparator
+            .comparing(Produto::getEstoque)
+            .thenComparing(Produto::getId);
+
+    private final ProdutoRepository produtoRepository;
+    private final NotificacaoService notificacaoService;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Faixas faixas = new Faixas();
+
+    // Produtos com estoque alterado ainda não relidos
+    private final Set<Long> pendentes = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean agendado = new AtomicBoolean(false);
+    private final ExecutorService atualizador = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "indice-estoque-baixo");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /**
+     * Conjuntos ordenados pelo estoque, com índice por id para tirar o
+     * instantâneo anterior do produto quando ele muda
+     */
+    private static final class Faixas {
+        final Map<Long, Produto> porId = new HashMap<>();
+        final TreeSet<Produto> baixo = new TreeSet<>(ORDEM);
+        final TreeSet<Produto> alerta = new TreeSet<>(ORDEM);
+
+        String faixaDe(Long id) {
+            Produto produto = porId.get(id);
+            if (produto == null) {
+                return "NORMAL";
+            }
+            return baixo.contains(produto) ? "BAIXO" : "ALERTA";
+        }
+
+        void remover(Long id) {
+            Produto anterior = porId.remove(id);
+            if (anterior != null) {
+                baixo.remove(anterior);
+                alerta.remove(anterior);
+            }
+        }
+
+        void colocar(Produto produto) {
+            remover(produto.getId());
+            TreeSet<Produto> conjunto = faixa(produto);
+            if (conjunto != null) {
+                conjunto.add(produto);
+                porId.put(produto.getId(), produto);
+            }
+        }
+
+        private TreeSet<Produto> faixa(Produto p) {
+            BigDecimal estoque = p.getEstoque();
+            BigDecimal minimo = p.getEstoqueMinimo();
+            if (estoque == null || minimo == null) {
+                return null;
+            }
+            if (estoque.compareTo(minimo) <= 0) {
+                return baixo;
+            }
+            return estoque.compareTo(minimo.multiply(FATOR_ALERTA)) <= 0 ? alerta : null;
+        }
+    }
+
+    public List<Produto> estoqueBaixo() {
+        lock.readLock().lock();
+        try {
+            return new ArrayList<>(faixas.baixo);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<Produto> estoqueAlerta() {
+        lock.readLock().lock();
+        try {
+            return new ArrayList<>(faixas.alerta);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // =========================================================================
+    // CARGA E ATUALIZAÇÃO
+    // =========================================================================
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void carregar() {
+        long inicio = System.currentTimeMillis();
+        Faixas novas = new Faixas();
+        produtoRepository.listarEmAlerta(null).forEach(novas::colocar);
+
+        lock.writeLock().lock();
+        try {
+            faixas = novas;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        System.out.println("Estoque baixo/alerta carregado: " + novas.baixo.size() + " baixo, "
+                + novas.alerta.size() + " alerta em " + (System.currentTimeMillis() - inicio) + " ms");
+    }
+
+    // Depois do commit, sem segurar a resposta: a releitura vai para a fila
+    @TransactionalEventListener(fallbackExecution = true)
+    public void aoAlterarEstoque(EstoqueAlteradoEvent evento) {
+        pendentes.addAll(evento.produtoIds());
+        if (agendado.compareAndSet(false, true)) {
+            atualizador.execute(this::atualizarPendentes);
+        }
+    }
+
+    private void atualizarPendentes() {
+        agendado.set(false);
+        Set<Long> ids = new HashSet<>();
+        for (Iterator<Long> it = pendentes.iterator(); it.hasNext(); ) {
+            ids.add(it.next());
+            it.remove();
+        }
+        try {
+            atualizar(ids);
+        } catch (RuntimeException e) {
+            System.err.println("Erro ao atualizar estoque baixo de " + ids.size() + " produtos: " + e.getMessage());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void aoAlterarProduto(ProdutoAlteradoEvent evento) {
+        if (evento.tipo() == ProdutoAlteradoEvent.Tipo.CATALOGO) {
+            carregar();
+        } else {
+            atualizar(evento.ids());
+        }
+    }
+
+    @PreDestroy
+    void encerrar() {
+        atualizador.shutdownNow();
+    }
+
+    // Serializado com carregar(): a leitura do banco e a troca não se cruzam
+    private synchronized void atualizar(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        // Só volta do banco quem está na faixa; os demais saem dos conjuntos
+        List<Produto> emAlerta = produtoRepository.listarEmAlerta(ids);
+
+        Map<Long, Produto> anteriores = new HashMap<>();
+        Map<Long, String> faixasAnteriores = new HashMap<>();
+        Map<Long, String> faixasNovas = new HashMap<>();
+        lock.writeLock().lock();
+        try {
+            for (Long id : ids) {
+                faixasAnteriores.put(id, faixas.faixaDe(id));
+                Produto anterior = faixas.porId.get(id);
+                if (anterior != null) {
+                    anteriores.put(id, anterior);
+                }
+                faixas.remover(id);
+            }
+            emAlerta.forEach(faixas::colocar);
+            ids.forEach(id -> faixasNovas.put(id, faixas.faixaDe(id)));
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        // Fora do lock: só enfileira nos inscritos
+        Map<Long, Produto> atuais = new HashMap<>();
+        emAlerta.forEach(p -> atuais.put(p.getId(), p));
+        for (Long id : ids) {
+            String anterior = faixasAnteriores.get(id);
+            String nova = faixasNovas.get(id);
+            if (!anterior.equals(nova)) {
+                Produto p = atuais.getOrDefault(id, anteriores.get(id));
+                notificacaoService.publicarFaixaEstoque(id,
+                        p != null ? p.getCodigo() : null,
+                        p != null ? p.getDescricao() : null,
+                        atuais.containsKey(id) ? p.getEstoque() : null,
+                        p != null ? p.getEstoqueMinimo() : null,
+                        nova, anterior);
+            }
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.caixafacil.pdv.service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Leitura das planilhas CSV de produtos (importação e atualização em massa)
+ */
+final class LeitorCsv {
+
+    private LeitorCsv() {
+    }
+
+    /**
+     * ";" ou ",", o que aparecer mais no cabeçalho
+     */
+    static char separador(String cabecalho) {
+        return contar(cabecalho, ';') >= contar(cabecalho, ',') ? ';' : ',';
+    }
+
+    /**
+     * Nome de coluna comparável: "Preço Venda" -> "precovenda"
+     */
+    static String nomeColuna(String nome) {
+        return BuscaProdutoService.normalizar(nome).replace(" ", "");
+    }
+
+    static String semBom(String linha) {
+        return linha.startsWith("﻿") ? linha.substring(1) : linha;
+    }
+
+    // Campos entre aspas podem conter o separador; "" dentro de aspas é uma aspa
+    static List<String> dividir(String linha, char separador) {
+        List<String> celulas = new ArrayList<>();
+        StringBuilder atual = new StringBuilder();
+        boolean aspas = false;
+        for (int i = 0; i < linha.length(); i++) {
+            char c = linha.charAt(i);
+            if (aspas) {
+                if (c == '"' && i + 1 < linha.length() && linha.charAt(i + 1) == '"') {
+                    atual.append('"');
+                    i++;
+                } else if (c == '"') {
+                    aspas = false;
+                } else {
+                    atual.append(c);
+                }
+            } else if (c == '"') {
+                aspas = true;
+            } else if (c == separador) {
+                celulas.add(atual.toString());
+                atual.setLength(0);
+            } else {
+                atual.append(c);
+            }
+        }
+        celulas.add(atual.toString());
+        return celulas;
+    }
+
+    /**
+     * Célula sem espaços nas pontas, ou null se vazia ou ausente
+     */
+    static String celula(List<String> celulas, Integer indice) {
+        if (indice == null || indice >= celulas.size()) {
+            return null;
+        }
+        String valor = celulas.get(indice).trim();
+        return valor.isEmpty() ? null : valor;
+    }
+
+    // Aceita 1234.56 e 1.234,56
+    static BigDecimal decimal(String valor, String coluna) {
+        if (valor == null) {
+            return null;
+        }
+        String numero = valor.contains(",") ? valor.replace(".", "").replace(',', '.') : valor;
+        try {
+            return new BigDecimal(numero);
+        } catch (NumberFormatException e) {
+            throw new RuntimeException("Valor inválido em " + coluna + ": " + valor);
+        }
+    }
+
+    static Boolean booleano(String valor, String coluna) {
+        if (valor == null) {
+            return null;
+        }
+        switch (BuscaProdutoService.normalizar(valor)) {
+            case "true", "1", "s", "sim" -> {
+                return true;
+            }
+            case "false", "0", "n", "nao" -> {
+                return false;
+            }
+            default -> throw new RuntimeException("Valor inválido em " + coluna + ": " + valor);
+        }
+    }
+
+    private static int contar(String texto, char c) {
+        int n = 0;
+        for (int i = 0; i < texto.length(); i++) {
+            if (texto.charAt(i) == c) {
+                n++;
+            }
+        }
+        return n;
+    }
+}
@@ -0,0 +1,308 @@
+package com.caixafacil.pdv.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Eventos em tempo real para o frontend (Server-Sent Events), no lugar do
+ * polling: estoque que cruza o mínimo, abertura/fechamento/sangria/suprimento
+ * de caixa e vendas confirmadas.
+ *
+ * Cada inscrito tem uma fila limitada. Publicar só enfileira (nunca espera a
+ * rede); o envio roda em um pool pequeno, uma drenagem por inscrito de cada
+ * vez. Quem não acompanha e enche a fila é desconectado — o EventSource do
+ * navegador reconecta com Last-Event-ID e recebe o que ainda estiver no
+ * histórico. Se o que falta não couber na fila (ou já saiu do histórico),
+ * recebe um único evento "reset" no lugar, com o id mais recente, e recarrega
+ * o estado.
+ */
+@Service
+public class NotificacaoService {
+
+    public static final String ESTOQUE = "estoque";
+    public static final String CAIXA = "caixa";
+    public static final String VENDA = "venda";
+    public static final Set<String> TOPICOS = Set.of(ESTOQUE, CAIXA, VENDA);
+    // Reconexão que perdeu mais eventos do que dá para reenviar
+    public static final String RESET = "reset";
+
+    // O navegador reconecta sozinho quando a conexão expira
+    private static final long TIMEOUT_MS = 30 * 60 * 1000L;
+    private static final int TAMANHO_HISTORICO = 500;
+
+    private static final Evento PING = new Evento(0, null, null);
+
+    private final ObjectMapper objectMapper;
+    private final int tamanhoBuffer;
+    private final int maximoInscritos;
+
+    private final Set<Inscricao> inscricoes = ConcurrentHashMap.newKeySet();
+    private final AtomicLong sequencia = new AtomicLong();
+    private final ArrayDeque<Evento> historico = new ArrayDeque<>(TAMANHO_HISTORICO);
+
+    private final ExecutorService envio;
+
+    private record Evento(long id, String topico, String dados) {
+    }
+
+    private static final class Inscricao {
+        final SseEmitter emitter = new SseEmitter(TIMEOUT_MS);
+        final Set<String> topicos;
+        final ArrayBlockingQueue<Evento> fila;
+        final AtomicBoolean agendada = new AtomicBoolean(false);
+        final AtomicBoolean completada = new AtomicBoolean(false);
+        volatile boolean encerrada;
+
+        Inscricao(Set<String> topicos, int tamanhoBuffer) {
+            this.topicos = topicos;
+            this.fila = new ArrayBlockingQueue<>(tamanhoBuffer);
+        }
+    }
+
+    public NotificacaoService(ObjectMapper objectMapper,
+                              @Value("${pdv.eventos.buffer:256}") int tamanhoBuffer,
+                              @Value("${pdv.eventos.maximo-inscritos:500}") int maximoInscritos,
+                              @Value("${pdv.eventos.threads:2}") int threads) {
+        this.objectMapper = objectMapper;
+        this.tamanhoBuffer = tamanhoBuffer;
+        this.maximoInscritos = maximoInscritos;
+        AtomicInteger contador = new AtomicInteger();
+        this.envio = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "sse-envio-" + contador.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        inscricoes.forEach(this::descartar);
+        envio.shutdown();
+    }
+
+    public int inscritos() {
+        return inscricoes.size();
+    }
+
+    // =========================================================================
+    // INSCRIÇÃO
+    // =========================================================================
+
+    /**
+     * @param topicos   vazio = todos
+     * @param ultimoId  Last-Event-ID da reconexão: reenvia o que ainda está no histórico
+     */
+    public SseEmitter inscrever(Set<String> topicos, Long ultimoId) {
+        for (String topico : topicos) {
+            if (!TOPICOS.contains(topico)) {
+                throw new RuntimeException("Tópico inválido: " + topico + " (use " + String.join(", ", TOPICOS) + ")");
+            }
+        }
+        if (inscricoes.size() >= maximoInscritos) {
+            throw new RuntimeException("Limite de conexões de eventos atingido");
+        }
+
+        Inscricao inscricao = new Inscricao(topicos.isEmpty() ? TOPICOS : Set.copyOf(topicos), tamanhoBuffer);
+        inscricao.emitter.onCompletion(() -> descartar(inscricao));
+        inscricao.emitter.onTimeout(() -> descartar(inscricao));
+        inscricao.emitter.onError(e -> descartar(inscricao));
+        inscricoes.add(inscricao);
+
+        if (ultimoId != null) {
+            reenviar(inscricao, ultimoId);
+        }
+        // Comentário inicial: o navegador considera a conexão aberta
+        entregar(inscricao, PING);
+        return inscricao.emitter;
+    }
+
+    /**
+     * Reenvia o que o inscrito perdeu, se couber na fila (com uma vaga para o
+     * ping inicial); senão, manda só o reset, para ele não cair por fila
+     * cheia e reconectar com o mesmo Last-Event-ID sem fim.
+     */
+    private void reenviar(Inscricao inscricao, long ultimoId) {
+        List<Evento> perdidos = new ArrayList<>();
+        boolean lacuna;
+        synchronized (historico) {
+            if (historico.isEmpty() || ultimoId >= historico.peekLast().id()) {
+                return;
+            }
+            // Eventos entre ultimoId e o mais antigo do histórico já se perderam
+            lacuna = historico.peekFirst().id() > ultimoId + 1;
+            for (Evento evento : historico) {
+                if (lacuna) {
+                    break;
+                }
+                if (evento.id() > ultimoId && inscricao.topicos.contains(evento.topico())) {
+                    lacuna = perdidos.size() == tamanhoBuffer - 1;
+                    perdidos.add(evento);
+                }
+            }
+            if (lacuna) {
+                perdidos = List.of(new Evento(historico.peekLast().id(), RESET, "{}"));
+            }
+        }
+        if (lacuna) {
+            System.out.println("Reconexão de eventos além do histórico (Last-Event-ID " + ultimoId + "): reset");
+        }
+        perdidos.forEach(evento -> entregar(inscricao, evento));
+    }
+
+    // =========================================================================
+    // PUBLICAÇÃO
+    // =========================================================================
+
+    public void publicar(String topico, Object dados) {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(dados);
+        } catch (JsonProcessingException e) {
+            System.err.println("Erro ao serializar evento " + topico + ": " + e.getMessage());
+            return;
+        }
+
+        Evento evento;
+        // id e histórico na mesma ordem
+        synchronized (historico) {
+            evento = new Evento(sequencia.incrementAndGet(), topico, json);
+            if (historico.size() == TAMANHO_HISTORICO) {
+                historico.removeFirst();
+            }
+            historico.addLast(evento);
+        }
+        for (Inscricao inscricao : inscricoes) {
+            if (inscricao.topicos.contains(topico)) {
+                entregar(inscricao, evento);
+            }
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void aoFinalizarVenda(VendaFinalizadaEvent evento) {
+        publicar(VENDA, evento);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void aoMovimentarCaixa(CaixaMovimentadoEvent evento) {
+        publicar(CAIXA, evento);
+    }
+
+    /**
+     * Produto mudou de faixa de estoque (BAIXO, ALERTA ou NORMAL)
+     */
+    public void publicarFaixaEstoque(Long produtoId, String codigo, String descricao,
+                                     Object estoque, Object estoqueMinimo, String faixa, String faixaAnterior) {
+        Map<String, Object> dados = new LinkedHashMap<>();
+        dados.put("produtoId", produtoId);
+        dados.put("codigo", codigo);
+        dados.put("descricao", descricao);
+        dados.put("estoque", estoque);
+        dados.put("estoqueMinimo", estoqueMinimo);
+        dados.put("faixa", faixa);
+        dados.put("faixaAnterior", faixaAnterior);
+        publicar(ESTOQUE, dados);
+    }
+
+    // Mantém proxies e NAT sem derrubar conexões ociosas
+    @Scheduled(fixedDelayString = "${pdv.eventos.heartbeat-ms:15000}")
+    public void heartbeat() {
+        inscricoes.forEach(inscricao -> entregar(inscricao, PING));
+    }
+
+    // =========================================================================
+    // ENVIO
+    // =========================================================================
+
+    private void entregar(Inscricao inscricao, Evento evento) {
+        if (inscricao.encerrada) {
+            return;
+        }
+        if (!inscricao.fila.offer(evento)) {
+            System.out.println("Inscrito de eventos lento desconectado (fila cheia)");
+            descartar(inscricao);
+            return;
+        }
+        agendar(inscricao);
+    }
+
+    private void agendar(Inscricao inscricao) {
+        if (inscricao.agendada.compareAndSet(false, true)) {
+            try {
+                envio.execute(() -> drenar(inscricao));
+            } catch (RuntimeException e) {
+                // pool encerrado
+                inscricao.agendada.set(false);
+            }
+        }
+    }
+
+    private void drenar(Inscricao inscricao) {
+        try {
+            Evento evento;
+            while (!inscricao.encerrada && (evento = inscricao.fila.poll()) != null) {
+                if (evento == PING) {
+                    inscricao.emitter.send(SseEmitter.event().comment("ping"));
+                } else {
+                    inscricao.emitter.send(SseEmitter.event()
+                            .id(Long.toString(evento.id()))
+                            .name(evento.topico())
+                            .data(evento.dados(), MediaType.APPLICATION_JSON));
+                }
+            }
+        } catch (IOException | IllegalStateException e) {
+            // Cliente foi embora
+            descartar(inscricao);
+        } finally {
+            inscricao.agendada.set(false);
+        }
+
+        if (inscricao.encerrada) {
+            if (inscricao.completada.compareAndSet(false, true)) {
+                try {
+                    inscricao.emitter.complete();
+                } catch (RuntimeException ignored) {
+                }
+            }
+        } else if (!inscricao.fila.isEmpty()) {
+            // Eventos que chegaram enquanto a drenagem terminava
+            agendar(inscricao);
+        }
+    }
+
+    /**
+     * Tira da lista sem bloquear quem publica: o complete() (que disputa o
+     * emitter com um envio em andamento) roda na thread de envio.
+     */
+    private void descartar(Inscricao inscricao) {
+        if (inscricao.encerrada) {
+            return;
+        }
+        inscricao.encerrada = true;
+        inscricao.fila.clear();
+        agendar(inscricao);
+        inscricoes.remove(inscricao);
+    }
+}
@@ -0,0 +1,82 @@
+package com.caixafacil.pdv.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import com.caixafacil.pdv.repository.VendaRepository;
+
+/**
+ * Numeração de Venda.numeroDocumento.
+ *
+ * Cada nó reserva blocos de números em uma sequence do banco (cada
+ * nextval devolve o início de um bloco de TAMANHO_BLOCO números) e serve
+ * os números do bloco em memória. A sequence não volta em rollback nem
+ * em restart, então números nunca se repetem; números não usados de um
+ * bloco viram buracos na numeração.
+ */
+@Service
+public class NumeracaoDocumentoService {
+
+    static final String SEQUENCIA = "vendas_documento_seq";
+
+    // Fixo: a sequence é criada com INCREMENT BY igual a este valor
+    static final int TAMANHO_BLOCO = 20;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final VendaRepository vendaRepository;
+    private final Dialect dialect;
+
+    private long proximo;
+    private long limite;
+
+    public NumeracaoDocumentoService(JdbcTemplate jdbcTemplate,
+                                     VendaRepository vendaRepository,
+                                     EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.vendaRepository = vendaRepository;
+        this.dialect = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices()
+                .getDialect();
+    }
+
+    /**
+     * Garante que a sequence existe antes da primeira venda.
+     * Na criação ela parte do maior número já gravado, para bases antigas.
+     */
+    @PostConstruct
+    void inicializar() {
+        try {
+            reservarBloco();
+        } catch (DataAccessException e) {
+            long inicio = vendaRepository.findMaxNumeroDocumento() + 1;
+            try {
+                for (String sql : dialect.getSequenceSupport()
+                        .getCreateSequenceStrings(SEQUENCIA, (int) inicio, TAMANHO_BLOCO)) {
+                    jdbcTemplate.execute(sql);
+                }
+            } catch (DataAccessException criadaPorOutroNo) {
+                // outra instância criou a sequence ao mesmo tempo
+            }
+            reservarBloco();
+        }
+    }
+
+    public synchronized long proximoNumeroVenda() {
+        if (proximo >= limite) {
+            reservarBloco();
+        }
+        return proximo++;
+    }
+
+    private synchronized void reservarBloco() {
+        Long inicio = jdbcTemplate.queryForObject(
+                dialect.getSequenceSupport().getSequenceNextValString(SEQUENCIA), Long.class);
+        proximo = inicio;
+        limite = inicio + TAMANHO_BLOCO;
+    }
+}
@@ -0,0 +1,184 @@
+package com.caixafacil.pdv.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.caixafacil.pdv.model.EventoOutbox;
+import com.caixafacil.pdv.repository.EventoOutboxRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Drena a tabela de outbox em lotes e entrega os eventos aos OutboxHandler,
+ * em um pool de threads limitado, fora da thread do checkout.
+ *
+ * Cada lote é reservado por um tempo (lease); se o nó cair no meio,
+ * a reserva expira e o lote volta a ficar pendente.
+ */
+@Component
+public class OutboxDispatcher {
+
+    private static final long RESERVA_SEGUNDOS = 60;
+    private static final long ESPERA_MAXIMA_SEGUNDOS = 300;
+
+    private final EventoOutboxRepository eventoOutboxRepository;
+    private final TransactionTemplate transacao;
+    private final Map<String, OutboxHandler> handlers = new LinkedHashMap<>();
+    private final int tamanhoLote;
+
+    private final ThreadPoolExecutor workers;
+    private final ExecutorService drenagem = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "outbox-dispatcher");
+        t.setDaemon(true);
+        return t;
+    });
+    private final AtomicBoolean drenando = new AtomicBoolean(false);
+    private final AtomicBoolean sinal = new AtomicBoolean(false);
+
+    public OutboxDispatcher(EventoOutboxRepository eventoOutboxRepository,
+                            PlatformTransactionManager transactionManager,
+                            List<OutboxHandler> handlers,
+                            @Value("${pdv.outbox.tamanho-lote:200}") int tamanhoLote,
+                            @Value("${pdv.outbox.threads:2}") int threads) {
+        this.eventoOutboxRepository = eventoOutboxRepository;
+        this.transacao = new TransactionTemplate(transactionManager);
+        this.tamanhoLote = tamanhoLote;
+        for (OutboxHandler handler : handlers) {
+            this.handlers.put(handler.tipo(), handler);
+        }
+
+        AtomicInteger contador = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(threads * 4),
+                r -> {
+                    Thread t = new Thread(r, "outbox-worker-" + contador.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                // fila cheia: a própria thread de drenagem processa (backpressure)
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * Chamado depois do commit de uma transação que publicou eventos
+     */
+    public void acordar() {
+        sinal.set(true);
+        if (drenando.compareAndSet(false, true)) {
+            drenagem.execute(this::drenar);
+        }
+    }
+
+    /**
+     * Polling: pega eventos publicados antes de uma queda e os que aguardam nova tentativa
+     */
+    @Scheduled(fixedDelayString = "${pdv.outbox.intervalo-ms:5000}")
+    public void agendado() {
+        acordar();
+    }
+
+    // Limpeza diária dos eventos já processados
+    @Scheduled(cron = "${pdv.outbox.limpeza-cron:0 30 3 * * *}")
+    public void limpar() {
+        transacao.executeWithoutResult(status ->
+                eventoOutboxRepository.deleteProcessadosAntesDe(LocalDateTime.now().minusDays(7)));
+    }
+
+    private void drenar() {
+        try {
+            while (sinal.getAndSet(false)) {
+                List<EventoOutbox> lote;
+                do {
+                    lote = reservarLote();
+                    if (!lote.isEmpty()) {
+                        despachar(lote);
+                    }
+                } while (lote.size() >= tamanhoLote);
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Erro ao drenar outbox: " + e.getMessage());
+        } finally {
+            drenando.set(false);
+        }
+        // acordar() chamado enquanto esta drenagem terminava
+        if (sinal.get()) {
+            acordar();
+        }
+    }
+
+    private List<EventoOutbox> reservarLote() {
+        String idLote = UUID.randomUUID().toString();
+        return transacao.execute(status -> {
+            LocalDateTime agora = LocalDateTime.now();
+            List<Long> ids = eventoOutboxRepository.findIdsPendentes(agora, PageRequest.of(0, tamanhoLote));
+            if (ids.isEmpty()) {
+                return List.of();
+            }
+            eventoOutboxRepository.reservar(ids, idLote, agora.plusSeconds(RESERVA_SEGUNDOS), agora);
+            return eventoOutboxRepository.findByLoteOrderById(idLote);
+        });
+    }
+
+    private void despachar(List<EventoOutbox> lote) {
+        Map<String, List<EventoOutbox>> porTipo = lote.stream()
+                .collect(Collectors.groupingBy(EventoOutbox::getTipo, LinkedHashMap::new, Collectors.toList()));
+
+        List<Future<?>> tarefas = new ArrayList<>();
+        for (Map.Entry<String, List<EventoOutbox>> grupo : porTipo.entrySet()) {
+            tarefas.add(workers.submit(() -> processarGrupo(grupo.getKey(), grupo.getValue())));
+        }
+        for (Future<?> tarefa : tarefas) {
+            try {
+                tarefa.get();
+            } catch (Exception e) {
+                // falhas já foram registradas em processarGrupo
+            }
+        }
+    }
+
+    private void processarGrupo(String tipo, List<EventoOutbox> eventos) {
+        List<Long> ids = eventos.stream().map(EventoOutbox::getId).toList();
+        try {
+            OutboxHandler handler = handlers.get(tipo);
+            if (handler != null) {
+                handler.processar(eventos);
+            }
+            transacao.executeWithoutResult(status ->
+                    eventoOutboxRepository.marcarProcessados(ids, LocalDateTime.now()));
+        } catch (RuntimeException e) {
+            System.err.println("Erro ao processar eventos " + tipo + ": " + e.getMessage());
+            int tentativas = eventos.stream().mapToInt(EventoOutbox::getTentativas).max().orElse(0);
+            long espera = Math.min(1L << Math.min(tentativas, 16), ESPERA_MAXIMA_SEGUNDOS);
+            String erro = e.getMessage() != null && e.getMessage().length() > 1000
+                    ? e.getMessage().substring(0, 1000)
+                    : e.getMessage();
+            transacao.executeWithoutResult(status ->
+                    eventoOutboxRepository.marcarFalha(ids, LocalDateTime.now().plusSeconds(espera), erro));
+        }
+    }
+
+    @PreDestroy
+    void encerrar() {
+        drenagem.shutdown();
+        workers.shutdown();
+    }
+}
@@ -0,0 +1,18 @@
+package com.caixafacil.pdv.service;
+
+import com.caixafacil.pdv.model.EventoOutbox;
+
+import java.util.List;
+
+/**
+ * Processa, em lote, os eventos de outbox de um tipo.
+ *
+ * A entrega é "pelo menos uma vez": depois de uma queda o mesmo evento
+ * pode chegar de novo, então o processamento precisa ser idempotente.
+ */
+public interface OutboxHandler {
+
+    String tipo();
+
+    void processar(List<EventoOutbox> eventos);
+}
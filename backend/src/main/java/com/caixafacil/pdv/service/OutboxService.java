@@ -0,0 +1,44 @@
+package com.caixafacil.pdv.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.caixafacil.pdv.model.EventoOutbox;
+import com.caixafacil.pdv.repository.EventoOutboxRepository;
+
+import java.time.LocalDateTime;
+
+@Service
+@RequiredArgsConstructor
+public class OutboxService {
+
+    public static final String VENDA_FINALIZADA = "VENDA_FINALIZADA";
+
+    private final EventoOutboxRepository eventoOutboxRepository;
+    private final OutboxDispatcher outboxDispatcher;
+
+    /**
+     * Grava o evento na transação corrente. Depois do commit o dispatcher
+     * é acordado; se o processo cair antes disso, o polling pega o evento.
+     */
+    public void publicar(String tipo, Long agregadoId, String payload) {
+        EventoOutbox evento = new EventoOutbox();
+        evento.setTipo(tipo);
+        evento.setAgregadoId(agregadoId);
+        evento.setPayload(payload);
+        evento.setDataHora(LocalDateTime.now());
+        evento.setProximaTentativa(evento.getDataHora());
+        eventoOutboxRepository.save(evento);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    outboxDispatcher.acordar();
+                }
+            });
+        }
+    }
+}
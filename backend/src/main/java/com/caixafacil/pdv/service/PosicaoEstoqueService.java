@@ -0,0 +1,90 @@
+package com.caixafacil.pdv.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.caixafacil.pdv.dto.PosicaoEstoqueDTO;
+import com.caixafacil.pdv.repository.MovimentacaoEstoqueRepository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Estoque numa data passada, a partir do livro de movimentações
+ * (estoque_movimentacao), que recebe toda alteração de estoque, vendas
+ * inclusive.
+ *
+ * Periodicamente grava-se um snapshot do estoque de todos os produtos; a
+ * posição numa data lê o snapshot anterior a ela e só as movimentações
+ * seguintes, então o custo não cresce com o tamanho do livro.
+ *
+ * O snapshot é tirado com uma margem para trás: uma venda que carimbou a
+ * hora antes do corte, mas ainda não tinha feito commit, já estará visível.
+ */
+@Service
+public class PosicaoEstoqueService {
+
+    private final MovimentacaoEstoqueRepository movimentacaoEstoqueRepository;
+    private final TransactionTemplate transacao;
+    private final long margemMinutos;
+    private final long retencaoDias;
+
+    public PosicaoEstoqueService(MovimentacaoEstoqueRepository movimentacaoEstoqueRepository,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${pdv.estoque.snapshot-margem-minutos:5}") long margemMinutos,
+                                 @Value("${pdv.estoque.snapshot-retencao-dias:90}") long retencaoDias) {
+        this.movimentacaoEstoqueRepository = movimentacaoEstoqueRepository;
+        this.transacao = new TransactionTemplate(transactionManager);
+        this.margemMinutos = margemMinutos;
+        this.retencaoDias = retencaoDias;
+    }
+
+    /**
+     * Estoque do produto no instante informado
+     */
+    public PosicaoEstoqueDTO estoqueEm(Long produtoId, LocalDateTime em) {
+        BigDecimal estoque = movimentacaoEstoqueRepository.estoqueEm(produtoId, em)
+                .orElseThrow(() -> new RuntimeException("Produto não encontrado: " + produtoId));
+        return new PosicaoEstoqueDTO(produtoId, estoque);
+    }
+
+    /**
+     * Estoque de todos os produtos no instante informado, em ordem de id
+     */
+    public List<PosicaoEstoqueDTO> posicaoEm(LocalDateTime em) {
+        Map<Long, BigDecimal> posicao = movimentacaoEstoqueRepository.posicaoEm(em);
+        List<PosicaoEstoqueDTO> resultado = new ArrayList<>(posicao.size());
+        posicao.forEach((id, estoque) -> resultado.add(new PosicaoEstoqueDTO(id, estoque)));
+        return resultado;
+    }
+
+    @Scheduled(cron = "${pdv.estoque.snapshot-cron:0 0 2 * * *}")
+    public void agendado() {
+        gerarSnapshot();
+    }
+
+    /**
+     * Grava o snapshot de todos os produtos e descarta os que passaram da
+     * retenção (posições mais antigas continuam saindo direto do livro)
+     *
+     * @return quantidade de produtos gravados
+     */
+    public int gerarSnapshot() {
+        LocalDateTime corte = LocalDateTime.now().minusMinutes(margemMinutos).truncatedTo(ChronoUnit.SECONDS);
+        long inicio = System.currentTimeMillis();
+        Integer gravados = transacao.execute(status -> {
+            movimentacaoEstoqueRepository.removerSnapshotsAntes(corte.minusDays(retencaoDias));
+            return movimentacaoEstoqueRepository.gerarSnapshot(corte);
+        });
+        System.out.println("Snapshot de estoque em " + corte + ": " + gravados + " produtos em "
+                + (System.currentTimeMillis() - inicio) + " ms");
+        return gravados;
+    }
+}
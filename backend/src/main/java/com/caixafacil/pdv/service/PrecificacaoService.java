@@ -0,0 +1,206 @@
+package com.caixafacil.pdv.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.caixafacil.pdv.dto.VendaDTO;
+import com.caixafacil.pdv.dto.VendaItemDTO;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Recalcula no servidor os totais de itens e da venda enviados pelo PDV.
+ *
+ * As contas são feitas em long, em ponto fixo: valores em milionésimos de
+ * real, quantidades em milésimos e percentuais em décimos de milésimo de
+ * ponto percentual. O arredondamento para centavos (HALF_UP) só acontece no
+ * final, como o front, que calcula em double e arredonda na exibição.
+ *
+ * A ordem das operações é a mesma de calcularTotalItem/calcularTotal do
+ * PDV.tsx: desconto %, desconto em valor, acréscimo %, acréscimo em valor
+ * (e frete, na venda), sem deixar o total negativo.
+ */
+@Service
+public class PrecificacaoService {
+
+    public enum Modo {
+        CORRIGIR,   // grava os totais calculados no servidor
+        REJEITAR,   // recusa a venda se algum total divergir
+        DESLIGADO   // confia nos totais enviados
+    }
+
+    static final int CASAS_VALOR = 6;
+    static final int CASAS_QUANTIDADE = 3;
+    static final int CASAS_PERCENTUAL = 4;
+
+    private static final long UNIDADE_QUANTIDADE = 1_000L;
+    private static final long CEM_POR_CENTO = 100L * 10_000L;
+    private static final long MICROS_POR_CENTAVO = 10_000L;
+
+    private final Modo modo;
+    private final long toleranciaCentavos;
+
+    public PrecificacaoService(
+            @Value("${pdv.precificacao.modo:CORRIGIR}") Modo modo,
+            @Value("${pdv.precificacao.tolerancia-centavos:1}") long toleranciaCentavos) {
+        this.modo = modo;
+        this.toleranciaCentavos = toleranciaCentavos;
+    }
+
+    /**
+     * Confere (e, no modo CORRIGIR, sobrescreve) os totais do DTO
+     */
+    public void aplicar(VendaDTO venda) {
+        if (modo == Modo.DESLIGADO) {
+            return;
+        }
+
+        List<VendaItemDTO> itens = venda.getItens() != null ? venda.getItens() : List.of();
+        long subtotal = 0;
+        for (int i = 0; i < itens.size(); i++) {
+            VendaItemDTO item = itens.get(i);
+            long total = totalItem(
+                    micros(item.getPrecoUnitario()),
+                    item.getQuantidade() != null ? milesimos(item.getQuantidade()) : UNIDADE_QUANTIDADE,
+                    percentual(item.getDescontoPercentual()),
+                    micros(item.getDescontoValor()),
+                    percentual(item.getAcrescimoPercentual()),
+                    micros(item.getAcrescimoValor()));
+            subtotal = Math.addExact(subtotal, total);
+            conferir("item " + (i + 1), item.getTotal(), total, item::setTotal);
+        }
+
+        long total = totalVenda(
+                subtotal,
+                percentual(venda.getDescontoPercentual()),
+                micros(venda.getDescontoValor()),
+                percentual(venda.getAcrescimoPercentual()),
+                micros(venda.getAcrescimoValor()),
+                micros(venda.getFrete()));
+
+        conferir("subtotal", venda.getSubtotal(), subtotal, venda::setSubtotal);
+        conferir("total", venda.getTotal(), total, venda::setTotal);
+    }
+
+    // =========================================================================
+    // NÚCLEO EM PONTO FIXO — sem BigDecimal, sem alocação
+    // =========================================================================
+
+    /**
+     * Total do item em milionésimos de real
+     */
+    static long totalItem(long preco, long quantidade, long descontoPercentual, long descontoValor,
+                          long acrescimoPercentual, long acrescimoValor) {
+        long total = mulDiv(preco, quantidade, UNIDADE_QUANTIDADE);
+        return ajustar(total, descontoPercentual, descontoValor, acrescimoPercentual, acrescimoValor, 0);
+    }
+
+    /**
+     * Total da venda em milionésimos de real
+     */
+    static long totalVenda(long subtotal, long descontoPercentual, long descontoValor,
+                           long acrescimoPercentual, long acrescimoValor, long frete) {
+        return ajustar(subtotal, descontoPercentual, descontoValor, acrescimoPercentual, acrescimoValor, frete);
+    }
+
+    private static long ajustar(long total, long descontoPercentual, long descontoValor,
+                                long acrescimoPercentual, long acrescimoValor, long frete) {
+        if (descontoPercentual > 0) {
+            total -= mulDiv(total, descontoPercentual, CEM_POR_CENTO);
+        }
+        if (descontoValor > 0) {
+            total -= descontoValor;
+        }
+        if (acrescimoPercentual > 0) {
+            total += mulDiv(total, acrescimoPercentual, CEM_POR_CENTO);
+        }
+        if (acrescimoValor > 0) {
+            total += acrescimoValor;
+        }
+        if (frete > 0) {
+            total += frete;
+        }
+        return Math.max(0, total);
+    }
+
+    /**
+     * a * b / c arredondado (HALF_UP), com produto intermediário de 128 bits
+     */
+    static long mulDiv(long a, long b, long c) {
+        long alto = Math.multiplyHigh(a, b);
+        long baixo = a * b;
+        if ((alto == 0 && baixo >= 0) || (alto == -1 && baixo < 0)) {
+            return dividirArredondando(baixo, c);
+        }
+        // Produto não cabe em 64 bits: caminho lento, só para valores absurdos
+        BigInteger[] qr = BigInteger.valueOf(a).multiply(BigInteger.valueOf(b))
+                .divideAndRemainder(BigInteger.valueOf(c));
+        long quociente = qr[0].longValueExact();
+        if (qr[1].abs().shiftLeft(1).compareTo(BigInteger.valueOf(c)) >= 0) {
+            quociente += qr[1].signum();
+        }
+        return quociente;
+    }
+
+    static long dividirArredondando(long n, long d) {
+        long q = n / d;
+        long r = n % d;
+        if (Math.abs(r) * 2 >= d) {
+            q += Long.signum(n);
+        }
+        return q;
+    }
+
+    // =========================================================================
+    // CONVERSÕES E CONFERÊNCIA
+    // =========================================================================
+
+    private void conferir(String campo, BigDecimal enviado, long calculado, Consumer<BigDecimal> corrigir) {
+        long calculadoCentavos = dividirArredondando(calculado, MICROS_POR_CENTAVO);
+        BigDecimal valorCalculado = BigDecimal.valueOf(calculadoCentavos, 2);
+
+        if (enviado == null) {
+            corrigir.accept(valorCalculado);
+            return;
+        }
+
+        long enviadoCentavos = enviado.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+        if (Math.abs(enviadoCentavos - calculadoCentavos) <= toleranciaCentavos) {
+            return;
+        }
+
+        if (modo == Modo.REJEITAR) {
+            throw new RuntimeException("Valor divergente no " + campo + ": enviado " + enviado
+                    + ", calculado " + valorCalculado);
+        }
+        System.out.println("Precificação: " + campo + " corrigido de " + enviado + " para " + valorCalculado);
+        corrigir.accept(valorCalculado);
+    }
+
+    private static long micros(BigDecimal valor) {
+        return paraLong(valor, CASAS_VALOR);
+    }
+
+    private static long milesimos(BigDecimal valor) {
+        return paraLong(valor, CASAS_QUANTIDADE);
+    }
+
+    private static long percentual(BigDecimal valor) {
+        return paraLong(valor, CASAS_PERCENTUAL);
+    }
+
+    private static long paraLong(BigDecimal valor, int casas) {
+        if (valor == null) {
+            return 0;
+        }
+        try {
+            return valor.movePointRight(casas).setScale(0, RoundingMode.HALF_UP).longValueExact();
+        } catch (ArithmeticException e) {
+            throw new RuntimeException("Valor fora da faixa permitida: " + valor);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.caixafacil.pdv.service;
+
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * Publicado quando produtos são criados, alterados ou removidos, para que os
+ * índices em memória se atualizem. Ouvintes usam @TransactionalEventListener:
+ * dentro de uma transação o evento só é entregue depois do commit.
+ *
+ * @param ids  produtos afetados (vazio quando tipo = CATALOGO)
+ * @param tipo SALVO, REMOVIDO ou CATALOGO (alteração em massa: recarregar tudo)
+ */
+public record ProdutoAlteradoEvent(Set<Long> ids, Tipo tipo) {
+
+    public enum Tipo { SALVO, REMOVIDO, CATALOGO }
+
+    public static ProdutoAlteradoEvent salvo(Long id) {
+        return new ProdutoAlteradoEvent(Set.of(id), Tipo.SALVO);
+    }
+
+    public static ProdutoAlteradoEvent salvos(Collection<Long> ids) {
+        return new ProdutoAlteradoEvent(Set.copyOf(ids), Tipo.SALVO);
+    }
+
+    public static ProdutoAlteradoEvent removido(Long id) {
+        return new ProdutoAlteradoEvent(Set.of(id), Tipo.REMOVIDO);
+    }
+
+    public static ProdutoAlteradoEvent catalogo() {
+        return new ProdutoAlteradoEvent(Set.of(), Tipo.CATALOGO);
+    }
+}
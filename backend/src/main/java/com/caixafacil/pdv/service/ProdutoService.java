@@ -1,9 +1,11 @@
 package com.caixafacil.pdv.service;
 
 import java.util.List;
+import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.caixafacil.pdv.model.Produto;
 import com.caixafacil.pdv.repository.ProdutoRepository;
@@ -13,12 +15,58 @@ public class ProdutoService {
 
     @Autowired
     private ProdutoRepository produtoRepository;
+    @Autowired
+    private EstoqueService estoqueService;
+    @Autowired
+    private IndiceEstoqueBaixoService indiceEstoqueBaixoService;
+
+    /**
+     * Produto novo: o estoque informado entra no livro como saldo inicial,
+     * na mesma transação do cadastro.
+     */
+    @Transactional
+    public Produto criar(Produto produto) {
+        Produto salvo = produtoRepository.saveAndFlush(produto);
+        estoqueService.registrarSaldoInicial(salvo);
+        return salvo;
+    }
+
+    /**
+     * Edição do cadastro. O estoque não é copiado para a entidade (a coluna
+     * não é gravada pelo JPA, ver Produto): se o valor enviado difere do
+     * atual, a diferença vira um AJUSTE na mesma transação, então uma venda
+     * concluída enquanto o formulário estava aberto não é sobrescrita.
+     */
+    @Transactional
+    public Optional<Produto> atualizar(Long id, Produto dados) {
+        if (!produtoRepository.existsById(id)) {
+            return Optional.empty();
+        }
+        if (dados.getEstoque() != null) {
+            estoqueService.definirPeloCadastro(id, dados.getEstoque());
+        }
+
+        // Carregado depois do ajuste: já traz o estoque resultante
+        Produto p = produtoRepository.findById(id).orElseThrow();
+        p.setCodigo(dados.getCodigo());
+        p.setDescricao(dados.getDescricao());
+        p.setUnidade(dados.getUnidade());
+        p.setCategoria(dados.getCategoria());
+        p.setPrecoVenda(dados.getPrecoVenda());
+        p.setPrecoCusto(dados.getPrecoCusto());
+        p.setEstoqueMinimo(dados.getEstoqueMinimo());
+        p.setControlarEstoque(dados.getControlarEstoque());
+        p.setAtivo(dados.getAtivo());
+        p.setObservacoes(dados.getObservacoes());
+        return Optional.of(produtoRepository.save(p));
+    }
 
+    // Servidos da memória, já ordenados pelo estoque
     public List<Produto> buscarEstoqueBaixo() {
-        return produtoRepository.findEstoqueBaixo();
+        return indiceEstoqueBaixoService.estoqueBaixo();
     }
 
     public List<Produto> buscarEstoqueAlerta() {
-        return produtoRepository.findEstoqueAlerta();
+        return indiceEstoqueBaixoService.estoqueAlerta();
     }
 }
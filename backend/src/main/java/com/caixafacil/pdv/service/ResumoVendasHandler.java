@@ -0,0 +1,57 @@
+package com.caixafacil.pdv.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.caixafacil.pdv.model.EventoOutbox;
+import com.caixafacil.pdv.model.ResumoVendaDia;
+import com.caixafacil.pdv.repository.ResumoVendaDiaRepository;
+import com.caixafacil.pdv.repository.VendaRepository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Mantém o resumo diário de vendas a partir dos eventos VENDA_FINALIZADA.
+ * Recalcula o dia inteiro em vez de somar a venda: reentregar o evento
+ * não conta a venda duas vezes.
+ */
+@Component
+@RequiredArgsConstructor
+public class ResumoVendasHandler implements OutboxHandler {
+
+    private final VendaRepository vendaRepository;
+    private final ResumoVendaDiaRepository resumoVendaDiaRepository;
+
+    @Override
+    public String tipo() {
+        return OutboxService.VENDA_FINALIZADA;
+    }
+
+    @Override
+    @Transactional
+    public void processar(List<EventoOutbox> eventos) {
+        List<Long> vendaIds = eventos.stream().map(EventoOutbox::getAgregadoId).toList();
+
+        Set<LocalDate> dias = new TreeSet<>();
+        for (LocalDateTime dataHora : vendaRepository.findDataHoraByIdIn(vendaIds)) {
+            dias.add(dataHora.toLocalDate());
+        }
+
+        for (LocalDate dia : dias) {
+            Object[] totais = vendaRepository.totalizarPeriodo(dia.atStartOfDay(), dia.plusDays(1).atStartOfDay()).get(0);
+
+            ResumoVendaDia resumo = resumoVendaDiaRepository.findById(dia).orElseGet(ResumoVendaDia::new);
+            resumo.setData(dia);
+            resumo.setQuantidadeVendas(((Number) totais[0]).longValue());
+            resumo.setValorTotal(new BigDecimal(totais[1].toString()));
+            resumo.setAtualizadoEm(LocalDateTime.now());
+            resumoVendaDiaRepository.save(resumo);
+        }
+    }
+}
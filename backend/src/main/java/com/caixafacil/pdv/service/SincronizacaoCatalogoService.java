@@ -0,0 +1,64 @@
+package com.caixafacil.pdv.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.caixafacil.pdv.dto.AlteracoesCatalogoDTO;
+import com.caixafacil.pdv.model.CatalogoExclusao;
+import com.caixafacil.pdv.repository.CatalogoExclusaoRepository;
+import com.caixafacil.pdv.repository.CategoriaRepository;
+import com.caixafacil.pdv.repository.FormaPagamentoRepository;
+import com.caixafacil.pdv.repository.ProdutoRepository;
+
+/**
+ * Sincronização incremental do catálogo dos terminais: devolve só o que
+ * mudou depois da versão que o terminal já tem.
+ */
+@Service
+@RequiredArgsConstructor
+public class SincronizacaoCatalogoService {
+
+    private final VersaoCatalogoService versaoCatalogoService;
+    private final ProdutoRepository produtoRepository;
+    private final CategoriaRepository categoriaRepository;
+    private final FormaPagamentoRepository formaPagamentoRepository;
+    private final CatalogoExclusaoRepository catalogoExclusaoRepository;
+
+    /**
+     * Alterações com versão em (desde, versaoAtual]. Sem "desde" (ou 0)
+     * devolve o catálogo inteiro, sem exclusões.
+     */
+    @Transactional(readOnly = true)
+    public AlteracoesCatalogoDTO alteracoes(Long desde) {
+        // Lida antes dos registros: tudo até aqui já está confirmado e o que
+        // for gravado durante a leitura sai na próxima chamada
+        long ate = versaoCatalogoService.versaoAtual();
+
+        AlteracoesCatalogoDTO resposta = new AlteracoesCatalogoDTO();
+        resposta.setVersao(ate);
+
+        if (desde == null || desde <= 0) {
+            resposta.setCompleto(true);
+            resposta.setProdutos(produtoRepository.listarCatalogo());
+            resposta.setCategorias(categoriaRepository.findAll());
+            resposta.setFormasPagamento(formaPagamentoRepository.findAll());
+            return resposta;
+        }
+        if (desde > ate) {
+            throw new RuntimeException("Versão " + desde + " é maior que a atual (" + ate + ")");
+        }
+        if (desde == ate) {
+            return resposta;
+        }
+
+        resposta.setProdutos(produtoRepository.listarCatalogoAlterado(desde, ate));
+        resposta.setCategorias(categoriaRepository.findAlteradas(desde, ate));
+        resposta.setFormasPagamento(formaPagamentoRepository.findAlteradas(desde, ate));
+        for (CatalogoExclusao exclusao : catalogoExclusaoRepository.findAlteradas(desde, ate)) {
+            resposta.getExclusoes().add(
+                    new AlteracoesCatalogoDTO.Exclusao(exclusao.getEntidade(), exclusao.getEntidadeId()));
+        }
+        return resposta;
+    }
+}
@@ -0,0 +1,236 @@
+package com.caixafacil.pdv.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.caixafacil.pdv.dto.SugestaoDTO;
+import com.caixafacil.pdv.model.Cliente;
+import com.caixafacil.pdv.model.Produto;
+import com.caixafacil.pdv.model.ProdutoCodigo;
+import com.caixafacil.pdv.repository.ClienteRepository;
+import com.caixafacil.pdv.repository.ProdutoRepository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Autocompletar de produtos (descrição, código e códigos alternativos) e
+ * clientes (nome e código). Cada palavra do texto também vira chave, então
+ * "lata" sugere "COCA COLA LATA".
+ */
+@Service
+@RequiredArgsConstructor
+public class SugestaoService {
+
+    public static final String PRODUTO = "PRODUTO";
+    public static final String CLIENTE = "CLIENTE";
+
+    private final ProdutoRepository produtoRepository;
+    private final ClienteRepository clienteRepository;
+
+    private final Indice produtos = new Indice();
+    private final Indice clientes = new Indice();
+
+    /**
+     * Trie mais o que foi indexado por entidade, para poder remover depois
+     */
+    private static final class Indice {
+        final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        TrieSugestoes trie = new TrieSugestoes();
+        Map<Long, SugestaoDTO> sugestoes = new HashMap<>();
+        Map<Long, Set<String>> chaves = new HashMap<>();
+
+        List<SugestaoDTO> buscar(String prefixo, int limite) {
+            lock.readLock().lock();
+            try {
+                return trie.buscar(prefixo, limite);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        // Chamado com o write lock
+        void remover(Long id) {
+            SugestaoDTO antiga = sugestoes.remove(id);
+            Set<String> antigas = chaves.remove(id);
+            if (antiga != null && antigas != null) {
+                antigas.forEach(chave -> trie.remover(chave, antiga));
+            }
+        }
+
+        // Chamado com o write lock
+        void adicionar(SugestaoDTO sugestao, Set<String> chavesSugestao) {
+            sugestoes.put(sugestao.id(), sugestao);
+            chaves.put(sugestao.id(), chavesSugestao);
+            chavesSugestao.forEach(chave -> trie.adicionar(chave, sugestao));
+        }
+    }
+
+    // =========================================================================
+    // CONSULTA
+    // =========================================================================
+
+    /**
+     * @param tipo PRODUTO, CLIENTE ou null para os dois
+     */
+    public List<SugestaoDTO> sugerir(String texto, String tipo, int limite) {
+        String prefixo = BuscaProdutoService.normalizar(texto);
+        if (prefixo.isEmpty()) {
+            return List.of();
+        }
+        int tamanho = Math.max(1, Math.min(limite, TrieSugestoes.MAXIMO_POR_NO));
+
+        if (PRODUTO.equals(tipo)) {
+            return produtos.buscar(prefixo, tamanho);
+        }
+        if (CLIENTE.equals(tipo)) {
+            return clientes.buscar(prefixo, tamanho);
+        }
+
+        List<SugestaoDTO> todas = new ArrayList<>(produtos.buscar(prefixo, tamanho));
+        todas.addAll(clientes.buscar(prefixo, tamanho));
+        todas.sort(TrieSugestoes.ORDEM);
+        return todas.size() > tamanho ? todas.subList(0, tamanho) : todas;
+    }
+
+    // =========================================================================
+    // CARGA E ATUALIZAÇÃO
+    // =========================================================================
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void carregar() {
+        carregarProdutos();
+        carregarClientes();
+    }
+
+    private synchronized void carregarProdutos() {
+        long inicio = System.currentTimeMillis();
+        recarregar(produtos, produtoRepository.listarCatalogo().stream()
+                .map(p -> new Entrada(sugestao(p), chaves(p))).toList());
+        System.out.println("Sugestões de produtos: " + produtos.trie.tamanho() + " chaves em "
+                + (System.currentTimeMillis() - inicio) + " ms");
+    }
+
+    private synchronized void carregarClientes() {
+        recarregar(clientes, clienteRepository.findAll().stream()
+                .map(c -> new Entrada(sugestao(c), chaves(c))).toList());
+        System.out.println("Sugestões de clientes: " + clientes.trie.tamanho() + " chaves");
+    }
+
+    private record Entrada(SugestaoDTO sugestao, Set<String> chaves) {
+    }
+
+    private static void recarregar(Indice indice, List<Entrada> entradas) {
+        // Monta a trie nova fora do lock e troca de uma vez
+        TrieSugestoes trie = new TrieSugestoes();
+        Map<Long, SugestaoDTO> sugestoes = new HashMap<>();
+        Map<Long, Set<String>> chaves = new HashMap<>();
+        for (Entrada entrada : entradas) {
+            SugestaoDTO s = entrada.sugestao();
+            sugestoes.put(s.id(), s);
+            chaves.put(s.id(), entrada.chaves());
+            entrada.chaves().forEach(chave -> trie.adicionarEmCarga(chave, s));
+        }
+        trie.concluirCarga();
+        indice.lock.writeLock().lock();
+        try {
+            indice.trie = trie;
+            indice.sugestoes = sugestoes;
+            indice.chaves = chaves;
+        } finally {
+            indice.lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void aoAlterarProduto(ProdutoAlteradoEvent evento) {
+        if (evento.tipo() == ProdutoAlteradoEvent.Tipo.CATALOGO) {
+            carregarProdutos();
+            return;
+        }
+        List<Produto> lista = evento.tipo() == ProdutoAlteradoEvent.Tipo.REMOVIDO
+                ? List.of()
+                : produtoRepository.findByIdIn(evento.ids());
+
+        produtos.lock.writeLock().lock();
+        try {
+            evento.ids().forEach(produtos::remover);
+            lista.forEach(p -> produtos.adicionar(sugestao(p), chaves(p)));
+        } finally {
+            produtos.lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void aoAlterarCliente(ClienteAlteradoEvent evento) {
+        Cliente cliente = evento.removido() ? null : clienteRepository.findById(evento.id()).orElse(null);
+
+        clientes.lock.writeLock().lock();
+        try {
+            clientes.remover(evento.id());
+            if (cliente != null) {
+                clientes.adicionar(sugestao(cliente), chaves(cliente));
+            }
+        } finally {
+            clientes.lock.writeLock().unlock();
+        }
+    }
+
+    // =========================================================================
+    // CHAVES
+    // =========================================================================
+
+    private static SugestaoDTO sugestao(Produto p) {
+        return new SugestaoDTO(PRODUTO, p.getId(), p.getCodigo(), p.getDescricao(), !Boolean.FALSE.equals(p.getAtivo()));
+    }
+
+    private static SugestaoDTO sugestao(Cliente c) {
+        return new SugestaoDTO(CLIENTE, c.getId(), c.getCodigo(), c.getNome(), !Boolean.FALSE.equals(c.getAtivo()));
+    }
+
+    private static Set<String> chaves(Produto p) {
+        Set<String> chaves = new LinkedHashSet<>();
+        adicionarTexto(chaves, p.getDescricao());
+        adicionarCodigo(chaves, p.getCodigo());
+        if (p.getCodigosAlternativos() != null) {
+            for (ProdutoCodigo alternativo : p.getCodigosAlternativos()) {
+                adicionarCodigo(chaves, alternativo.getCodigo());
+            }
+        }
+        return chaves;
+    }
+
+    private static Set<String> chaves(Cliente c) {
+        Set<String> chaves = new LinkedHashSet<>();
+        adicionarTexto(chaves, c.getNome());
+        adicionarCodigo(chaves, c.getCodigo());
+        return chaves;
+    }
+
+    // Texto completo e o restante a partir de cada palavra ("cola lata", "lata")
+    private static void adicionarTexto(Set<String> chaves, String texto) {
+        String normalizado = BuscaProdutoService.normalizar(texto);
+        if (normalizado.isEmpty()) {
+            return;
+        }
+        chaves.add(normalizado);
+        for (int i = normalizado.indexOf(' '); i >= 0; i = normalizado.indexOf(' ', i + 1)) {
+            chaves.add(normalizado.substring(i + 1));
+        }
+    }
+
+    private static void adicionarCodigo(Set<String> chaves, String codigo) {
+        String normalizado = BuscaProdutoService.normalizar(codigo);
+        if (!normalizado.isEmpty()) {
+            chaves.add(normalizado);
+        }
+    }
+}
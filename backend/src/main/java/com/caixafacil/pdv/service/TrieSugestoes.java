@@ -0,0 +1,333 @@
+package com.caixafacil.pdv.service;
+
+import com.caixafacil.pdv.dto.SugestaoDTO;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Trie compacta (radix: cada aresta guarda um trecho de texto) de chaves
+ * normalizadas para sugestões. Cada nó guarda as melhores sugestões da sua
+ * subárvore, então uma consulta só percorre o caminho do prefixo.
+ *
+ * Não é thread-safe: quem usa controla o acesso.
+ */
+class TrieSugestoes {
+
+    static final int MAXIMO_POR_NO = 20;
+
+    // Ativos primeiro, depois textos mais curtos (completam mais o que foi digitado)
+    static final Comparator<SugestaoDTO> ORDEM = (a, b) -> {
+        if (a.ativo() != b.ativo()) {
+            return a.ativo() ? -1 : 1;
+        }
+        String ta = a.texto() != null ? a.texto() : "";
+        String tb = b.texto() != null ? b.texto() : "";
+        if (ta.length() != tb.length()) {
+            return Integer.compare(ta.length(), tb.length());
+        }
+        int c = ta.compareTo(tb);
+        if (c != 0) {
+            return c;
+        }
+        c = a.tipo().compareTo(b.tipo());
+        return c != 0 ? c : a.id().compareTo(b.id());
+    };
+
+    private static final SugestaoDTO[] NENHUMA = new SugestaoDTO[0];
+    private static final No[] SEM_FILHOS = new No[0];
+
+    private static final class No {
+        String rotulo;
+        No[] filhos = SEM_FILHOS;              // ordenados pelo primeiro caractere do rótulo
+        SugestaoDTO[] terminais = NENHUMA;     // chaves que terminam neste nó (sem ordem)
+        int quantidadeTerminais;
+        SugestaoDTO[] melhoresTerminais = NENHUMA; // top dos terminais, em ORDEM
+        SugestaoDTO[] melhores = NENHUMA;      // top da subárvore, em ORDEM
+
+        No(String rotulo) {
+            this.rotulo = rotulo;
+        }
+    }
+
+    private final No raiz = new No("");
+    private int chaves;
+
+    int tamanho() {
+        return chaves;
+    }
+
+    // =========================================================================
+    // CONSULTA
+    // =========================================================================
+
+    List<SugestaoDTO> buscar(String prefixo, int limite) {
+        No no = raiz;
+        String resto = prefixo;
+        boolean exato = true;
+        while (!resto.isEmpty()) {
+            No filho = filho(no, resto.charAt(0));
+            if (filho == null) {
+                return List.of();
+            }
+            if (resto.startsWith(filho.rotulo)) {
+                resto = resto.substring(filho.rotulo.length());
+                no = filho;
+            } else if (filho.rotulo.startsWith(resto)) {
+                // O prefixo termina no meio da aresta
+                no = filho;
+                exato = false;
+                break;
+            } else {
+                return List.of();
+            }
+        }
+
+        List<SugestaoDTO> resultado = new ArrayList<>(Math.min(limite, MAXIMO_POR_NO));
+        // Chave igual ao texto digitado vem antes de completar
+        if (exato) {
+            for (SugestaoDTO s : no.melhoresTerminais) {
+                if (resultado.size() < limite && !resultado.contains(s)) {
+                    resultado.add(s);
+                }
+            }
+        }
+        for (SugestaoDTO s : no.melhores) {
+            if (resultado.size() >= limite) {
+                break;
+            }
+            if (!resultado.contains(s)) {
+                resultado.add(s);
+            }
+        }
+        return resultado;
+    }
+
+    // =========================================================================
+    // INSERÇÃO E REMOÇÃO
+    // =========================================================================
+
+    /**
+     * Inclui a chave. Quem chama garante não incluir o mesmo par chave/sugestão duas vezes.
+     */
+    void adicionar(String chave, SugestaoDTO sugestao) {
+        List<No> caminho = inserir(chave, sugestao);
+        if (caminho == null) {
+            return;
+        }
+        No fim = caminho.get(caminho.size() - 1);
+        fim.melhoresTerminais = inserirOrdenado(fim.melhoresTerminais, sugestao);
+        for (No n : caminho) {
+            n.melhores = inserirOrdenado(n.melhores, sugestao);
+        }
+    }
+
+    /**
+     * Inclui a chave sem atualizar os tops; chamar concluirCarga() depois de todas
+     */
+    void adicionarEmCarga(String chave, SugestaoDTO sugestao) {
+        inserir(chave, sugestao);
+    }
+
+    /**
+     * Calcula os tops de todos os nós de uma vez, de baixo para cima
+     */
+    void concluirCarga() {
+        calcularTopos(raiz);
+    }
+
+    private static void calcularTopos(No no) {
+        for (No filho : no.filhos) {
+            calcularTopos(filho);
+        }
+        no.melhoresTerminais = NENHUMA;
+        for (int i = 0; i < no.quantidadeTerminais; i++) {
+            no.melhoresTerminais = inserirOrdenado(no.melhoresTerminais, no.terminais[i]);
+        }
+        no.melhores = recalcular(no);
+    }
+
+    private List<No> inserir(String chave, SugestaoDTO sugestao) {
+        if (chave.isEmpty()) {
+            return null;
+        }
+        List<No> caminho = new ArrayList<>();
+        No no = raiz;
+        String resto = chave;
+        caminho.add(no);
+
+        while (!resto.isEmpty()) {
+            int pos = posicaoFilho(no, resto.charAt(0));
+            if (pos < 0) {
+                No novo = new No(resto);
+                inserirFilho(no, -pos - 1, novo);
+                no = novo;
+                caminho.add(no);
+                break;
+            }
+            No filho = no.filhos[pos];
+            int comum = prefixoComum(filho.rotulo, resto);
+            if (comum < filho.rotulo.length()) {
+                // Divide a aresta: pai -> intermediário -> filho
+                No meio = new No(filho.rotulo.substring(0, comum));
+                meio.melhores = filho.melhores.clone();
+                filho.rotulo = filho.rotulo.substring(comum);
+                meio.filhos = new No[] {filho};
+                no.filhos[pos] = meio;
+                filho = meio;
+            }
+            resto = resto.substring(comum);
+            no = filho;
+            caminho.add(no);
+        }
+
+        if (no.quantidadeTerminais == no.terminais.length) {
+            no.terminais = Arrays.copyOf(no.terminais, Math.max(2, no.terminais.length * 2));
+        }
+        no.terminais[no.quantidadeTerminais++] = sugestao;
+        chaves++;
+        return caminho;
+    }
+
+    void remover(String chave, SugestaoDTO sugestao) {
+        List<No> caminho = new ArrayList<>();
+        No no = raiz;
+        String resto = chave;
+        caminho.add(no);
+        while (!resto.isEmpty()) {
+            No filho = filho(no, resto.charAt(0));
+            if (filho == null || !resto.startsWith(filho.rotulo)) {
+                return;
+            }
+            resto = resto.substring(filho.rotulo.length());
+            no = filho;
+            caminho.add(no);
+        }
+
+        int pos = -1;
+        for (int i = 0; i < no.quantidadeTerminais; i++) {
+            if (no.terminais[i].equals(sugestao)) {
+                pos = i;
+                break;
+            }
+        }
+        if (pos < 0) {
+            return;
+        }
+        // Ordem dos terminais não importa: o último ocupa a vaga
+        no.terminais[pos] = no.terminais[--no.quantidadeTerminais];
+        no.terminais[no.quantidadeTerminais] = null;
+        chaves--;
+        if (contem(no.melhoresTerminais, sugestao)) {
+            no.melhoresTerminais = NENHUMA;
+            for (int i = 0; i < no.quantidadeTerminais; i++) {
+                no.melhoresTerminais = inserirOrdenado(no.melhoresTerminais, no.terminais[i]);
+            }
+        }
+
+        // De baixo para cima: remove nós vazios e recalcula o top onde a sugestão aparecia
+        for (int i = caminho.size() - 1; i >= 0; i--) {
+            No n = caminho.get(i);
+            if (i > 0 && n.quantidadeTerminais == 0 && n.filhos.length == 0) {
+                removerFilho(caminho.get(i - 1), n);
+                continue;
+            }
+            if (contem(n.melhores, sugestao)) {
+                n.melhores = recalcular(n);
+            }
+        }
+    }
+
+    // =========================================================================
+    // AUXILIARES
+    // =========================================================================
+
+    private static SugestaoDTO[] recalcular(No no) {
+        SugestaoDTO[] melhores = no.melhoresTerminais;
+        for (No filho : no.filhos) {
+            for (SugestaoDTO s : filho.melhores) {
+                melhores = inserirOrdenado(melhores, s);
+            }
+        }
+        return melhores;
+    }
+
+    private static SugestaoDTO[] inserirOrdenado(SugestaoDTO[] lista, SugestaoDTO s) {
+        if (contem(lista, s)) {
+            return lista;
+        }
+        int pos = Arrays.binarySearch(lista, s, ORDEM);
+        pos = pos < 0 ? -pos - 1 : pos;
+        if (pos >= MAXIMO_POR_NO) {
+            return lista;
+        }
+        int tamanho = Math.min(lista.length + 1, MAXIMO_POR_NO);
+        SugestaoDTO[] nova = new SugestaoDTO[tamanho];
+        System.arraycopy(lista, 0, nova, 0, pos);
+        nova[pos] = s;
+        System.arraycopy(lista, pos, nova, pos + 1, tamanho - pos - 1);
+        return nova;
+    }
+
+    private static boolean contem(SugestaoDTO[] lista, SugestaoDTO s) {
+        for (SugestaoDTO item : lista) {
+            if (item.equals(s)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static No filho(No no, char c) {
+        int pos = posicaoFilho(no, c);
+        return pos >= 0 ? no.filhos[pos] : null;
+    }
+
+    private static int posicaoFilho(No no, char c) {
+        int inicio = 0;
+        int fim = no.filhos.length - 1;
+        while (inicio <= fim) {
+            int meio = (inicio + fim) >>> 1;
+            char atual = no.filhos[meio].rotulo.charAt(0);
+            if (atual < c) {
+                inicio = meio + 1;
+            } else if (atual > c) {
+                fim = meio - 1;
+            } else {
+                return meio;
+            }
+        }
+        return -(inicio + 1);
+    }
+
+    private static void inserirFilho(No pai, int pos, No filho) {
+        No[] filhos = new No[pai.filhos.length + 1];
+        System.arraycopy(pai.filhos, 0, filhos, 0, pos);
+        filhos[pos] = filho;
+        System.arraycopy(pai.filhos, pos, filhos, pos + 1, pai.filhos.length - pos);
+        pai.filhos = filhos;
+    }
+
+    private static void removerFilho(No pai, No filho) {
+        for (int i = 0; i < pai.filhos.length; i++) {
+            if (pai.filhos[i] == filho) {
+                No[] filhos = new No[pai.filhos.length - 1];
+                System.arraycopy(pai.filhos, 0, filhos, 0, i);
+                System.arraycopy(pai.filhos, i + 1, filhos, i, filhos.length - i);
+                pai.filhos = filhos;
+                return;
+            }
+        }
+    }
+
+    private static int prefixoComum(String a, String b) {
+        int n = Math.min(a.length(), b.length());
+        int i = 0;
+        while (i < n && a.charAt(i) == b.charAt(i)) {
+            i++;
+        }
+        return i;
+    }
+}
@@ -0,0 +1,11 @@
+package com.caixafacil.pdv.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Publicado na transação da venda; ouvintes recebem depois do commit
+ */
+public record VendaFinalizadaEvent(Long vendaId, Long numeroDocumento, BigDecimal total,
+                                   LocalDateTime dataHora, Long usuarioId) {
+}
@@ -0,0 +1,137 @@
+package com.caixafacil.pdv.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.caixafacil.pdv.model.Venda;
+import com.caixafacil.pdv.model.VendaIdempotencia;
+import com.caixafacil.pdv.repository.VendaIdempotenciaRepository;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Deduplicação de POST /api/vendas por chave de idempotência.
+ *
+ * A chave é gravada junto com a venda (fonte da verdade). Por cima disso
+ * há um cache em memória, limitado em tamanho e com expiração, com o JSON
+ * já serializado da resposta: repetições recentes não vão ao banco.
+ *
+ * As chaves gravadas são apagadas depois de pdv.idempotencia.retencao-dias,
+ * prazo bem maior que o de reenvio de qualquer terminal.
+ */
+@Service
+public class VendaIdempotenciaService {
+
+    public static final int TAMANHO_MAXIMO_CHAVE = 100;
+
+    private final VendaIdempotenciaRepository vendaIdempotenciaRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transacao;
+    private final long ttlMillis;
+    private final Map<String, RespostaGravada> cache;
+
+    @Value("${pdv.idempotencia.retencao-dias:30}")
+    private int retencaoDias;
+
+    public VendaIdempotenciaService(
+            VendaIdempotenciaRepository vendaIdempotenciaRepository,
+            ObjectMapper objectMapper,
+            PlatformTransactionManager transactionManager,
+            @Value("${pdv.idempotencia.cache-maximo:10000}") int cacheMaximo,
+            @Value("${pdv.idempotencia.ttl-minutos:60}") long ttlMinutos
+    ) {
+        this.vendaIdempotenciaRepository = vendaIdempotenciaRepository;
+        this.objectMapper = objectMapper;
+        this.transacao = new TransactionTemplate(transactionManager);
+        this.ttlMillis = ttlMinutos * 60_000;
+        // Ordem de inserção + TTL fixo: a entrada mais antiga é sempre a primeira a expirar
+        this.cache = new LinkedHashMap<>(256, 0.75f, false) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, RespostaGravada> eldest) {
+                return size() > cacheMaximo || eldest.getValue().expirada();
+            }
+        };
+    }
+
+    /**
+     * Recusa chave maior que a coluna, antes de tentar gravar a venda
+     */
+    public void validarChave(String chave) {
+        if (chave != null && chave.length() > TAMANHO_MAXIMO_CHAVE) {
+            throw new RuntimeException("Chave de idempotência com mais de " + TAMANHO_MAXIMO_CHAVE + " caracteres");
+        }
+    }
+
+    /**
+     * Resposta já gravada para a chave, sem acessar o banco
+     */
+    public Optional<String> buscarNoCache(String chave) {
+        synchronized (cache) {
+            RespostaGravada resposta = cache.get(chave);
+            if (resposta == null) {
+                return Optional.empty();
+            }
+            if (resposta.expirada()) {
+                cache.remove(chave);
+                return Optional.empty();
+            }
+            return Optional.of(resposta.json());
+        }
+    }
+
+    /**
+     * Venda já gravada com a chave (cache expirado, restart, outro nó...)
+     */
+    public Optional<Venda> buscarVenda(String chave) {
+        return vendaIdempotenciaRepository.findVendaByChave(chave);
+    }
+
+    /**
+     * Grava a chave na transação corrente, junto com a venda.
+     * Uma chave repetida em paralelo estoura a unique constraint no commit.
+     */
+    public void registrar(String chave, Venda venda) {
+        VendaIdempotencia idempotencia = new VendaIdempotencia();
+        idempotencia.setChave(chave);
+        idempotencia.setVenda(venda);
+        idempotencia.setDataHora(LocalDateTime.now());
+        vendaIdempotenciaRepository.save(idempotencia);
+    }
+
+    /**
+     * Serializa a venda e guarda o JSON no cache
+     */
+    public String guardarResposta(String chave, Venda venda) {
+        try {
+            String json = objectMapper.writeValueAsString(venda);
+            synchronized (cache) {
+                cache.put(chave, new RespostaGravada(json, System.currentTimeMillis() + ttlMillis));
+            }
+            return json;
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Erro ao serializar venda: " + e.getMessage(), e);
+        }
+    }
+
+    // Limpeza diária das chaves antigas
+    @Scheduled(cron = "${pdv.idempotencia.limpeza-cron:0 45 3 * * *}")
+    public void limpar() {
+        Integer removidas = transacao.execute(status ->
+                vendaIdempotenciaRepository.deleteAntesDe(LocalDateTime.now().minusDays(retencaoDias)));
+        System.out.println("Chaves de idempotência removidas: " + removidas);
+    }
+
+    private record RespostaGravada(String json, long expiraEm) {
+        boolean expirada() {
+            return System.currentTimeMillis() > expiraEm;
+        }
+    }
+}
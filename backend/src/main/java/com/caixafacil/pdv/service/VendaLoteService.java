@@ -0,0 +1,170 @@
+package com.caixafacil.pdv.service;
+
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.caixafacil.pdv.dto.VendaDTO;
+import com.caixafacil.pdv.dto.VendaLoteResultadoDTO;
+import com.caixafacil.pdv.model.Caixa;
+import com.caixafacil.pdv.model.Venda;
+import com.caixafacil.pdv.repository.CaixaRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Importação em lote de vendas feitas offline pelos terminais.
+ *
+ * As vendas são gravadas em blocos, cada bloco em uma transação (com os
+ * inserts em batch JDBC). Se um bloco falhar, ele é refeito venda a venda
+ * para isolar a(s) venda(s) com problema; as demais são gravadas normalmente.
+ * Vendas com chaveIdempotencia já gravada não são duplicadas no reenvio.
+ *
+ * A dataHora enviada pelo terminal é a hora da venda, desde que não esteja
+ * no futuro nem mais de pdv.vendas.offline-dias-maximos no passado; fora
+ * disso vale a do servidor. A baixa no livro de estoque entra na hora do
+ * processamento.
+ */
+@Service
+@RequiredArgsConstructor
+public class VendaLoteService {
+
+    public static final int MAXIMO_VENDAS = 1000;
+    private static final int TAMANHO_BLOCO = 50;
+    // Relógio do terminal um pouco adiantado
+    private static final long TOLERANCIA_FUTURO_MINUTOS = 5;
+
+    private final VendaService vendaService;
+    private final VendaIdempotenciaService vendaIdempotenciaService;
+    private final CaixaRepository caixaRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final EntityManager entityManager;
+
+    @Value("${pdv.vendas.offline-dias-maximos:7}")
+    private long offlineDiasMaximos;
+
+    public List<VendaLoteResultadoDTO> processar(List<VendaDTO> vendas) {
+        TransactionTemplate transacao = new TransactionTemplate(transactionManager);
+        boolean controlaCaixa = vendaService.controlaCaixa();
+
+        // Validação antes de gravar: a venda inválida falha sozinha, sem
+        // derrubar o bloco nem chegar ao banco
+        Map<Integer, VendaLoteResultadoDTO> invalidas = new HashMap<>();
+        for (int i = 0; i < vendas.size(); i++) {
+            try {
+                vendaIdempotenciaService.validarChave(vendas.get(i).getChaveIdempotencia());
+            } catch (RuntimeException e) {
+                invalidas.put(i, falha(i, e));
+            }
+        }
+
+        List<VendaLoteResultadoDTO> resultados = new ArrayList<>();
+        for (int inicio = 0; inicio < vendas.size(); inicio += TAMANHO_BLOCO) {
+            int fim = Math.min(inicio + TAMANHO_BLOCO, vendas.size());
+            List<VendaDTO> bloco = vendas.subList(inicio, fim);
+
+            int indiceBloco = inicio;
+            try {
+                resultados.addAll(transacao.execute(status -> salvarBloco(bloco, indiceBloco, controlaCaixa, invalidas)));
+            } catch (RuntimeException erroBloco) {
+                // Refaz o bloco uma venda por vez para separar as que falham
+                for (int i = 0; i < bloco.size(); i++) {
+                    List<VendaDTO> unica = List.of(bloco.get(i));
+                    int indice = inicio + i;
+                    try {
+                        resultados.addAll(transacao.execute(status -> salvarBloco(unica, indice, controlaCaixa, invalidas)));
+                    } catch (RuntimeException e) {
+                        resultados.add(falha(inicio + i, e));
+                    } finally {
+                        entityManager.clear();
+                    }
+                }
+            } finally {
+                // Com open-in-view o EntityManager vive a requisição toda
+                entityManager.clear();
+            }
+        }
+        return resultados;
+    }
+
+    private List<VendaLoteResultadoDTO> salvarBloco(List<VendaDTO> bloco, int inicio, boolean controlaCaixa,
+                                                    Map<Integer, VendaLoteResultadoDTO> invalidas) {
+        Caixa caixa = null;
+        if (controlaCaixa) {
+            caixa = caixaRepository.findCaixaAberto()
+                .orElseThrow(CaixaFechadoException::new);
+        }
+
+        List<VendaLoteResultadoDTO> resultados = new ArrayList<>();
+        double totalVendas = 0.0;
+        for (int i = 0; i < bloco.size(); i++) {
+            VendaDTO vendaDTO = bloco.get(i);
+            if (invalidas.containsKey(inicio + i)) {
+                resultados.add(invalidas.get(inicio + i));
+                continue;
+            }
+
+            // Reenvio de venda já sincronizada: devolve a existente
+            if (vendaDTO.getChaveIdempotencia() != null) {
+                Optional<Venda> existente = vendaIdempotenciaService.buscarVenda(vendaDTO.getChaveIdempotencia());
+                if (existente.isPresent()) {
+                    resultados.add(sucesso(inicio + i, existente.get(), true));
+                    continue;
+                }
+            }
+
+            vendaDTO.setDataHora(horaDaVenda(vendaDTO.getDataHora()));
+            Venda venda = vendaService.salvar(vendaDTO);
+            if (caixa != null) {
+                vendaService.registrarMovimentacoes(caixa, venda);
+                totalVendas += venda.getTotal().doubleValue();
+            }
+            resultados.add(sucesso(inicio + i, venda, false));
+        }
+
+        if (caixa != null) {
+            caixaRepository.somarValorVendas(caixa.getId(), totalVendas);
+        }
+        return resultados;
+    }
+
+    private LocalDateTime horaDaVenda(LocalDateTime informada) {
+        if (informada == null) {
+            return null;
+        }
+        LocalDateTime agora = LocalDateTime.now();
+        if (informada.isAfter(agora.plusMinutes(TOLERANCIA_FUTURO_MINUTOS))
+                || informada.isBefore(agora.minusDays(offlineDiasMaximos))) {
+            System.out.println("Venda offline com data/hora fora do limite (" + informada
+                    + "): usada a hora do servidor");
+            return null;
+        }
+        return informada;
+    }
+
+    private VendaLoteResultadoDTO sucesso(int indice, Venda venda, boolean duplicada) {
+        VendaLoteResultadoDTO resultado = new VendaLoteResultadoDTO();
+        resultado.setIndice(indice);
+        resultado.setSucesso(true);
+        resultado.setDuplicada(duplicada);
+        resultado.setVendaId(venda.getId());
+        resultado.setNumeroDocumento(venda.getNumeroDocumento());
+        return resultado;
+    }
+
+    private VendaLoteResultadoDTO falha(int indice, RuntimeException e) {
+        VendaLoteResultadoDTO resultado = new VendaLoteResultadoDTO();
+        resultado.setIndice(indice);
+        resultado.setSucesso(false);
+        resultado.setErro(e.getMessage());
+        return resultado;
+    }
+}
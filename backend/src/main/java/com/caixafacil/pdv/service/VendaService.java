@@ -1,6 +1,8 @@
 package com.caixafacil.pdv.service;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -13,7 +15,14 @@ import com.caixafacil.pdv.repository.*;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
@@ -24,10 +33,31 @@ public class VendaService {
     private final UsuarioRepository usuarioRepository;
     private final ClienteRepository clienteRepository;
     private final FormaPagamentoRepository formaPagamentoRepository;
+    private final NumeracaoDocumentoService numeracaoDocumentoService;
+    private final ConfiguracaoRepository configuracaoRepository;
+    private final CaixaRepository caixaRepository;
+    private final MovimentacaoCaixaRepository movimentacaoCaixaRepository;
+    private final MovimentacaoEstoqueRepository movimentacaoEstoqueRepository;
+    private final VendaIdempotenciaService vendaIdempotenciaService;
+    private final OutboxService outboxService;
+    private final PrecificacaoService precificacaoService;
+    private final ApplicationEventPublisher eventPublisher;
+    
+    @Value("${pdv.estoque.bloquear-negativo:false}")
+    private boolean bloquearNegativo;
     
     @Transactional
     public Venda salvar(VendaDTO vendaDTO) {
+        return salvar(vendaDTO, new CronometroCheckout());
+    }
+    
+    @Transactional
+    public Venda salvar(VendaDTO vendaDTO, CronometroCheckout cronometro) {
         try {
+            // Totais recalculados no servidor antes de gravar
+            precificacaoService.aplicar(vendaDTO);
+            cronometro.marcar("precificacao");
+            
             Venda venda = new Venda();
             
             Usuario usuario = usuarioRepository.findById(vendaDTO.getUsuarioId())
@@ -52,9 +82,14 @@ public class VendaService {
             venda.setObservacoes(vendaDTO.getObservacoes());
             venda.setCancelada(false);
             
-            Long maxNum = vendaRepository.findMaxNumeroDocumento();
-            venda.setNumeroDocumento(maxNum + 1);
-            venda.setDataHora(LocalDateTime.now());
+            venda.setNumeroDocumento(numeracaoDocumentoService.proximoNumeroVenda());
+            // Venda offline (lote) traz a hora do terminal, já validada em VendaLoteService
+            venda.setDataHora(vendaDTO.getDataHora() != null ? vendaDTO.getDataHora() : LocalDateTime.now());
+            
+            // Carrega todos os produtos e formas de pagamento da venda de uma vez
+            Map<Long, Produto> produtos = carregarProdutos(vendaDTO.getItens());
+            Map<Long, FormaPagamento> formasPagamento = carregarFormasPagamento(vendaDTO.getPagamentos());
+            cronometro.marcar("carga");
             
             // Converter itens
             List<VendaItem> itens = new ArrayList<>();
@@ -63,10 +98,7 @@ public class VendaService {
                 for (VendaItemDTO itemDTO : vendaDTO.getItens()) {
                     VendaItem item = new VendaItem();
                     
-                    Produto produto = produtoRepository.findById(itemDTO.getProdutoId())
-                        .orElseThrow(() -> new RuntimeException("Produto não encontrado: " + itemDTO.getProdutoId()));
-                    
-                    item.setProduto(produto);
+                    item.setProduto(produtos.get(itemDTO.getProdutoId()));
                     item.setVenda(venda);
                     item.setSequencia(sequencia++);
                     item.setQuantidade(itemDTO.getQuantidade() != null ? itemDTO.getQuantidade() : BigDecimal.ONE);
@@ -88,10 +120,7 @@ public class VendaService {
                 for (VendaPagamentoDTO pagDTO : vendaDTO.getPagamentos()) {
                     VendaPagamento pagamento = new VendaPagamento();
                     
-                    FormaPagamento formaPagamento = formaPagamentoRepository.findById(pagDTO.getFormaPagamentoId())
-                        .orElseThrow(() -> new RuntimeException("Forma de pagamento não encontrada: " + pagDTO.getFormaPagamentoId()));
-                    
-                    pagamento.setFormaPagamento(formaPagamento);
+                    pagamento.setFormaPagamento(formasPagamento.get(pagDTO.getFormaPagamentoId()));
                     pagamento.setVenda(venda);
                     pagamento.setValor(pagDTO.getValor() != null ? pagDTO.getValor() : BigDecimal.ZERO);
                     pagamento.setTroco(pagDTO.getTroco() != null ? pagDTO.getTroco() : BigDecimal.ZERO);
@@ -102,7 +131,19 @@ public class VendaService {
             venda.setPagamentos(pagamentos);
             
             Venda vendaSalva = vendaRepository.save(venda);
+            cronometro.marcar("venda");
+            
             baixarEstoque(vendaSalva);
+            cronometro.marcar("estoque");
+            
+            if (vendaDTO.getChaveIdempotencia() != null) {
+                vendaIdempotenciaService.registrar(vendaDTO.getChaveIdempotencia(), vendaSalva);
+            }
+            
+            // Efeitos que não precisam segurar o caixa rodam depois do commit
+            outboxService.publicar(OutboxService.VENDA_FINALIZADA, vendaSalva.getId(), null);
+            eventPublisher.publishEvent(new VendaFinalizadaEvent(vendaSalva.getId(), vendaSalva.getNumeroDocumento(),
+                    vendaSalva.getTotal(), vendaSalva.getDataHora(), usuario.getId()));
             
             return vendaSalva;
             
@@ -113,19 +154,171 @@ public class VendaService {
         }
     }
     
+    /**
+     * Controle de caixa habilitado na configuração da empresa
+     */
+    public boolean controlaCaixa() {
+        Optional<Configuracao> configOpt = configuracaoRepository.findById(1L);
+        return configOpt.isPresent() && configOpt.get().getControlarCaixa() != null
+            && configOpt.get().getControlarCaixa();
+    }
+    
+    /**
+     * Registra no caixa as movimentações de cada forma de pagamento da venda.
+     * O total de vendas do caixa é somado à parte, via CaixaRepository.somarValorVendas.
+     */
+    public void registrarMovimentacoes(Caixa caixa, Venda venda) {
+        if (venda.getPagamentos() == null || venda.getPagamentos().isEmpty()) {
+            return;
+        }
+        
+        List<MovimentacaoCaixa> movimentacoes = new ArrayList<>();
+        for (VendaPagamento pagamento : venda.getPagamentos()) {
+            MovimentacaoCaixa mov = new MovimentacaoCaixa();
+            mov.setCaixa(caixa);
+            mov.setTipo("VENDA");
+            mov.setValor(pagamento.getValor().doubleValue());
+            mov.setDescricao("Venda #" + venda.getNumeroDocumento() + 
+                           " - " + pagamento.getFormaPagamento().getDescricao());
+            mov.setDataHora(LocalDateTime.now());
+            mov.setVenda(venda);
+            mov.setFormaPagamento(pagamento.getFormaPagamento());
+            movimentacoes.add(mov);
+        }
+        movimentacaoCaixaRepository.saveAll(movimentacoes);
+    }
+    
+    /**
+     * Registra a venda no caixa aberto: total de vendas + movimentações
+     */
+    @Transactional
+    public void registrarNoCaixa(Caixa caixa, Venda venda) {
+        caixaRepository.somarValorVendas(caixa.getId(), venda.getTotal().doubleValue());
+        registrarMovimentacoes(caixa, venda);
+    }
+    
+    /**
+     * Busca todos os produtos dos itens em uma única consulta.
+     * Os produtos vêm somente leitura: o estoque é baixado via UPDATE em lote.
+     */
+    private Map<Long, Produto> carregarProdutos(List<VendaItemDTO> itensDTO) {
+        Map<Long, Produto> produtos = new HashMap<>();
+        if (itensDTO == null || itensDTO.isEmpty()) {
+            return produtos;
+        }
+        
+        Set<Long> ids = new HashSet<>();
+        for (VendaItemDTO itemDTO : itensDTO) {
+            ids.add(itemDTO.getProdutoId());
+        }
+        for (Produto produto : produtoRepository.findByIdIn(ids)) {
+            produtos.put(produto.getId(), produto);
+        }
+        for (Long id : ids) {
+            if (!produtos.containsKey(id)) {
+                throw new RuntimeException("Produto não encontrado: " + id);
+            }
+        }
+        return produtos;
+    }
+    
+    private Map<Long, FormaPagamento> carregarFormasPagamento(List<VendaPagamentoDTO> pagamentosDTO) {
+        Map<Long, FormaPagamento> formas = new HashMap<>();
+        if (pagamentosDTO == null || pagamentosDTO.isEmpty()) {
+            return formas;
+        }
+        
+        Set<Long> ids = new HashSet<>();
+        for (VendaPagamentoDTO pagDTO : pagamentosDTO) {
+            ids.add(pagDTO.getFormaPagamentoId());
+        }
+        for (FormaPagamento forma : formaPagamentoRepository.findAllById(ids)) {
+            formas.put(forma.getId(), forma);
+        }
+        for (Long id : ids) {
+            if (!formas.containsKey(id)) {
+                throw new RuntimeException("Forma de pagamento não encontrada: " + id);
+            }
+        }
+        return formas;
+    }
+    
+    /**
+     * Baixa o estoque de todos os itens com um único UPDATE,
+     * somando as quantidades quando o mesmo produto aparece em mais de uma linha.
+     *
+     * A baixa entra no livro na hora em que é processada, com os saldos lidos
+     * sob a trava; venda offline guarda a hora do terminal só na venda.
+     */
     private void baixarEstoque(Venda venda) {
-        if (venda.getItens() != null) {
-            for (VendaItem item : venda.getItens()) {
-                Produto produto = item.getProduto();
+        if (venda.getItens() == null || venda.getItens().isEmpty()) {
+            return;
+        }
+        
+        Map<Long, BigDecimal> quantidades = new LinkedHashMap<>();
+        for (VendaItem item : venda.getItens()) {
+            Produto produto = item.getProduto();
+            if (produto.getControlarEstoque() != null && produto.getControlarEstoque()) {
+                BigDecimal quantidade = item.getQuantidade() != null ? item.getQuantidade() : BigDecimal.ZERO;
+                quantidades.merge(produto.getId(), quantidade, BigDecimal::add);
+            }
+        }
+        if (quantidades.isEmpty()) {
+            return;
+        }
+        
+        // Trava as linhas (em ordem de id) e lê o estoque anterior à baixa;
+        // até o commit nenhuma outra venda altera esses produtos
+        Map<Long, BigDecimal> anteriores = produtoRepository.travarEstoques(quantidades.keySet());
+        int atualizados = produtoRepository.baixarEstoque(quantidades, bloquearNegativo);
+        if (atualizados < quantidades.size()) {
+            throw new RuntimeException("Estoque insuficiente para: " + produtosSemSaldo(venda, quantidades, anteriores));
+        }
+        eventPublisher.publishEvent(new EstoqueAlteradoEvent(Set.copyOf(quantidades.keySet())));
+        
+        // Estoque depois da baixa, lido do banco com as linhas ainda travadas
+        Map<Long, BigDecimal> estoques = produtoRepository.estoques(quantidades.keySet());
+        // O livro é ordenado por (data_hora, id): a hora vem depois da trava,
+        // e não da venda, para seguir a ordem em que as baixas acontecem
+        LocalDateTime noLivro = LocalDateTime.now();
+        List<MovimentacaoEstoque> movimentacoes = new ArrayList<>(quantidades.size());
+        
+        // Livro de estoque (um INSERT em lote) e a baixa refletida nas
+        // instâncias (somente leitura) devolvidas na resposta
+        for (VendaItem item : venda.getItens()) {
+            Produto produto = item.getProduto();
+            BigDecimal quantidade = quantidades.remove(produto.getId());
+            if (quantidade != null) {
+                BigDecimal estoqueAtual = estoques.get(produto.getId());
+                produto.setEstoque(estoqueAtual);
                 
-                if (produto.getControlarEstoque() != null && produto.getControlarEstoque()) {
-                    BigDecimal estoqueAtual = produto.getEstoque() != null ? produto.getEstoque() : BigDecimal.ZERO;
-                    BigDecimal quantidade = item.getQuantidade() != null ? item.getQuantidade() : BigDecimal.ZERO;
-                    BigDecimal novoEstoque = estoqueAtual.subtract(quantidade);
-                    produto.setEstoque(novoEstoque);
-                    produtoRepository.save(produto);
-                }
+                MovimentacaoEstoque mov = new MovimentacaoEstoque();
+                mov.setProduto(produto);
+                mov.setTipo("VENDA");
+                mov.setQuantidade(quantidade.negate());
+                mov.setEstoqueAnterior(anteriores.get(produto.getId()));
+                mov.setEstoqueAtual(estoqueAtual);
+                mov.setMotivo("Venda #" + venda.getNumeroDocumento());
+                mov.setUsuario(venda.getUsuario());
+                mov.setVendaId(venda.getId());
+                mov.setDataHora(noLivro);
+                movimentacoes.add(mov);
+            }
+        }
+        movimentacaoEstoqueRepository.registrarEmLote(movimentacoes);
+    }
+    
+    private String produtosSemSaldo(Venda venda, Map<Long, BigDecimal> quantidades,
+                                    Map<Long, BigDecimal> anteriores) {
+        Set<String> semSaldo = new LinkedHashSet<>();
+        for (VendaItem item : venda.getItens()) {
+            Produto produto = item.getProduto();
+            BigDecimal quantidade = quantidades.get(produto.getId());
+            BigDecimal estoque = anteriores.getOrDefault(produto.getId(), BigDecimal.ZERO);
+            if (quantidade != null && estoque.compareTo(quantidade) < 0) {
+                semSaldo.add(produto.getDescricao());
             }
         }
+        return semSaldo.isEmpty() ? "um ou mais produtos" : String.join(", ", semSaldo);
     }
 }
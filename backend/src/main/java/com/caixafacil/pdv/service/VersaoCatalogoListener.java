@@ -0,0 +1,62 @@
+package com.caixafacil.pdv.service;
+
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.ObjectProvider;
+
+import com.caixafacil.pdv.model.Categoria;
+import com.caixafacil.pdv.model.FormaPagamento;
+import com.caixafacil.pdv.model.Produto;
+import com.caixafacil.pdv.model.ProdutoCodigo;
+import com.caixafacil.pdv.model.VersionadoCatalogo;
+
+import java.util.Map;
+
+/**
+ * Carimba a versão do catálogo nas entidades gravadas pelo JPA e registra as
+ * exclusões. UPDATEs diretos (estoque, importação, atualização em massa) não
+ * passam por aqui: quem altera cadastro por SQL grava versao_catalogo junto.
+ *
+ * Instanciado pelo Hibernate através do container de beans do Spring.
+ */
+public class VersaoCatalogoListener {
+
+    private static final Map<Class<?>, String> ENTIDADES = Map.of(
+            Produto.class, "PRODUTO",
+            ProdutoCodigo.class, "PRODUTO_CODIGO",
+            Categoria.class, "CATEGORIA",
+            FormaPagamento.class, "FORMA_PAGAMENTO");
+
+    private final ObjectProvider<VersaoCatalogoService> versaoCatalogoService;
+
+    public VersaoCatalogoListener(ObjectProvider<VersaoCatalogoService> versaoCatalogoService) {
+        this.versaoCatalogoService = versaoCatalogoService;
+    }
+
+    @PrePersist
+    @PreUpdate
+    public void aoGravar(VersionadoCatalogo entidade) {
+        long versao = versaoCatalogoService.getObject().versaoDaTransacao();
+        entidade.setVersaoCatalogo(versao);
+
+        if (entidade instanceof ProdutoCodigo codigo && codigo.getProduto() != null) {
+            Produto produto = codigo.getProduto();
+            // Produto novo recebe a mesma versão no próprio INSERT
+            if (!Hibernate.isInitialized(produto) || produto.getVersaoCatalogo() == null
+                    || produto.getVersaoCatalogo() != versao) {
+                versaoCatalogoService.getObject().marcarProduto(produto.getId());
+            }
+        }
+    }
+
+    @PostRemove
+    public void aoExcluir(VersionadoCatalogo entidade) {
+        VersaoCatalogoService servico = versaoCatalogoService.getObject();
+        servico.registrarExclusao(ENTIDADES.get(Hibernate.getClass(entidade)), entidade.getId());
+        if (entidade instanceof ProdutoCodigo codigo && codigo.getProduto() != null) {
+            servico.marcarProduto(codigo.getProduto().getId());
+        }
+    }
+}
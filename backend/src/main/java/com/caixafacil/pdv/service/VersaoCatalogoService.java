@@ -0,0 +1,113 @@
+package com.caixafacil.pdv.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Versão do catálogo (produtos, códigos, categorias e formas de pagamento)
+ * para a sincronização incremental dos terminais.
+ *
+ * Cada transação que altera o catálogo recebe uma versão só, gerada pelo
+ * incremento do contador "catalogo" na tabela sequencias. O UPDATE trava a
+ * linha do contador até o commit, então quando o contador vale N todas as
+ * versões até N já estão gravadas: um terminal que leu até N nunca perde
+ * uma alteração que só apareça depois com versão menor.
+ */
+@Service
+@RequiredArgsConstructor
+public class VersaoCatalogoService {
+
+    private static final String CONTADOR = "catalogo";
+
+    // Chave do recurso ligado à transação corrente com a versão já gerada
+    private static final Object CHAVE_TRANSACAO = new Object();
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // Maior versão já confirmada por este processo (ETags, sem ir ao banco)
+    private final AtomicLong versaoConfirmada = new AtomicLong();
+
+    /**
+     * Versão das alterações da transação corrente, gerada no primeiro uso.
+     * Sem transação ativa cada chamada gera uma versão nova.
+     */
+    public long versaoDaTransacao() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            long versao = proximaVersao();
+            confirmar(versao);
+            return versao;
+        }
+        Long versao = (Long) TransactionSynchronizationManager.getResource(CHAVE_TRANSACAO);
+        if (versao == null) {
+            long gerada = proximaVersao();
+            versao = gerada;
+            TransactionSynchronizationManager.bindResource(CHAVE_TRANSACAO, versao);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    confirmar(gerada);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(CHAVE_TRANSACAO);
+                }
+            });
+        }
+        return versao;
+    }
+
+    /**
+     * Última versão confirmada. Não espera transações em andamento.
+     */
+    public long versaoAtual() {
+        Long valor = jdbcTemplate.query("SELECT valor FROM sequencias WHERE nome = ?",
+                rs -> rs.next() ? rs.getLong(1) : 0L, CONTADOR);
+        return valor != null ? valor : 0L;
+    }
+
+    /**
+     * Última versão confirmada por este processo, mantida em memória
+     */
+    public long versaoConfirmada() {
+        return versaoConfirmada.get();
+    }
+
+    private void confirmar(long versao) {
+        versaoConfirmada.accumulateAndGet(versao, Math::max);
+    }
+
+    /**
+     * Registra a exclusão para os terminais apagarem a cópia local
+     */
+    public void registrarExclusao(String entidade, Long id) {
+        jdbcTemplate.update("INSERT INTO catalogo_exclusoes (entidade, entidade_id, versao) VALUES (?, ?, ?)",
+                entidade, id, versaoDaTransacao());
+    }
+
+    /**
+     * Alteração de um código alternativo também muda a versão do produto,
+     * que é enviado aos terminais com a lista de códigos completa.
+     */
+    public void marcarProduto(Long produtoId) {
+        jdbcTemplate.update("UPDATE produto SET versao_catalogo = ? WHERE id = ?", versaoDaTransacao(), produtoId);
+    }
+
+    private long proximaVersao() {
+        if (jdbcTemplate.update("UPDATE sequencias SET valor = valor + 1 WHERE nome = ?", CONTADOR) == 0) {
+            try {
+                jdbcTemplate.update("INSERT INTO sequencias (nome, valor) VALUES (?, 0)", CONTADOR);
+            } catch (DuplicateKeyException e) {
+                // Outra transação criou o contador ao mesmo tempo
+            }
+            jdbcTemplate.update("UPDATE sequencias SET valor = valor + 1 WHERE nome = ?", CONTADOR);
+        }
+        return jdbcTemplate.queryForObject("SELECT valor FROM sequencias WHERE nome = ?", Long.class, CONTADOR);
+    }
+}
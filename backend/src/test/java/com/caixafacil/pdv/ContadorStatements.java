@@ -0,0 +1,95 @@
+package com.caixafacil.pdv;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Conta as execuções de SQL (execute*, executeBatch) feitas pela thread
+ * corrente, envolvendo o DataSource da aplicação. Threads de segundo plano
+ * (outbox, índices) não entram na contagem.
+ */
+public class ContadorStatements implements BeanPostProcessor {
+
+    private static final ThreadLocal<List<String>> EXECUTADOS = new ThreadLocal<>();
+
+    public static void iniciar() {
+        EXECUTADOS.set(new ArrayList<>());
+    }
+
+    /**
+     * SQL executado pela thread desde iniciar(), na ordem
+     */
+    public static List<String> parar() {
+        List<String> executados = EXECUTADOS.get();
+        EXECUTADOS.remove();
+        return executados != null ? executados : List.of();
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource dataSource) {
+            return proxy(DataSource.class, dataSource, (alvo, metodo, args) -> {
+                Object resultado = metodo.invoke(alvo, args);
+                return resultado instanceof Connection c ? conexao(c) : resultado;
+            });
+        }
+        return bean;
+    }
+
+    private static Connection conexao(Connection conexao) {
+        return proxy(Connection.class, conexao, (alvo, metodo, args) -> {
+            Object resultado = metodo.invoke(alvo, args);
+            String sql = args != null && args.length > 0 && args[0] instanceof String s ? s : null;
+            if (resultado instanceof CallableStatement cs) {
+                return statement(CallableStatement.class, cs, sql);
+            }
+            if (resultado instanceof PreparedStatement ps) {
+                return statement(PreparedStatement.class, ps, sql);
+            }
+            if (resultado instanceof Statement st) {
+                return statement(Statement.class, st, null);
+            }
+            return resultado;
+        });
+    }
+
+    private static <T extends Statement> T statement(Class<T> tipo, T statement, String sqlPreparado) {
+        return proxy(tipo, statement, (alvo, metodo, args) -> {
+            if (metodo.getName().startsWith("execute")) {
+                List<String> executados = EXECUTADOS.get();
+                if (executados != null) {
+                    String sql = args != null && args.length > 0 && args[0] instanceof String s ? s : sqlPreparado;
+                    executados.add(metodo.getName() + ": " + sql);
+                }
+            }
+            return metodo.invoke(alvo, args);
+        });
+    }
+
+    private interface Chamada {
+        Object invocar(Object alvo, Method metodo, Object[] args) throws Throwable;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> tipo, T alvo, Chamada chamada) {
+        InvocationHandler handler = (p, metodo, args) -> {
+            try {
+                return chamada.invocar(alvo, metodo, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        };
+        return (T) Proxy.newProxyInstance(tipo.getClassLoader(), new Class<?>[] { tipo }, handler);
+    }
+}
@@ -0,0 +1,88 @@
+package com.caixafacil.pdv.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.caixafacil.pdv.dto.AtualizacaoMassaDTO;
+import com.caixafacil.pdv.dto.AtualizacaoMassaResultadoDTO;
+import com.caixafacil.pdv.model.Categoria;
+import com.caixafacil.pdv.model.Produto;
+import com.caixafacil.pdv.repository.CategoriaRepository;
+import com.caixafacil.pdv.repository.ProdutoRepository;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+class AtualizacaoMassaServiceTest {
+
+    @Autowired
+    private AtualizacaoMassaService atualizacaoMassaService;
+    @Autowired
+    private ProdutoService produtoService;
+    @Autowired
+    private ProdutoRepository produtoRepository;
+    @Autowired
+    private CategoriaRepository categoriaRepository;
+
+    @Test
+    void reajustePorCategoriaSoAlteraACategoria() {
+        Categoria categoria = categoria();
+        Produto a = produto(categoria, "10.00");
+        Produto b = produto(categoria, "20.00");
+        Produto fora = produto(null, "10.00");
+
+        AtualizacaoMassaDTO alteracao = new AtualizacaoMassaDTO();
+        alteracao.setCategoriaId(categoria.getId());
+        alteracao.setPrecoVendaPercentual(new BigDecimal("10"));
+        AtualizacaoMassaResultadoDTO resultado = atualizacaoMassaService.aplicar(alteracao);
+
+        assertEquals(2, resultado.getProdutosAlterados());
+        assertPreco("11.00", a);
+        assertPreco("22.00", b);
+        assertPreco("10.00", fora);
+    }
+
+    @Test
+    void categoriaECodigosAlteraSoOsCodigosDaCategoria() {
+        Categoria categoria = categoria();
+        Produto naCategoria = produto(categoria, "10.00");
+        Produto outroDaCategoria = produto(categoria, "10.00");
+        Produto fora = produto(null, "10.00");
+
+        AtualizacaoMassaDTO alteracao = new AtualizacaoMassaDTO();
+        alteracao.setCategoriaId(categoria.getId());
+        alteracao.setCodigos(List.of(naCategoria.getCodigo(), fora.getCodigo(), "NAO-EXISTE"));
+        alteracao.setPrecoVenda(new BigDecimal("5.00"));
+        AtualizacaoMassaResultadoDTO resultado = atualizacaoMassaService.aplicar(alteracao);
+
+        assertEquals(1, resultado.getProdutosAlterados());
+        assertEquals(List.of("NAO-EXISTE"), resultado.getCodigosNaoEncontrados());
+        assertPreco("5.00", naCategoria);
+        assertPreco("10.00", outroDaCategoria);
+        assertPreco("10.00", fora);
+    }
+
+    private Categoria categoria() {
+        Categoria categoria = new Categoria();
+        categoria.setDescricao("MASSA " + System.nanoTime());
+        return categoriaRepository.save(categoria);
+    }
+
+    private Produto produto(Categoria categoria, String preco) {
+        Produto p = new Produto();
+        p.setCodigo("MASSA-" + System.nanoTime());
+        p.setDescricao("PRODUTO MASSA");
+        p.setCategoria(categoria);
+        p.setPrecoVenda(new BigDecimal(preco));
+        return produtoService.criar(p);
+    }
+
+    private void assertPreco(String esperado, Produto produto) {
+        BigDecimal preco = produtoRepository.findById(produto.getId()).orElseThrow().getPrecoVenda();
+        assertEquals(0, new BigDecimal(esperado).compareTo(preco), () -> "esperado " + esperado + ", obtido " + preco);
+    }
+}
@@ -0,0 +1,94 @@
+package com.caixafacil.pdv.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+
+import com.caixafacil.pdv.dto.BalancoResultadoDTO;
+import com.caixafacil.pdv.model.Balanco;
+import com.caixafacil.pdv.model.BalancoItem;
+import com.caixafacil.pdv.model.Produto;
+import com.caixafacil.pdv.repository.MovimentacaoEstoqueRepository;
+import com.caixafacil.pdv.repository.ProdutoRepository;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Balanço fechado com o caixa vendendo: o que foi vendido depois da
+ * contagem sai do estoque contado, e o livro continua batendo.
+ */
+@SpringBootTest
+class BalancoDuranteVendaTest {
+
+    private static final int VENDAS_DEPOIS = 50;
+
+    @Autowired
+    private BalancoService balancoService;
+    @Autowired
+    private CheckoutService checkoutService;
+    @Autowired
+    private ProdutoService produtoService;
+    @Autowired
+    private ProdutoRepository produtoRepository;
+    @Autowired
+    private MovimentacaoEstoqueRepository movimentacaoEstoqueRepository;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Test
+    void vendasDepoisDaContagemSaemDoEstoqueContado() throws Exception {
+        Produto produto = VendaConcorrenteTest.criarProduto(produtoService, "100");
+        eventPublisher.publishEvent(ProdutoAlteradoEvent.salvo(produto.getId()));
+
+        // Antes da contagem: o sistema fica com 95
+        assertTrue(VendaConcorrenteTest.vender(checkoutService, produto, 5).isEmpty());
+
+        Balanco balanco = balancoService.abrir("Teste durante vendas");
+        // 90 na prateleira, lido em duas partes; a casa além da escala do estoque é arredondada
+        balancoService.registrarLeituras(balanco.getId(), leituras(
+                produto.getCodigo() + ";60\n" + produto.getCodigo() + ";30,0004\n"));
+        Thread.sleep(5);
+
+        // Vendas depois da contagem, parte delas com o balanço já fechando
+        CompletableFuture<List<Throwable>> vendas = CompletableFuture.supplyAsync(() -> {
+            try {
+                return VendaConcorrenteTest.vender(checkoutService, produto, VENDAS_DEPOIS);
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+        Thread.sleep(20);
+        BalancoResultadoDTO resultado = balancoService.fechar(balanco.getId());
+        List<Throwable> falhas = vendas.get(2, TimeUnit.MINUTES);
+        assertTrue(falhas.isEmpty(), () -> falhas.size() + " vendas falharam: " + falhas.get(0));
+
+        // Na hora da contagem o sistema tinha 95 e a prateleira 90
+        assertEquals(1, resultado.getAjustes().size());
+        BalancoItem item = resultado.getAjustes().get(0);
+        assertValor("90.000", item.getQuantidadeContada());
+        assertValor("95", item.getEstoqueNaContagem());
+        assertValor("-5", item.getDiferenca());
+
+        // Contado menos o vendido depois da contagem
+        assertValor("40", VendaConcorrenteTest.estoque(produtoRepository, produto));
+        // Conferência: o estoque bate com a soma do livro
+        assertTrue(movimentacaoEstoqueRepository.divergencias(produto.getId(), produto.getId()).isEmpty());
+    }
+
+    private static ByteArrayInputStream leituras(String conteudo) {
+        return new ByteArrayInputStream(conteudo.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void assertValor(String esperado, BigDecimal valor) {
+        assertEquals(0, new BigDecimal(esperado).compareTo(valor), () -> "esperado " + esperado + ", obtido " + valor);
+    }
+}
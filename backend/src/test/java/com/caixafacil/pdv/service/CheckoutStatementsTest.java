@@ -0,0 +1,102 @@
+package com.caixafacil.pdv.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+
+import com.caixafacil.pdv.ContadorStatements;
+import com.caixafacil.pdv.dto.VendaDTO;
+import com.caixafacil.pdv.dto.VendaItemDTO;
+import com.caixafacil.pdv.dto.VendaPagamentoDTO;
+import com.caixafacil.pdv.model.Produto;
+import com.caixafacil.pdv.repository.ProdutoRepository;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * A finalização da venda faz o mesmo número de statements com 1 ou com 60
+ * linhas: produtos e formas de pagamento carregados de uma vez, baixa de
+ * estoque num UPDATE só e inserts em batch (hibernate.jdbc.batch_size=100).
+ */
+// Contexto próprio (com o contador), então banco próprio
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:checkout-statements")
+@Import(ContadorStatements.class)
+class CheckoutStatementsTest {
+
+    @Autowired
+    private CheckoutService checkoutService;
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    private final List<Produto> produtos = new ArrayList<>();
+
+    @BeforeEach
+    void criarProdutos() {
+        produtos.clear();
+        long sufixo = System.nanoTime();
+        for (int i = 0; i < 60; i++) {
+            Produto p = new Produto();
+            p.setCodigo("STMT-" + sufixo + "-" + i);
+            p.setDescricao("PRODUTO STATEMENTS " + i);
+            p.setPrecoVenda(new BigDecimal("2.50"));
+            p.setEstoque(new BigDecimal("1000"));
+            produtos.add(p);
+        }
+        produtoRepository.saveAll(produtos);
+    }
+
+    @Test
+    void mesmoNumeroDeStatementsComUmaOuSessentaLinhas() {
+        // Aquecimento: numeração, configuração e sequences já inicializadas
+        checkoutService.finalizar(venda(1), new CronometroCheckout());
+
+        List<String> umaLinha = contar(venda(1));
+        List<String> sessentaLinhas = contar(venda(60));
+
+        assertEquals(umaLinha.size(), sessentaLinhas.size(),
+                () -> "1 linha:\n" + String.join("\n", umaLinha) + "\n60 linhas:\n" + String.join("\n", sessentaLinhas));
+    }
+
+    // Sem as buscas de id nas sequences: vêm em blocos de 50, divididos entre as vendas
+    private List<String> contar(VendaDTO venda) {
+        List<String> executados;
+        ContadorStatements.iniciar();
+        try {
+            checkoutService.finalizar(venda, new CronometroCheckout());
+        } finally {
+            executados = ContadorStatements.parar();
+        }
+        return executados.stream().filter(sql -> !sql.contains("next value for")).toList();
+    }
+
+    private VendaDTO venda(int linhas) {
+        VendaDTO venda = new VendaDTO();
+        venda.setUsuarioId(1L);
+        List<VendaItemDTO> itens = new ArrayList<>();
+        BigDecimal total = BigDecimal.ZERO;
+        for (int i = 0; i < linhas; i++) {
+            VendaItemDTO item = new VendaItemDTO();
+            item.setProdutoId(produtos.get(i).getId());
+            item.setQuantidade(BigDecimal.ONE);
+            item.setPrecoUnitario(new BigDecimal("2.50"));
+            item.setTotal(new BigDecimal("2.50"));
+            itens.add(item);
+            total = total.add(item.getTotal());
+        }
+        venda.setItens(itens);
+        venda.setSubtotal(total);
+        venda.setTotal(total);
+
+        VendaPagamentoDTO pagamento = new VendaPagamentoDTO();
+        pagamento.setFormaPagamentoId(1L);
+        pagamento.setValor(total);
+        venda.setPagamentos(List.of(pagamento));
+        return venda;
+    }
+}
@@ -0,0 +1,52 @@
+package com.caixafacil.pdv.service;
+
+import org.junit.jupiter.api.Test;
+
+import com.caixafacil.pdv.model.Produto;
+import com.caixafacil.pdv.repository.ProdutoRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class IndiceCodigoBarrasServiceTest {
+
+    @Test
+    void leiturasNaoFalhamDuranteRecarga() throws Exception {
+        List<Produto> catalogo = new ArrayList<>();
+        for (long id = 1; id <= 20_000; id++) {
+            Produto p = new Produto();
+            p.setId(id);
+            p.setCodigo("789" + id);
+            p.setDescricao("PRODUTO " + id);
+            catalogo.add(p);
+        }
+        ProdutoRepository produtoRepository = mock(ProdutoRepository.class);
+        when(produtoRepository.listarCatalogo()).thenReturn(catalogo);
+
+        IndiceCodigoBarrasService indice = new IndiceCodigoBarrasService(produtoRepository);
+        indice.carregar();
+
+        // Recargas completas (importação, atualização em massa) enquanto o caixa lê
+        AtomicBoolean parar = new AtomicBoolean(false);
+        Thread recarga = new Thread(() -> {
+            while (!parar.get()) {
+                indice.carregar();
+            }
+        });
+        recarga.start();
+        try {
+            for (int i = 0; i < 200_000; i++) {
+                String codigo = "789" + (1 + i % catalogo.size());
+                assertTrue(indice.buscar(codigo).isPresent(), () -> "código " + codigo + " sumiu na recarga");
+            }
+        } finally {
+            parar.set(true);
+            recarga.join();
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.caixafacil.pdv.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class NotificacaoServiceTest {
+
+    private static final int BUFFER = 8;
+
+    private final NotificacaoService notificacoes = new NotificacaoService(new ObjectMapper(), BUFFER, 10, 1);
+
+    @AfterEach
+    void encerrar() {
+        notificacoes.encerrar();
+    }
+
+    @Test
+    void reconexaoQueCabeNaFilaRecebeOsEventos() {
+        publicar(BUFFER - 1);
+        notificacoes.inscrever(Set.of(), 0L);
+        assertEquals(1, notificacoes.inscritos());
+    }
+
+    @Test
+    void reconexaoMuitoAtrasadaNaoEDesconectada() {
+        // Mais eventos perdidos do que cabem na fila: recebe o reset e continua inscrito
+        publicar(BUFFER * 10);
+        notificacoes.inscrever(Set.of(), 0L);
+        notificacoes.inscrever(Set.of(NotificacaoService.VENDA), 3L);
+        assertEquals(2, notificacoes.inscritos());
+    }
+
+    private void publicar(int eventos) {
+        for (int i = 0; i < eventos; i++) {
+            notificacoes.publicar(NotificacaoService.VENDA, Map.of("numero", i));
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.caixafacil.pdv.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.caixafacil.pdv.dto.VendaDTO;
+import com.caixafacil.pdv.dto.VendaItemDTO;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark (JMH) da precificação de um carrinho grande. Não roda no
+ * mvn test; para rodar:
+ *
+ *   mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ *   java -cp target/test-classes:target/classes:$(cat target/cp.txt) \
+ *       com.caixafacil.pdv.service.PrecificacaoBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PrecificacaoBenchmark {
+
+    @Param({"500"})
+    private int linhas;
+
+    @Param({"CORRIGIR", "REJEITAR"})
+    private PrecificacaoService.Modo modo;
+
+    private PrecificacaoService precificacao;
+    private VendaDTO venda;
+
+    @Setup
+    public void preparar() {
+        Random random = new Random(42);
+        List<VendaItemDTO> itens = new ArrayList<>(linhas);
+        for (int i = 0; i < linhas; i++) {
+            VendaItemDTO item = new VendaItemDTO();
+            item.setProdutoId((long) i + 1);
+            item.setPrecoUnitario(BigDecimal.valueOf(50 + random.nextInt(10_000), 2));
+            // Um terço dos itens pesados (kg), o resto em unidades
+            item.setQuantidade(i % 3 == 0
+                    ? BigDecimal.valueOf(100 + random.nextInt(2_000), 3)
+                    : BigDecimal.valueOf(1 + random.nextInt(6)));
+            if (i % 5 == 0) {
+                item.setDescontoPercentual(BigDecimal.valueOf(random.nextInt(1_500), 2));
+            }
+            if (i % 7 == 0) {
+                item.setDescontoValor(BigDecimal.valueOf(random.nextInt(100), 2));
+            }
+            itens.add(item);
+        }
+        venda = new VendaDTO();
+        venda.setItens(itens);
+        venda.setDescontoValor(new BigDecimal("5.00"));
+
+        // Primeira passada preenche os totais; nas medidas a venda já chega
+        // com os valores certos, como vem do front
+        new PrecificacaoService(PrecificacaoService.Modo.CORRIGIR, 1).aplicar(venda);
+        precificacao = new PrecificacaoService(modo, 1);
+    }
+
+    @Benchmark
+    public BigDecimal aplicar() {
+        precificacao.aplicar(venda);
+        return venda.getTotal();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PrecificacaoBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,157 @@
+package com.caixafacil.pdv.service;
+
+import org.junit.jupiter.api.Test;
+
+import com.caixafacil.pdv.dto.VendaDTO;
+import com.caixafacil.pdv.dto.VendaItemDTO;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PrecificacaoServiceTest {
+
+    private final PrecificacaoService corrigir = new PrecificacaoService(PrecificacaoService.Modo.CORRIGIR, 1);
+    private final PrecificacaoService rejeitar = new PrecificacaoService(PrecificacaoService.Modo.REJEITAR, 1);
+
+    // =========================================================================
+    // ARREDONDAMENTO (HALF_UP SÓ NO FINAL)
+    // =========================================================================
+
+    @Test
+    void meioCentavoArredondaParaCima() {
+        VendaDTO venda = venda(item("0.125", "1", null), null);
+        corrigir.aplicar(venda);
+        assertValor("0.13", venda.getItens().get(0).getTotal());
+        assertValor("0.13", venda.getTotal());
+    }
+
+    @Test
+    void quantidadeFracionadaArredondaSoNoTotal() {
+        // 3 x 3,333 = 9,999 -> 10,00 (e não 3 x 3,33 = 9,99)
+        VendaDTO venda = venda(item("3.333", "3", null), null);
+        corrigir.aplicar(venda);
+        assertValor("10.00", venda.getItens().get(0).getTotal());
+
+        // 7,99 x 0,333 kg = 2,66067 -> 2,66
+        venda = venda(item("7.99", "0.333", null), null);
+        corrigir.aplicar(venda);
+        assertValor("2.66", venda.getItens().get(0).getTotal());
+    }
+
+    @Test
+    void descontoPercentualSobreValorSemArredondar() {
+        // 10,00 - 3,33% = 9,667 -> 9,67
+        VendaItemDTO item = item("10.00", "1", null);
+        item.setDescontoPercentual(new BigDecimal("3.33"));
+        VendaDTO venda = venda(item, null);
+        corrigir.aplicar(venda);
+        assertValor("9.67", venda.getItens().get(0).getTotal());
+    }
+
+    @Test
+    void subtotalSomaItensAntesDeArredondar() {
+        // 3 itens de 0,999: cada um arredonda para 1,00, o subtotal é 2,997 -> 3,00
+        VendaDTO venda = venda(List.of(item("0.999", "1", null), item("0.999", "1", null), item("0.999", "1", null)), null);
+        corrigir.aplicar(venda);
+        assertValor("1.00", venda.getItens().get(0).getTotal());
+        assertValor("3.00", venda.getSubtotal());
+        assertValor("3.00", venda.getTotal());
+    }
+
+    // =========================================================================
+    // CORRIGIR
+    // =========================================================================
+
+    @Test
+    void corrigirSobrescreveTotalDivergente() {
+        VendaDTO venda = venda(item("2.50", "4", "9.00"), "9.00");
+        corrigir.aplicar(venda);
+        assertValor("10.00", venda.getItens().get(0).getTotal());
+        assertValor("10.00", venda.getSubtotal());
+        assertValor("10.00", venda.getTotal());
+    }
+
+    @Test
+    void corrigirMantemValorDentroDaTolerancia() {
+        // Front arredondando 9,999 para 9,99: um centavo de diferença é aceito
+        VendaDTO venda = venda(item("3.333", "3", "9.99"), "9.99");
+        corrigir.aplicar(venda);
+        assertValor("9.99", venda.getItens().get(0).getTotal());
+        assertValor("9.99", venda.getTotal());
+    }
+
+    @Test
+    void corrigirPreencheTotaisAusentes() {
+        VendaDTO venda = venda(item("1.99", "2", null), null);
+        corrigir.aplicar(venda);
+        assertValor("3.98", venda.getItens().get(0).getTotal());
+        assertValor("3.98", venda.getSubtotal());
+        assertValor("3.98", venda.getTotal());
+    }
+
+    // =========================================================================
+    // REJEITAR
+    // =========================================================================
+
+    @Test
+    void rejeitarRecusaItemDivergente() {
+        VendaDTO venda = venda(item("2.50", "4", "9.00"), "9.00");
+        RuntimeException erro = assertThrows(RuntimeException.class, () -> rejeitar.aplicar(venda));
+        assertTrue(erro.getMessage().contains("item 1"), erro.getMessage());
+        assertTrue(erro.getMessage().contains("10.00"), erro.getMessage());
+    }
+
+    @Test
+    void rejeitarRecusaTotalDivergente() {
+        VendaItemDTO item = item("2.50", "4", "10.00");
+        VendaDTO venda = venda(item, "10.05");
+        venda.setDescontoValor(BigDecimal.ZERO);
+        RuntimeException erro = assertThrows(RuntimeException.class, () -> rejeitar.aplicar(venda));
+        assertTrue(erro.getMessage().contains("total"), erro.getMessage());
+    }
+
+    @Test
+    void rejeitarAceitaArredondamentoDentroDaTolerancia() {
+        VendaDTO venda = venda(item("3.333", "3", "9.99"), "9.99");
+        rejeitar.aplicar(venda);
+        assertValor("9.99", venda.getItens().get(0).getTotal());
+        assertValor("9.99", venda.getTotal());
+    }
+
+    @Test
+    void rejeitarRecusaDoisCentavosDeDiferenca() {
+        VendaDTO venda = venda(item("3.333", "3", "9.98"), "9.98");
+        assertThrows(RuntimeException.class, () -> rejeitar.aplicar(venda));
+    }
+
+    // =========================================================================
+
+    private static void assertValor(String esperado, BigDecimal valor) {
+        assertEquals(0, new BigDecimal(esperado).compareTo(valor), () -> "esperado " + esperado + ", obtido " + valor);
+    }
+
+    private static VendaItemDTO item(String preco, String quantidade, String total) {
+        VendaItemDTO item = new VendaItemDTO();
+        item.setProdutoId(1L);
+        item.setPrecoUnitario(new BigDecimal(preco));
+        item.setQuantidade(new BigDecimal(quantidade));
+        item.setTotal(total != null ? new BigDecimal(total) : null);
+        return item;
+    }
+
+    private static VendaDTO venda(VendaItemDTO item, String total) {
+        return venda(List.of(item), total);
+    }
+
+    private static VendaDTO venda(List<VendaItemDTO> itens, String total) {
+        VendaDTO venda = new VendaDTO();
+        venda.setItens(itens);
+        venda.setSubtotal(total != null ? new BigDecimal(total) : null);
+        venda.setTotal(total != null ? new BigDecimal(total) : null);
+        return venda;
+    }
+}
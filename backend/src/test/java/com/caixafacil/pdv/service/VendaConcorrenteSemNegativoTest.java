@@ -0,0 +1,52 @@
+package com.caixafacil.pdv.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.caixafacil.pdv.model.Produto;
+import com.caixafacil.pdv.repository.MovimentacaoEstoqueRepository;
+import com.caixafacil.pdv.repository.ProdutoRepository;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Com pdv.estoque.bloquear-negativo, vendas simultâneas acima do saldo:
+ * passam exatamente tantas quanto o estoque, as demais são recusadas.
+ */
+// Contexto próprio, então banco próprio: outro create-drop no mesmo banco
+// derrubaria o schema do contexto padrão, que fica em cache
+@SpringBootTest(properties = {
+        "pdv.estoque.bloquear-negativo=true",
+        "spring.datasource.url=jdbc:h2:mem:venda-sem-negativo"
+})
+class VendaConcorrenteSemNegativoTest {
+
+    @Autowired
+    private CheckoutService checkoutService;
+    @Autowired
+    private ProdutoService produtoService;
+    @Autowired
+    private ProdutoRepository produtoRepository;
+    @Autowired
+    private MovimentacaoEstoqueRepository movimentacaoEstoqueRepository;
+
+    @Test
+    void vendasAlemDoSaldoSaoRecusadas() throws Exception {
+        Produto produto = VendaConcorrenteTest.criarProduto(produtoService, "1500");
+
+        List<Throwable> recusadas = VendaConcorrenteTest.vender(checkoutService, produto, VendaConcorrenteTest.VENDAS);
+
+        assertEquals(500, recusadas.size());
+        for (Throwable recusada : recusadas) {
+            assertTrue(recusada.getMessage().contains("Estoque insuficiente"), recusada::toString);
+        }
+        assertEquals(0, BigDecimal.ZERO.compareTo(VendaConcorrenteTest.estoque(produtoRepository, produto)));
+        assertTrue(movimentacaoEstoqueRepository.divergencias(produto.getId(), produto.getId()).isEmpty());
+        VendaConcorrenteTest.assertLivroEmOrdem(movimentacaoEstoqueRepository, produto);
+    }
+}
@@ -0,0 +1,141 @@
+package com.caixafacil.pdv.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.caixafacil.pdv.dto.FiltroHistoricoEstoqueDTO;
+import com.caixafacil.pdv.dto.MovimentacaoEstoqueDTO;
+import com.caixafacil.pdv.dto.VendaDTO;
+import com.caixafacil.pdv.dto.VendaItemDTO;
+import com.caixafacil.pdv.dto.VendaPagamentoDTO;
+import com.caixafacil.pdv.model.Produto;
+import com.caixafacil.pdv.repository.MovimentacaoEstoqueRepository;
+import com.caixafacil.pdv.repository.ProdutoRepository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Milhares de vendas simultâneas do mesmo produto: a baixa é feita pelo
+ * banco sobre o valor corrente da linha, então nenhuma se perde.
+ */
+@SpringBootTest
+class VendaConcorrenteTest {
+
+    static final int VENDAS = 2000;
+    static final int THREADS = 32;
+
+    @Autowired
+    private CheckoutService checkoutService;
+    @Autowired
+    private ProdutoService produtoService;
+    @Autowired
+    private ProdutoRepository produtoRepository;
+    @Autowired
+    private MovimentacaoEstoqueRepository movimentacaoEstoqueRepository;
+
+    @Test
+    void vendasSimultaneasNaoPerdemBaixa() throws Exception {
+        Produto produto = criarProduto(produtoService, "500");
+
+        List<Throwable> falhas = vender(checkoutService, produto, VENDAS);
+
+        assertTrue(falhas.isEmpty(), () -> falhas.size() + " vendas falharam: " + falhas.get(0));
+        // Sem bloqueio de negativo o estoque passa de zero: 500 - 2000
+        assertEquals(0, new BigDecimal("-1500").compareTo(estoque(produtoRepository, produto)));
+        assertTrue(movimentacaoEstoqueRepository.divergencias(produto.getId(), produto.getId()).isEmpty());
+        assertLivroEmOrdem(movimentacaoEstoqueRepository, produto);
+    }
+
+    /**
+     * Na ordem do livro (data_hora, id), cada movimentação parte do saldo da
+     * anterior, e a posição de agora é o estoque atual
+     */
+    static void assertLivroEmOrdem(MovimentacaoEstoqueRepository movimentacaoEstoqueRepository, Produto produto) {
+        FiltroHistoricoEstoqueDTO filtro = new FiltroHistoricoEstoqueDTO();
+        filtro.setProdutoId(produto.getId());
+        List<MovimentacaoEstoqueDTO> livro = new ArrayList<>(movimentacaoEstoqueRepository.historico(filtro, VENDAS * 2));
+        Collections.reverse(livro);
+        for (int i = 1; i < livro.size(); i++) {
+            MovimentacaoEstoqueDTO anterior = livro.get(i - 1);
+            MovimentacaoEstoqueDTO mov = livro.get(i);
+            assertEquals(0, anterior.estoqueAtual().compareTo(mov.estoqueAnterior()),
+                    () -> "movimentação " + mov.id() + " fora de ordem: parte de " + mov.estoqueAnterior()
+                            + ", a anterior (" + anterior.id() + ") terminou em " + anterior.estoqueAtual());
+        }
+        BigDecimal ultimo = livro.get(livro.size() - 1).estoqueAtual();
+        assertEquals(0, ultimo.compareTo(movimentacaoEstoqueRepository
+                .estoqueEm(produto.getId(), LocalDateTime.now()).orElseThrow()));
+    }
+
+    // Pelo cadastro: o estoque inicial entra no livro e a conferência fecha
+    static Produto criarProduto(ProdutoService produtoService, String estoque) {
+        Produto p = new Produto();
+        p.setCodigo("CONC-" + System.nanoTime());
+        p.setDescricao("PRODUTO CONCORRENCIA");
+        p.setPrecoVenda(BigDecimal.ONE);
+        p.setEstoque(new BigDecimal(estoque));
+        return produtoService.criar(p);
+    }
+
+    static BigDecimal estoque(ProdutoRepository produtoRepository, Produto produto) {
+        return produtoRepository.estoques(Set.of(produto.getId())).get(produto.getId());
+    }
+
+    /**
+     * Dispara as vendas (uma unidade cada) num pool de threads e devolve os
+     * erros, um por venda recusada
+     */
+    static List<Throwable> vender(CheckoutService checkoutService, Produto produto, int vendas) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futuros = new ArrayList<>(vendas);
+            for (int i = 0; i < vendas; i++) {
+                futuros.add(pool.submit(() -> checkoutService.finalizar(venda(produto), new CronometroCheckout())));
+            }
+            List<Throwable> falhas = new ArrayList<>();
+            for (Future<?> futuro : futuros) {
+                try {
+                    futuro.get(2, TimeUnit.MINUTES);
+                } catch (java.util.concurrent.ExecutionException e) {
+                    falhas.add(e.getCause());
+                }
+            }
+            return falhas;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static VendaDTO venda(Produto produto) {
+        VendaItemDTO item = new VendaItemDTO();
+        item.setProdutoId(produto.getId());
+        item.setQuantidade(BigDecimal.ONE);
+        item.setPrecoUnitario(BigDecimal.ONE);
+        item.setTotal(BigDecimal.ONE);
+
+        VendaPagamentoDTO pagamento = new VendaPagamentoDTO();
+        pagamento.setFormaPagamentoId(1L);
+        pagamento.setValor(BigDecimal.ONE);
+
+        VendaDTO venda = new VendaDTO();
+        venda.setUsuarioId(1L);
+        venda.setItens(List.of(item));
+        venda.setSubtotal(BigDecimal.ONE);
+        venda.setTotal(BigDecimal.ONE);
+        venda.setPagamentos(List.of(pagamento));
+        return venda;
+    }
+}
@@ -0,0 +1,66 @@
+package com.caixafacil.pdv.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.caixafacil.pdv.dto.VendaDTO;
+import com.caixafacil.pdv.dto.VendaItemDTO;
+import com.caixafacil.pdv.dto.VendaLoteResultadoDTO;
+import com.caixafacil.pdv.dto.VendaPagamentoDTO;
+import com.caixafacil.pdv.model.Produto;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class VendaLoteServiceTest {
+
+    @Autowired
+    private VendaLoteService vendaLoteService;
+    @Autowired
+    private ProdutoService produtoService;
+
+    @Test
+    void chaveLongaDemaisFalhaSoNaVenda() {
+        Produto produto = VendaConcorrenteTest.criarProduto(produtoService, "10");
+        String longa = "x".repeat(VendaIdempotenciaService.TAMANHO_MAXIMO_CHAVE + 1);
+
+        List<VendaLoteResultadoDTO> resultados = vendaLoteService.processar(List.of(
+                venda(produto, "lote-" + System.nanoTime() + "-1"),
+                venda(produto, longa),
+                venda(produto, "lote-" + System.nanoTime() + "-3")));
+
+        assertEquals(3, resultados.size());
+        assertTrue(resultados.get(0).isSucesso());
+        assertFalse(resultados.get(1).isSucesso());
+        assertEquals(1, resultados.get(1).getIndice());
+        assertTrue(resultados.get(1).getErro().contains("Chave de idempotência"), resultados.get(1).getErro());
+        assertTrue(resultados.get(2).isSucesso());
+    }
+
+    private static VendaDTO venda(Produto produto, String chave) {
+        VendaItemDTO item = new VendaItemDTO();
+        item.setProdutoId(produto.getId());
+        item.setQuantidade(BigDecimal.ONE);
+        item.setPrecoUnitario(BigDecimal.ONE);
+        item.setTotal(BigDecimal.ONE);
+
+        VendaPagamentoDTO pagamento = new VendaPagamentoDTO();
+        pagamento.setFormaPagamentoId(1L);
+        pagamento.setValor(BigDecimal.ONE);
+
+        VendaDTO venda = new VendaDTO();
+        venda.setUsuarioId(1L);
+        venda.setItens(List.of(item));
+        venda.setSubtotal(BigDecimal.ONE);
+        venda.setTotal(BigDecimal.ONE);
+        venda.setPagamentos(List.of(pagamento));
+        venda.setChaveIdempotencia(chave);
+        return venda;
+    }
+}